@@ -45,6 +45,7 @@ public class GMConfiguration {
 	private Integer backupDuration;
 	private String loggerLevel; //$NON-NLS-1$
 	private Map<String, Object> mirrorsMap;
+	private Map<String, String> formatMap;
 	
 
 	private final GroupManager plugin;
@@ -64,6 +65,7 @@ public class GMConfiguration {
 		saveInterval = 10;
 		backupDuration = 24;
 		loggerLevel = "OFF"; //$NON-NLS-1$
+		formatMap = new HashMap<>();
 	}
 
 	@SuppressWarnings("unchecked")
@@ -161,6 +163,23 @@ public class GMConfiguration {
 				GroupManager.logger.log(Level.SEVERE, nodeError("data"), ex); //$NON-NLS-1$
 			}
 
+			/*
+			 * Optional storage format per world (yaml, binary or sqlite).
+			 */
+			try {
+				Map<String, Object> format = getElement("format", getElement("data", getElement("settings", GMconfig))); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+				formatMap.clear();
+				if (format != null)
+					for (Map.Entry<String, Object> entry : format.entrySet())
+						formatMap.put(entry.getKey().toLowerCase(), String.valueOf(entry.getValue()).toLowerCase());
+
+			} catch (IllegalArgumentException ignored) {
+				// No format node so everything stays as yaml.
+			} catch (Exception ex) {
+				GroupManager.logger.log(Level.SEVERE, nodeError("format"), ex); //$NON-NLS-1$
+			}
+
 
 
 			String level = ((Map<String, String>) getElement("settings", GMconfig).get("logging")).get("level"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
@@ -243,6 +262,22 @@ public class GMConfiguration {
 		return backupDuration;
 	}
 
+	/**
+	 * The storage format this world's data is configured to use.
+	 * 
+	 * @param worldName	the world to look up.
+	 * @return	the format for this world (or the default), 'yaml' if none is set.
+	 */
+	public String getDataFormat(String worldName) {
+
+		String format = formatMap.get(worldName.toLowerCase());
+
+		if (format == null)
+			format = formatMap.get("default"); //$NON-NLS-1$
+
+		return (format == null) ? "yaml" : format; //$NON-NLS-1$
+	}
+
 	public void adjustLoggerLevel() {
 
 		try {
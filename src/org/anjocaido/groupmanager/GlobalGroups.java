@@ -24,11 +24,11 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 
 import org.anjocaido.groupmanager.data.Group;
@@ -49,11 +49,13 @@ public class GlobalGroups {
 
 	private final GroupManager plugin;
 
-	private final Map<String, Group> groups = Collections.synchronizedMap(new HashMap<>());
+	private final Map<String, Group> groups = new ConcurrentHashMap<>();
 
 	protected long timeStampGroups = 0;
+	protected long hashGroups = 0;
 	protected boolean haveGroupsChanged = false;
 	protected File GlobalGroupsFile = null;
+	private volatile long revision = 0;
 
 	public GlobalGroups(GroupManager plugin) {
 
@@ -69,16 +71,31 @@ public class GlobalGroups {
 		if (this.haveGroupsChanged) {
 			return true;
 		}
-		synchronized(groups) {
 		for (Group g : groups.values()) {
 			if (g.isChanged()) {
 				return true;
 			}
 		}
-		}
 		return false;
 	}
 
+	/**
+	 * Record that the global groups differ from those copied into
+	 * any published {@link org.anjocaido.groupmanager.permissions.PermissionsSnapshot}.
+	 */
+	public void revise() {
+
+		revision++;
+	}
+
+	/**
+	 * @return a number which changes whenever any global group does.
+	 */
+	public long getRevision() {
+
+		return revision;
+	}
+
 	/**
 	 * @return the timeStampGroups
 	 */
@@ -95,6 +112,36 @@ public class GlobalGroups {
 		this.timeStampGroups = timeStampGroups;
 	}
 
+	/**
+	 * Record the modified time and content hash of the globalgroups.yml.
+	 */
+	protected void stampGroupsFile() {
+
+		setTimeStampGroups(GlobalGroupsFile.lastModified());
+		hashGroups = Tasks.hashFile(GlobalGroupsFile);
+	}
+
+	/**
+	 * Check if the globalgroups.yml was changed by something other than us.
+	 * The file is only hashed if its modified time is newer than ours,
+	 * and a file which was only touched has its time stamp updated.
+	 * 
+	 * @return true if the content differs from when we last loaded or saved it.
+	 */
+	public boolean isGroupsFileChanged() {
+
+		long modified = GlobalGroupsFile.lastModified();
+
+		if (getTimeStampGroups() >= modified)
+			return false;
+
+		if (Tasks.hashFile(GlobalGroupsFile) != hashGroups)
+			return true;
+
+		setTimeStampGroups(modified);
+		return false;
+	}
+
 	/**
 	 * @param haveGroupsChanged
 	 *            the haveGroupsChanged to set
@@ -102,6 +149,7 @@ public class GlobalGroups {
 	public void setGroupsChanged(boolean haveGroupsChanged) {
 
 		this.haveGroupsChanged = haveGroupsChanged;
+		revise();
 	}
 
 	@SuppressWarnings("unchecked")
@@ -207,7 +255,7 @@ public class GlobalGroups {
 			removeGroupsChangedFlag();
 		}
 
-		setTimeStampGroups(GlobalGroupsFile.lastModified());
+		stampGroupsFile();
 		GroupManager.setLoaded(true);
 		// GlobalGroupsFile = null;
 	}
@@ -221,14 +269,12 @@ public class GlobalGroups {
 		// File GlobalGroupsFile = new File(plugin.getDataFolder(), "globalgroups.yml");
 
 		if (haveGroupsChanged()) {
-			if (overwrite || (!overwrite && (getTimeStampGroups() >= GlobalGroupsFile.lastModified()))) {
+			if (overwrite || (!overwrite && !isGroupsFileChanged())) {
 				Map<String, Object> root = new HashMap<>();
 
 				Map<String, Object> groupsMap = new HashMap<>();
 				root.put("groups", groupsMap); //$NON-NLS-1$
-				synchronized(groups) {
-				for (String groupKey : groups.keySet()) {
-					Group group = groups.get(groupKey);
+				for (Group group : groups.values()) {
 
 					// Group header
 					Map<String, Object> aGroupMap = new HashMap<>();
@@ -237,7 +283,6 @@ public class GlobalGroups {
 					// Permission nodes
 					aGroupMap.put("permissions", group.getPermissionList()); //$NON-NLS-1$
 				}
-				}
 
 				if (!root.isEmpty()) {
 					DumperOptions opt = new DumperOptions();
@@ -247,7 +292,7 @@ public class GlobalGroups {
 						yaml.dump(root, new OutputStreamWriter(new FileOutputStream(GlobalGroupsFile), StandardCharsets.UTF_8)); //$NON-NLS-1$
 					} catch (FileNotFoundException ignored) {}
 				}
-				setTimeStampGroups(GlobalGroupsFile.lastModified());
+				stampGroupsFile();
 			} else {
 				// Newer file found.
 				GroupManager.logger.log(Level.WARNING, Messages.getString("GlobalGroups.ERROR_NEWER_GG_FOUND")); //$NON-NLS-1$
@@ -256,7 +301,7 @@ public class GlobalGroups {
 			removeGroupsChangedFlag();
 		} else {
 			// Check for newer file as no local changes.
-			if (getTimeStampGroups() < GlobalGroupsFile.lastModified()) {
+			if (isGroupsFileChanged()) {
 				GroupManager.logger.log(Level.WARNING, Messages.getString("GlobalGroups.WARN_NEWER_GG_FOUND_LOADING")); //$NON-NLS-1$
 				// Backup GlobalGroups file
 				backupFile();
@@ -408,6 +453,7 @@ public class GlobalGroups {
 	 */
 	public void resetGlobalGroups() {
 		this.groups.clear();
+		revise();
 	}
 
 	/**
@@ -415,9 +461,7 @@ public class GlobalGroups {
 	 * @return a collection of the groups
 	 */
 	public Group[] getGroupList() {
-		synchronized(groups) {
-			return groups.values().toArray(new Group[0]);
-		}
+		return groups.values().toArray(new Group[0]);
 	}
 
 	/**
@@ -449,11 +493,9 @@ public class GlobalGroups {
 	public void removeGroupsChangedFlag() {
 
 		setGroupsChanged(false);
-		synchronized(groups) {
 		for (Group g : groups.values()) {
 			g.flagAsSaved();
 		}
-		}
 	}
 
 }
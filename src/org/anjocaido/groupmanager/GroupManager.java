@@ -31,9 +31,12 @@ import java.util.logging.Logger;
 
 import org.anjocaido.groupmanager.Tasks.BukkitPermsUpdateTask;
 import org.anjocaido.groupmanager.Tasks.UpdateTask;
+import org.anjocaido.groupmanager.commands.ManBulk;
 import org.anjocaido.groupmanager.commands.ManCheckW;
 import org.anjocaido.groupmanager.commands.ManClear;
 import org.anjocaido.groupmanager.commands.ManDemote;
+import org.anjocaido.groupmanager.commands.ManExport;
+import org.anjocaido.groupmanager.commands.ManFind;
 import org.anjocaido.groupmanager.commands.ManGAdd;
 import org.anjocaido.groupmanager.commands.ManGAddI;
 import org.anjocaido.groupmanager.commands.ManGAddP;
@@ -48,8 +51,10 @@ import org.anjocaido.groupmanager.commands.ManGDelV;
 import org.anjocaido.groupmanager.commands.ManGList;
 import org.anjocaido.groupmanager.commands.ManGListP;
 import org.anjocaido.groupmanager.commands.ManGListV;
+import org.anjocaido.groupmanager.commands.ManImport;
 import org.anjocaido.groupmanager.commands.ManLoad;
 import org.anjocaido.groupmanager.commands.ManPromote;
+import org.anjocaido.groupmanager.commands.ManRestore;
 import org.anjocaido.groupmanager.commands.ManSave;
 import org.anjocaido.groupmanager.commands.ManSelect;
 import org.anjocaido.groupmanager.commands.ManToggleSave;
@@ -73,7 +78,9 @@ import org.anjocaido.groupmanager.commands.ManUListTemp;
 import org.anjocaido.groupmanager.commands.ManUListV;
 import org.anjocaido.groupmanager.commands.ManWhois;
 import org.anjocaido.groupmanager.commands.ManWorld;
+import org.anjocaido.groupmanager.data.ExpiryQueue;
 import org.anjocaido.groupmanager.data.User;
+import org.anjocaido.groupmanager.dataholder.worlds.DataFileWatcher;
 import org.anjocaido.groupmanager.dataholder.worlds.WorldsHolder;
 import org.anjocaido.groupmanager.events.GMWorldListener;
 import org.anjocaido.groupmanager.events.GroupManagerEventHandler;
@@ -104,6 +111,7 @@ public class GroupManager extends JavaPlugin {
 
 	private File backupFolder;
 	private ScheduledThreadPoolExecutor scheduler;
+	private DataFileWatcher dataFileWatcher;
 	private static Map<String, ArrayList<User>> overloadedUsers = new HashMap<>();
 	private static Map<String, String> selectedWorlds = new HashMap<>();
 
@@ -117,6 +125,8 @@ public class GroupManager extends JavaPlugin {
 
 	private static GlobalGroups globalGroups;
 
+	private static final ExpiryQueue expiryQueue = new ExpiryQueue();
+
 	private GMLoggerHandler ch;
 
 	private static GroupManagerEventHandler GMEventHandler;
@@ -152,6 +162,7 @@ public class GroupManager extends JavaPlugin {
 		}
 
 		disableScheduler(); // Shutdown before we save, so it doesn't interfere.
+		stopDataFileWatcher();
 		if (worldsHolder != null) {
 			try {
 				worldsHolder.saveChanges(false);
@@ -172,6 +183,9 @@ public class GroupManager extends JavaPlugin {
 
 			BukkitPermissions = null;
 
+			if (GMEventHandler != null)
+				GMEventHandler.shutdown();
+
 		}
 
 		// log that we are disabled.
@@ -259,6 +273,11 @@ public class GroupManager extends JavaPlugin {
 			 */
 			enableScheduler();
 
+			/*
+			 * Watch for changes made to our data files outside of GroupManager.
+			 */
+			startDataFileWatcher();
+
 			/*
 			 * Schedule a Bukkit Permissions update for 1 tick later.
 			 * All plugins will be loaded by then
@@ -332,6 +351,11 @@ public class GroupManager extends JavaPlugin {
 		getCommand("manglistp").setExecutor(new ManGListP()); //$NON-NLS-1$
 		getCommand("manglistv").setExecutor(new ManGListV()); //$NON-NLS-1$
 		getCommand("manload").setExecutor(new ManLoad()); //$NON-NLS-1$
+		getCommand("manexport").setExecutor(new ManExport()); //$NON-NLS-1$
+		getCommand("manimport").setExecutor(new ManImport()); //$NON-NLS-1$
+		getCommand("manrestore").setExecutor(new ManRestore()); //$NON-NLS-1$
+		getCommand("manbulk").setExecutor(new ManBulk()); //$NON-NLS-1$
+		getCommand("manfind").setExecutor(new ManFind()); //$NON-NLS-1$
 		getCommand("manpromote").setExecutor(new ManPromote()); //$NON-NLS-1$
 		getCommand("mansave").setExecutor(new ManSave()); //$NON-NLS-1$
 		getCommand("manselect").setExecutor(new ManSelect()); //$NON-NLS-1$
@@ -526,6 +550,9 @@ public class GroupManager extends JavaPlugin {
 			if (minutes > 0) {
 				scheduler.scheduleAtFixedRate(commiter, minutes, minutes, TimeUnit.MINUTES);
 				scheduler.scheduleAtFixedRate(cleanup, 0, 1, TimeUnit.MINUTES);
+				// Purge each timed node as it falls due rather than waiting for the next minute.
+				ScheduledThreadPoolExecutor timer = scheduler;
+				getExpiryQueue().setWakeUp(expires -> timer.schedule(cleanup, Math.max(0, ((expires + 1) * 1000) - System.currentTimeMillis()), TimeUnit.MILLISECONDS));
 				GroupManager.logger.info(String.format(Messages.getString("GroupManager.SCHEDULED_DATA_SAVING_SET"), minutes)); //$NON-NLS-1$
 			} else
 				GroupManager.logger.warning(Messages.getString("GroupManager.SCHEDULED_DATA_SAVING_DISABLED")); //$NON-NLS-1$
@@ -537,6 +564,7 @@ public class GroupManager extends JavaPlugin {
 	public void disableScheduler() {
 
 		if (scheduler != null) {
+			getExpiryQueue().setWakeUp(null);
 			try {
 				scheduler.setContinueExistingPeriodicTasksAfterShutdownPolicy(false);
 				scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
@@ -548,6 +576,40 @@ public class GroupManager extends JavaPlugin {
 		}
 	}
 
+	/**
+	 * Start watching the data files for external modifications.
+	 * If the file system can't be watched we fall back to
+	 * checking the files each time we save.
+	 */
+	public void startDataFileWatcher() {
+
+		stopDataFileWatcher();
+
+		try {
+			dataFileWatcher = new DataFileWatcher(this);
+			dataFileWatcher.start();
+		} catch (IOException | UnsupportedOperationException ex) {
+			dataFileWatcher = null;
+			GroupManager.logger.warning(String.format(Messages.getString("GroupManager.DATA_WATCHER_UNAVAILABLE"), ex.getMessage())); //$NON-NLS-1$
+		}
+	}
+
+	public void stopDataFileWatcher() {
+
+		if (dataFileWatcher != null) {
+			dataFileWatcher.stop();
+			dataFileWatcher = null;
+		}
+	}
+
+	/**
+	 * @return true if external changes to the data files are being watched.
+	 */
+	public boolean isWatchingDataFiles() {
+
+		return (dataFileWatcher != null) && dataFileWatcher.isRunning();
+	}
+
 	public WorldsHolder getWorldsHolder() {
 
 		return worldsHolder;
@@ -681,6 +743,14 @@ public class GroupManager extends JavaPlugin {
 
 	}
 
+	/**
+	 * @return the queue of timed permissions and sub-groups waiting to expire.
+	 */
+	public static ExpiryQueue getExpiryQueue() {
+
+		return expiryQueue;
+	}
+
 	/**
 	 * Is the plugin fully loaded?
 	 * 
@@ -17,9 +17,16 @@
  */
 package org.anjocaido.groupmanager.commands;
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.logging.Level;
 
 import org.anjocaido.groupmanager.GroupManager;
 import org.anjocaido.groupmanager.data.Group;
@@ -29,6 +36,7 @@ import org.anjocaido.groupmanager.localization.Messages;
 import org.anjocaido.groupmanager.permissions.AnjoPermissionsHandler;
 import org.anjocaido.groupmanager.utils.BukkitWrapper;
 import org.anjocaido.groupmanager.utils.PermissionCheckResult;
+import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.block.Block;
 import org.bukkit.command.BlockCommandSender;
@@ -41,11 +49,21 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 /**
+ * The instance registered for a command only dispatches. Each
+ * invocation runs on a fresh instance of the same class, so the
+ * fields below belong to a single invocation and commands can
+ * run concurrently or off the main thread.
+ * 
  * @author ElgarL
  *
  */
 public abstract class BaseCommand implements CommandExecutor, TabCompleter {
 
+	/*
+	 * The most suggestions returned for a single tab completion.
+	 */
+	protected static final int TAB_COMPLETE_LIMIT = 50;
+
 	protected GroupManager plugin;
 	
 	protected boolean isConsole = false;
@@ -81,11 +99,33 @@ public abstract class BaseCommand implements CommandExecutor, TabCompleter {
 	@Override
 	public boolean onCommand(@NotNull CommandSender sender, @NotNull Command command, @NotNull String label, @NotNull String[] args) {
 		
+		BaseCommand invocation = newInvocation();
+		
 		// If parsSender fails exit.
-		if (!parseSender(sender, label)) return true;
+		if (!invocation.parseSender(sender, label)) return true;
+		
+		if (invocation.isAsync(args)) {
+			// Resolve anything which needs the main thread first.
+			if (!invocation.prepareAsync(args))
+				return true;
+			/*
+			 * Run off the main thread with any replies
+			 * posted back to the sender on the main thread.
+			 */
+			invocation.sender = replyOnMainThread(sender);
+			Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+				try {
+					invocation.parseCommand(args);
+				} catch (Exception e) {
+					GroupManager.logger.log(Level.SEVERE, String.format(Messages.getString("COMMAND_FAILED"), label), e); //$NON-NLS-1$
+					invocation.sender.sendMessage(ChatColor.RED + String.format(Messages.getString("COMMAND_FAILED"), label)); //$NON-NLS-1$
+				}
+			});
+			return true;
+		}
 		
 		try {
-			return parseCommand(args);
+			return invocation.parseCommand(args);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -96,10 +136,121 @@ public abstract class BaseCommand implements CommandExecutor, TabCompleter {
 	@Override
 	public @Nullable List<String> onTabComplete(@NotNull CommandSender sender, @NotNull Command command, @NotNull String alias, @NotNull String[] args) {
 		
+		BaseCommand invocation = newInvocation();
+		
 		// If parsSender fails return empty.
-		if (!parseSender(sender, alias) || isConsole) return new ArrayList<>();
+		if (!invocation.parseSender(sender, alias) || invocation.isConsole) return new ArrayList<>();
+		
+		return invocation.tabComplete(sender, command, alias, args);
+	}
+	
+	/**
+	 * Create the instance which holds the state of a single invocation.
+	 * 
+	 * @return a new instance of this command.
+	 */
+	private BaseCommand newInvocation() {
+		
+		try {
+			return getClass().getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/**
+	 * Should this invocation run off the main thread?
+	 * 
+	 * Only commands which do slow work (file access, offline player lookups)
+	 * and make no Bukkit calls that require the main thread should return true.
+	 * Anything which must run on the main thread can be passed to {@link #sync(Runnable)}.
+	 * 
+	 * @param args	the command arguments.
+	 * @return true to run {@link #parseCommand(String[])} asynchronously.
+	 */
+	protected boolean isAsync(@NotNull String[] args) {
+		
+		return false;
+	}
+	
+	/**
+	 * Called on the main thread before an async run, to resolve
+	 * anything which needs it, such as player lookups.
+	 * 
+	 * @param args	the command arguments.
+	 * @return false if the command should not run.
+	 */
+	protected boolean prepareAsync(@NotNull String[] args) {
+		
+		return true;
+	}
+	
+	/**
+	 * Run a task on the main thread, immediately if we are already on it.
+	 * 
+	 * @param task
+	 */
+	protected void sync(Runnable task) {
 		
-		return tabComplete(sender, command, alias, args);
+		if (Bukkit.isPrimaryThread())
+			task.run();
+		else
+			Bukkit.getScheduler().runTask(plugin, task);
+	}
+	
+	/**
+	 * Wrap a CommandSender so messages sent from another
+	 * thread are delivered on the main thread, in order.
+	 * The wrapper implements every public interface of the sender,
+	 * so instanceof checks (Player, ConsoleCommandSender) still hold.
+	 * 
+	 * @param sender
+	 * @return the wrapped sender.
+	 */
+	private CommandSender replyOnMainThread(CommandSender sender) {
+		
+		Set<Class<?>> interfaces = new LinkedHashSet<>();
+		
+		for (Class<?> type = sender.getClass(); type != null; type = type.getSuperclass())
+			addInterfaces(type, interfaces);
+		interfaces.add(CommandSender.class);
+		
+		InvocationHandler handler = (proxy, method, params) -> {
+			
+			if (method.getName().equals("sendMessage")) { //$NON-NLS-1$
+				sync(() -> {
+					try {
+						method.invoke(sender, params);
+					} catch (ReflectiveOperationException e) {
+						GroupManager.logger.log(Level.WARNING, null, e);
+					}
+				});
+				return null;
+			}
+			try {
+				return method.invoke(sender, params);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		};
+		
+		try {
+			return (CommandSender) Proxy.newProxyInstance(sender.getClass().getClassLoader(), interfaces.toArray(new Class<?>[0]), handler);
+		} catch (IllegalArgumentException e) {
+			// An interface not visible to the sender's class loader.
+			return (CommandSender) Proxy.newProxyInstance(CommandSender.class.getClassLoader(), new Class<?>[] { CommandSender.class }, handler);
+		}
+	}
+	
+	/**
+	 * Collect the public interfaces of a type, and those they extend.
+	 */
+	private static void addInterfaces(Class<?> type, Set<Class<?>> interfaces) {
+		
+		for (Class<?> implemented : type.getInterfaces()) {
+			if (Modifier.isPublic(implemented.getModifiers()) && interfaces.add(implemented))
+				addInterfaces(implemented, interfaces);
+		}
 	}
 	
 	/**
@@ -135,7 +286,7 @@ public abstract class BaseCommand implements CommandExecutor, TabCompleter {
 		if (sender instanceof Player) {
 			senderPlayer = (Player) sender;
 
-			senderUser = plugin.getWorldsHolder().getWorldData(senderPlayer).getUser(senderPlayer.getUniqueId().toString());
+			senderUser = plugin.getWorldsHolder().getWorldData(senderPlayer).getUser(senderPlayer.getUniqueId());
 			senderGroup = senderUser.getGroup();
 			isOpOverride = (isOpOverride && (senderPlayer.isOp() || plugin.getWorldsHolder().getWorldPermissions(senderPlayer).has(senderPlayer, "groupmanager.op"))); //$NON-NLS-1$
 
@@ -229,52 +380,55 @@ public abstract class BaseCommand implements CommandExecutor, TabCompleter {
 	}
 	
 	/**
-	 * Return any users with partial name matches.
+	 * Return users whose names start with the given text.
 	 * 
 	 * @param arg partial name to match
 	 * @return
 	 */
 	protected List<String> tabCompleteUsers(String arg) {
 		
-		List<String> result = new ArrayList<>();
-		arg = arg.toLowerCase();
-		
-		/*
-		 * Return a TabComplete for users.
-		 */
-		for (User user : dataHolder.getUserList()) {
-			// Possible matching player
-			if((user != null) && (user.getLastName() != null) && (user.getLastName().toLowerCase().contains(arg))) {
-				
-				// If validating check for online state.
-				if (GroupManager.getGMConfig().isTabValidate() && GroupManager.getGMConfig().isToggleValidate()) {
-					if (user.isOnline())
-						result.add(user.getLastName());
-				} else {
-					// Not validating online state so add as a possible match
-					result.add(user.getLastName());
-				}
+		// If validating, only online players are valid so match against them.
+		if (GroupManager.getGMConfig().isTabValidate() && GroupManager.getGMConfig().isToggleValidate()) {
+			List<String> result = new ArrayList<>();
+			
+			for (Player player : Bukkit.getOnlinePlayers()) {
+				if ((result.size() < TAB_COMPLETE_LIMIT) && player.getName().toLowerCase().startsWith(arg.toLowerCase()) && dataHolder.isUserDeclared(player.getUniqueId().toString()))
+					result.add(player.getName());
 			}
+			return result;
 		}
-		return result;
+		
+		return dataHolder.getUsersObject().getNameIndex().complete(arg, TAB_COMPLETE_LIMIT);
 	}
 	
 	/**
-	 * Return a List of groups with partial name matches.
+	 * Return a List of groups whose names start with the given text.
 	 * 
 	 * @param arg partial name to match
 	 * @return
 	 */
 	protected List<String> tabCompleteGroups(String arg) {
 		
-		List<String> result = new ArrayList<>();
-		arg = arg.toLowerCase();
+		return dataHolder.getGroupsObject().getNameIndex().complete(arg, TAB_COMPLETE_LIMIT);
+	}
+	
+	/**
+	 * Return a List of registered permission nodes starting with the given text.
+	 * 
+	 * @param arg partial node to match
+	 * @return
+	 */
+	protected List<String> tabCompletePermissions(String arg) {
 		
-		for (Group g : dataHolder.getGroupList()) {
-			if ((g != null) && (g.getName() != null) && (g.getName().toLowerCase().contains(arg.toLowerCase())))
-				result.add(g.getName());
+		// Allow completing a negated node.
+		if (arg.startsWith("-")) { //$NON-NLS-1$
+			List<String> result = new ArrayList<>();
+			
+			for (String node : GroupManager.getBukkitPermissions().getPermissionIndex().complete(arg.substring(1), TAB_COMPLETE_LIMIT))
+				result.add("-" + node); //$NON-NLS-1$
+			return result;
 		}
-		return result;
+		return GroupManager.getBukkitPermissions().getPermissionIndex().complete(arg, TAB_COMPLETE_LIMIT);
 	}
 	
 	/**
@@ -0,0 +1,232 @@
+/*
+ *  GroupManager - A plug-in for Spigot/Bukkit based Minecraft servers.
+ *  Copyright (C) 2020  ElgarL
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.anjocaido.groupmanager.commands;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.anjocaido.groupmanager.dataholder.Transaction;
+import org.anjocaido.groupmanager.localization.Messages;
+import org.bukkit.ChatColor;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+
+/**
+ * Apply a file of changes to a world as a single transaction.
+ * 
+ * Files are read from the plugins bulk folder, one change per line
+ * written as the matching command without the slash:
+ * 
+ * <pre>
+ * manuadd &lt;player&gt; &lt;group&gt;
+ * manuaddsub &lt;player&gt; &lt;group&gt;
+ * manudelsub &lt;player&gt; &lt;group&gt;
+ * manuaddp &lt;player&gt; &lt;permission&gt; [permission2] ...
+ * manudelp &lt;player&gt; &lt;permission&gt; [permission2] ...
+ * mangaddp &lt;group&gt; &lt;permission&gt; [permission2] ...
+ * mangdelp &lt;group&gt; &lt;permission&gt; [permission2] ...
+ * </pre>
+ * 
+ * Blank lines and lines starting with # are ignored.
+ * 
+ * @author ElgarL
+ *
+ */
+public class ManBulk extends BaseCommand {
+
+	/**
+	 * 
+	 */
+	public ManBulk() {}
+
+	@Override
+	protected boolean parseCommand(@NotNull String[] args) {
+
+		// Validating arguments
+		if ((args.length != 1) && (args.length != 2)) {
+			sender.sendMessage(ChatColor.RED + Messages.getString("ERROR_REVIEW_ARGUMENTS") + Messages.getString("MANBULK_SYNTAX")); //$NON-NLS-1$ //$NON-NLS-2$
+			return true;
+		}
+
+		// Select the relevant world (if specified)
+		if (args.length == 2) {
+			dataHolder = plugin.getWorldsHolder().getWorldData(args[1]);
+			permissionHandler = dataHolder.getPermissionsHandler();
+		}
+
+		// Validating state of sender
+		if (dataHolder == null || permissionHandler == null) {
+			if (!setDefaultWorldHandler(sender))
+				return true;
+		}
+
+		File folder = getBulkFolder();
+		File file = new File(folder, args[0]);
+
+		if (!file.isFile() || !file.getParentFile().equals(folder)) {
+			sender.sendMessage(ChatColor.RED + String.format(Messages.getString("BULK_FILE_NOT_FOUND"), args[0], folder.getPath())); //$NON-NLS-1$
+			return true;
+		}
+
+		List<String> lines;
+		try {
+			lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+		} catch (IOException ex) {
+			sender.sendMessage(ChatColor.RED + ex.getMessage());
+			return true;
+		}
+
+		Transaction transaction = dataHolder.beginTransaction();
+		// The file line each change in the transaction came from.
+		List<Integer> source = new ArrayList<>();
+		boolean valid = true;
+
+		for (int i = 0; i < lines.size(); i++) {
+			String line = lines.get(i).trim();
+
+			if (line.isEmpty() || line.startsWith("#")) //$NON-NLS-1$
+				continue;
+
+			if (!addLine(transaction, line.split("\\s+"))) { //$NON-NLS-1$
+				sender.sendMessage(ChatColor.RED + String.format(Messages.getString("BULK_LINE_INVALID"), i + 1, line)); //$NON-NLS-1$
+				valid = false;
+			}
+			while (source.size() < transaction.size())
+				source.add(i + 1);
+		}
+
+		if (valid) {
+			for (Map.Entry<Integer, String> problem : transaction.validate().entrySet()) {
+				sender.sendMessage(ChatColor.RED + String.format(Messages.getString("BULK_LINE_ERROR"), source.get(problem.getKey() - 1), problem.getValue())); //$NON-NLS-1$
+				valid = false;
+			}
+		}
+
+		if (!valid) {
+			sender.sendMessage(ChatColor.RED + Messages.getString("BULK_NOT_APPLIED")); //$NON-NLS-1$
+			return true;
+		}
+
+		try {
+			transaction.commit();
+			sender.sendMessage(ChatColor.YELLOW + String.format(Messages.getString("BULK_APPLIED"), transaction.size(), dataHolder.getName(), file.getName())); //$NON-NLS-1$
+
+		} catch (IllegalArgumentException | IllegalStateException ex) {
+			sender.sendMessage(ChatColor.RED + ex.getMessage());
+			sender.sendMessage(ChatColor.RED + Messages.getString("BULK_NOT_APPLIED")); //$NON-NLS-1$
+		}
+		return true;
+	}
+
+	/**
+	 * Queue the changes for one line of a bulk file.
+	 * 
+	 * @param transaction
+	 * @param words	the line, split on whitespace.
+	 * @return false if the line is not a recognised change.
+	 */
+	private boolean addLine(Transaction transaction, String[] words) {
+
+		if (words.length < 3)
+			return false;
+
+		List<String> values = Arrays.asList(words).subList(2, words.length);
+
+		switch (words[0].toLowerCase()) {
+
+		case "manuadd": //$NON-NLS-1$
+			if (words.length != 3)
+				return false;
+			transaction.setGroup(words[1], words[2]);
+			return true;
+
+		case "manuaddsub": //$NON-NLS-1$
+			if (words.length != 3)
+				return false;
+			transaction.addSubGroup(words[1], words[2]);
+			return true;
+
+		case "manudelsub": //$NON-NLS-1$
+			if (words.length != 3)
+				return false;
+			transaction.removeSubGroup(words[1], words[2]);
+			return true;
+
+		case "manuaddp": //$NON-NLS-1$
+			values.forEach(node -> transaction.addUserPermission(words[1], node));
+			return true;
+
+		case "manudelp": //$NON-NLS-1$
+			values.forEach(node -> transaction.removeUserPermission(words[1], node));
+			return true;
+
+		case "mangaddp": //$NON-NLS-1$
+			values.forEach(node -> transaction.addGroupPermission(words[1], node));
+			return true;
+
+		case "mangdelp": //$NON-NLS-1$
+			values.forEach(node -> transaction.removeGroupPermission(words[1], node));
+			return true;
+
+		default:
+			return false;
+		}
+	}
+
+	private File getBulkFolder() {
+
+		return new File(plugin.getDataFolder(), "bulk").getAbsoluteFile(); //$NON-NLS-1$
+	}
+
+	@Override
+	public @Nullable List<String> tabComplete(@NotNull CommandSender sender, @NotNull Command command, @NotNull String alias, @NotNull String[] args) {
+
+		List<String> result = new ArrayList<>();
+
+		/*
+		 * Populate the first argument of TabComplete with the files in the bulk folder.
+		 */
+		if (args.length == 1) {
+			String[] files = getBulkFolder().list();
+
+			if (files != null)
+				for (String name : files)
+					if (name.toLowerCase().startsWith(args[0].toLowerCase()))
+						result.add(name);
+		}
+
+		/*
+		 * Populate the second argument of TabComplete with a list of valid world roots.
+		 */
+		if (args.length == 2) {
+			result = getWorlds();
+		}
+
+		return result;
+	}
+
+}
@@ -0,0 +1,149 @@
+/*
+ *  GroupManager - A plug-in for Spigot/Bukkit based Minecraft servers.
+ *  Copyright (C) 2020  ElgarL
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.anjocaido.groupmanager.commands;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.anjocaido.groupmanager.data.Group;
+import org.anjocaido.groupmanager.data.User;
+import org.anjocaido.groupmanager.localization.Messages;
+import org.bukkit.ChatColor;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+
+/**
+ * Find the users in a group, or the users and
+ * groups declaring a permission node.
+ * 
+ * @author ElgarL
+ *
+ */
+public class ManFind extends BaseCommand {
+
+	/*
+	 * Users listed per page.
+	 */
+	private static final int PAGE_SIZE = 20;
+
+	/**
+	 * 
+	 */
+	public ManFind() {}
+
+	@Override
+	protected boolean parseCommand(@NotNull String[] args) {
+
+		// Validating state of sender
+		if (dataHolder == null || permissionHandler == null) {
+			if (!setDefaultWorldHandler(sender))
+				return true;
+		}
+		// Validating arguments
+		if ((args.length < 2) || (args.length > 3) || (!args[0].equalsIgnoreCase("group") && !args[0].equalsIgnoreCase("perm"))) { //$NON-NLS-1$ //$NON-NLS-2$
+			sender.sendMessage(ChatColor.RED + Messages.getString("ERROR_REVIEW_ARGUMENTS") + Messages.getString("MANFIND_SYNTAX")); //$NON-NLS-1$ //$NON-NLS-2$
+			return true;
+		}
+
+		int page = 1;
+		if (args.length == 3) {
+			try {
+				page = Integer.parseInt(args[2]);
+			} catch (NumberFormatException ex) {
+				page = 0;
+			}
+			if (page < 1) {
+				sender.sendMessage(ChatColor.RED + String.format(Messages.getString("PAGE_INVALID"), args[2])); //$NON-NLS-1$
+				return true;
+			}
+		}
+
+		List<User> users;
+
+		if (args[0].equalsIgnoreCase("group")) { //$NON-NLS-1$
+			auxGroup = dataHolder.getGroup(args[1]);
+			if (auxGroup == null) {
+				sender.sendMessage(ChatColor.RED + String.format(Messages.getString("ERROR_GROUP_DOES_NOT_EXIST"), args[1])); //$NON-NLS-1$
+				return true;
+			}
+			users = dataHolder.getUsersInGroup(auxGroup.getName());
+			auxString = auxGroup.getName();
+
+		} else {
+			users = dataHolder.getUsersWithPermission(args[1]);
+			auxString = args[1];
+
+			List<String> groups = new ArrayList<>();
+			for (Group group : dataHolder.getGroupsWithPermission(args[1]))
+				groups.add(group.getName());
+
+			if (!groups.isEmpty())
+				sender.sendMessage(ChatColor.YELLOW + String.format(Messages.getString("FIND_GROUPS_WITH_PERMISSION"), args[1], ChatColor.WHITE + String.join(", ", groups))); //$NON-NLS-1$ //$NON-NLS-2$
+			else if (users.isEmpty()) {
+				sender.sendMessage(ChatColor.YELLOW + String.format(Messages.getString("FIND_NO_MATCHES"), args[1])); //$NON-NLS-1$
+				return true;
+			}
+		}
+
+		if (users.isEmpty()) {
+			sender.sendMessage(ChatColor.YELLOW + String.format(Messages.getString("FIND_NO_USERS"), auxString, dataHolder.getName())); //$NON-NLS-1$
+			return true;
+		}
+
+		int pages = (users.size() + PAGE_SIZE - 1) / PAGE_SIZE;
+		if (page > pages) {
+			sender.sendMessage(ChatColor.RED + String.format(Messages.getString("PAGE_INVALID"), args[2])); //$NON-NLS-1$
+			return true;
+		}
+
+		sender.sendMessage(ChatColor.YELLOW + String.format(Messages.getString("FIND_USERS"), auxString, dataHolder.getName(), users.size(), page, pages)); //$NON-NLS-1$
+
+		for (User user : users.subList((page - 1) * PAGE_SIZE, Math.min(page * PAGE_SIZE, users.size())))
+			sender.sendMessage(ChatColor.WHITE + user.getLastName() + ChatColor.GRAY + " (" + user.getUUID() + ")"); //$NON-NLS-1$ //$NON-NLS-2$
+
+		return true;
+	}
+
+	@Override
+	public @Nullable List<String> tabComplete(@NotNull CommandSender sender, @NotNull Command command, @NotNull String alias, @NotNull String[] args) {
+
+		/*
+		 * Populate the first argument of TabComplete with the search types.
+		 */
+		if (args.length == 1) {
+			return Arrays.asList("group", "perm"); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+
+		/*
+		 * Then with groups or permission nodes.
+		 */
+		if (args.length == 2) {
+			if (args[0].equalsIgnoreCase("group")) //$NON-NLS-1$
+				return tabCompleteGroups(args[1]);
+			if (args[0].equalsIgnoreCase("perm")) //$NON-NLS-1$
+				return tabCompletePermissions(args[1]);
+		}
+
+		return new ArrayList<>();
+	}
+
+}
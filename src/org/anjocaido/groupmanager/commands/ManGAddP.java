@@ -133,11 +133,18 @@ public class ManGAddP extends BaseCommand {
 			 * Include global groups.
 			 */
 			for (Group g : GroupManager.getGlobalGroups().getGroupList()) {
-				if (g.getName().toLowerCase().contains(args[0].toLowerCase()))
+				if (g.getName().toLowerCase().startsWith(args[0].toLowerCase()))
 					result.add(g.getName());
 			}
 		}
 		
+		/*
+		 * Registered permission nodes for the rest.
+		 */
+		if (args.length > 1) {
+			result = tabCompletePermissions(args[args.length - 1]);
+		}
+		
 		return result;
 	}
 
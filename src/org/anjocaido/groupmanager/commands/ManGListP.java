@@ -49,7 +49,7 @@ public class ManGListP extends BaseCommand {
 				return true;
 		}
 		// Validating arguments
-		if (args.length != 1) {
+		if ((args.length == 0) || (args.length > 3)) {
 			sender.sendMessage(ChatColor.RED + Messages.getString("ERROR_REVIEW_ARGUMENTS") + Messages.getString("MANGLISTP_SYNTAX")); //$NON-NLS-1$ //$NON-NLS-2$
 			return true;
 		}
@@ -61,34 +61,19 @@ public class ManGListP extends BaseCommand {
 		// Validating permission
 
 		// Seems OK
-		auxString = ""; //$NON-NLS-1$
-		for (String perm : auxGroup.getAllPermissionList()) {
-			auxString += perm + ", "; //$NON-NLS-1$
-		}
-		if (auxString.lastIndexOf(",") > 0) { //$NON-NLS-1$
-			auxString = auxString.substring(0, auxString.lastIndexOf(",")); //$NON-NLS-1$
-			sender.sendMessage(ChatColor.YELLOW + String.format(Messages.getString("GROUP_HAS_PERMISSIONS"), auxGroup.getName(), ChatColor.WHITE + auxString)); //$NON-NLS-1$
-			auxString = ""; //$NON-NLS-1$
-			for (String grp : auxGroup.getInherits()) {
-				auxString += grp + ", "; //$NON-NLS-1$
-			}
-			if (auxString.lastIndexOf(",") > 0) { //$NON-NLS-1$
-				auxString = auxString.substring(0, auxString.lastIndexOf(",")); //$NON-NLS-1$
-				sender.sendMessage(ChatColor.YELLOW + String.format(Messages.getString("AND_ALL_PERMISSIONS_GROUPS"), auxString)); //$NON-NLS-1$
-			}
+		PagedList list = new PagedList().parseArgs(args, 1);
+		for (String perm : auxGroup.getAllPermissionList())
+			list.add(perm);
 
-		} else {
+		if (list.isEmpty()) {
 			sender.sendMessage(ChatColor.YELLOW + String.format(Messages.getString("GROUP_NO_SPECIFIC_PERMISSIONS"), auxGroup.getName())); //$NON-NLS-1$
-			auxString = ""; //$NON-NLS-1$
-			for (String grp : auxGroup.getInherits()) {
-				auxString += grp + ", "; //$NON-NLS-1$
-			}
-			if (auxString.lastIndexOf(",") > 0) { //$NON-NLS-1$
-				auxString = auxString.substring(0, auxString.lastIndexOf(",")); //$NON-NLS-1$
-				sender.sendMessage(ChatColor.YELLOW + String.format(Messages.getString("AND_ALL_PERMISSIONS_GROUPS"), auxString)); //$NON-NLS-1$
-			}
-
+		} else if (!list.send(sender, ChatColor.YELLOW + String.format(Messages.getString("GROUP_HAS_PERMISSIONS"), auxGroup.getName(), ""), ChatColor.WHITE)) { //$NON-NLS-1$ //$NON-NLS-2$
+			return true;
 		}
+
+		if (!auxGroup.getInherits().isEmpty())
+			sender.sendMessage(ChatColor.YELLOW + String.format(Messages.getString("AND_ALL_PERMISSIONS_GROUPS"), String.join(", ", auxGroup.getInherits()))); //$NON-NLS-1$ //$NON-NLS-2$
+
 		return true;
 	}
 	
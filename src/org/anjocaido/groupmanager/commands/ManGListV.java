@@ -50,7 +50,7 @@ public class ManGListV extends BaseCommand {
 				return true;
 		}
 		// Validating arguments
-		if (args.length != 1) {
+		if ((args.length == 0) || (args.length > 3)) {
 			sender.sendMessage(ChatColor.RED + Messages.getString("ERROR_REVIEW_ARGUMENTS") + Messages.getString("MANGLISTV_SYNTAX")); //$NON-NLS-1$ //$NON-NLS-2$
 			return true;
 		}
@@ -65,24 +65,16 @@ public class ManGListV extends BaseCommand {
 		}
 		// Validating permission
 		// Seems OK
-		auxString = ""; //$NON-NLS-1$
+		PagedList list = new PagedList().parseArgs(args, 1);
 		for (String varKey : auxGroup.getVariables().getVarKeyList()) {
 			Object o = auxGroup.getVariables().getVarObject(varKey);
-			auxString += ChatColor.GOLD + varKey + ChatColor.WHITE + ":'" + ChatColor.GREEN + o.toString() + ChatColor.WHITE + "', "; //$NON-NLS-1$ //$NON-NLS-2$
-		}
-		if (auxString.lastIndexOf(",") > 0) { //$NON-NLS-1$
-			auxString = auxString.substring(0, auxString.lastIndexOf(",")); //$NON-NLS-1$
-		}
-		sender.sendMessage(ChatColor.YELLOW + String.format(Messages.getString("VARIABLES_OF_GROUP"), auxGroup.getName()));
-		sender.sendMessage(auxString + "."); //$NON-NLS-1$
-		auxString = ""; //$NON-NLS-1$
-		for (String grp : auxGroup.getInherits()) {
-			auxString += grp + ", "; //$NON-NLS-1$
-		}
-		if (auxString.lastIndexOf(",") > 0) { //$NON-NLS-1$
-			auxString = auxString.substring(0, auxString.lastIndexOf(",")); //$NON-NLS-1$
-			sender.sendMessage(ChatColor.YELLOW + String.format(Messages.getString("VARIABLES_ALL_GROUPS"), auxString)); //$NON-NLS-1$
+			list.add(varKey, ChatColor.GOLD + varKey + ChatColor.WHITE + ":'" + ChatColor.GREEN + o.toString() + ChatColor.WHITE + "'"); //$NON-NLS-1$ //$NON-NLS-2$
 		}
+		if (!list.send(sender, ChatColor.YELLOW + String.format(Messages.getString("VARIABLES_OF_GROUP"), auxGroup.getName()), ChatColor.WHITE)) //$NON-NLS-1$
+			return true;
+
+		if (!auxGroup.getInherits().isEmpty())
+			sender.sendMessage(ChatColor.YELLOW + String.format(Messages.getString("VARIABLES_ALL_GROUPS"), String.join(", ", auxGroup.getInherits()))); //$NON-NLS-1$ //$NON-NLS-2$
 
 		return true;
 	}
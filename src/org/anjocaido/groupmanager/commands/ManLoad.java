@@ -62,16 +62,20 @@ public class ManLoad extends BaseCommand {
 				}
 			}
 
+			// A known world is reloaded in place, updating only the players it affects.
+			boolean known = plugin.getWorldsHolder().isWorldKnown(auxString);
+
 			GroupManager.setLoaded(false); // Disable Bukkit Perms update and event triggers
 
-			GroupManager.getGlobalGroups().load();
+			plugin.getWorldsHolder().reloadGlobalGroups();
 			plugin.getWorldsHolder().loadWorld(auxString);
 
 			sender.sendMessage(String.format(Messages.getString("RELOAD_REQUEST_ATTEMPT"), auxString)); //$NON-NLS-1$
 
 			GroupManager.setLoaded(true);
 
-			GroupManager.getBukkitPermissions().reset();
+			if (!known)
+				GroupManager.getBukkitPermissions().reset();
 
 		} else {
 
@@ -0,0 +1,118 @@
+/*
+ *  GroupManager - A plug-in for Spigot/Bukkit based Minecraft servers.
+ *  Copyright (C) 2020  ElgarL
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.anjocaido.groupmanager.commands;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.anjocaido.groupmanager.localization.Messages;
+import org.bukkit.ChatColor;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+
+/**
+ * List the backups retained for a world or restore
+ * its data to one of them.
+ * 
+ * @author ElgarL
+ *
+ */
+public class ManRestore extends BaseCommand {
+
+	/**
+	 * 
+	 */
+	public ManRestore() {}
+
+	@Override
+	protected boolean parseCommand(@NotNull String[] args) {
+
+		// Validating arguments
+		if ((args.length < 1) || (args.length > 2)) {
+			sender.sendMessage(ChatColor.RED + Messages.getString("ERROR_REVIEW_ARGUMENTS") + Messages.getString("MANRESTORE_SYNTAX")); //$NON-NLS-1$ //$NON-NLS-2$
+			return true;
+		}
+
+		dataHolder = plugin.getWorldsHolder().getWorldData(args[0]);
+		List<Long> points = plugin.getWorldsHolder().getBackupStore().getPoints(dataHolder.getName());
+		SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss"); //$NON-NLS-1$
+
+		if (points.isEmpty()) {
+			sender.sendMessage(ChatColor.RED + String.format(Messages.getString("NO_BACKUP_POINTS"), dataHolder.getName())); //$NON-NLS-1$
+			return true;
+		}
+
+		if (args.length == 1) {
+			sender.sendMessage(ChatColor.YELLOW + String.format(Messages.getString("BACKUP_POINTS"), dataHolder.getName())); //$NON-NLS-1$
+			for (int i = 0; i < points.size(); i++)
+				sender.sendMessage(ChatColor.YELLOW + String.format(Messages.getString("BACKUP_POINT"), i + 1, format.format(points.get(i)))); //$NON-NLS-1$
+			return true;
+		}
+
+		int point;
+		try {
+			point = Integer.parseInt(args[1]);
+		} catch (NumberFormatException ex) {
+			point = 0;
+		}
+		if ((point < 1) || (point > points.size())) {
+			sender.sendMessage(ChatColor.RED + String.format(Messages.getString("BACKUP_POINT_INVALID"), args[1])); //$NON-NLS-1$
+			return true;
+		}
+
+		try {
+			/*
+			 * Obtain a lock so a save can't run mid restore.
+			 */
+			plugin.getSaveLock().lock();
+
+			long time = points.get(point - 1);
+			if (plugin.getWorldsHolder().restoreWorld(dataHolder, time))
+				sender.sendMessage(ChatColor.YELLOW + String.format(Messages.getString("WORLD_RESTORED"), dataHolder.getName(), format.format(time))); //$NON-NLS-1$
+			else
+				sender.sendMessage(ChatColor.RED + String.format(Messages.getString("NO_BACKUP_POINTS"), dataHolder.getName())); //$NON-NLS-1$
+
+		} catch (IllegalStateException ex) {
+			sender.sendMessage(ChatColor.RED + ex.getMessage());
+
+		} finally {
+			// Release lock.
+			if(plugin.getSaveLock().isHeldByCurrentThread())
+				plugin.getSaveLock().unlock();
+		}
+		return true;
+	}
+
+	@Override
+	public @Nullable List<String> tabComplete(@NotNull CommandSender sender, @NotNull Command command, @NotNull String alias, @NotNull String[] args) {
+
+		/*
+		 * Populate the first argument of TabComplete with a list of valid world roots.
+		 */
+		if (args.length == 1) {
+			return getWorlds();
+		}
+
+		return new ArrayList<>();
+	}
+
+}
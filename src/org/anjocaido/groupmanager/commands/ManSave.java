@@ -39,6 +39,15 @@ public class ManSave extends BaseCommand {
 	 */
 	public ManSave() {}
 
+	/*
+	 * Saving writes every changed world to disk, so run it off the main thread.
+	 */
+	@Override
+	protected boolean isAsync(@NotNull String[] args) {
+
+		return true;
+	}
+
 	@Override
 	protected boolean parseCommand(@NotNull String[] args) {
 
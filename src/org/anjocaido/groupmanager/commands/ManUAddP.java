@@ -142,6 +142,13 @@ public class ManUAddP extends BaseCommand {
 			result = tabCompleteUsers(args[0]);
 		}
 		
+		/*
+		 * Registered permission nodes for the rest.
+		 */
+		if (args.length > 1) {
+			result = tabCompletePermissions(args[args.length - 1]);
+		}
+		
 		return result;
 	}
 
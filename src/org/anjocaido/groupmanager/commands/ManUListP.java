@@ -41,6 +41,27 @@ public class ManUListP extends BaseCommand {
 	 */
 	public ManUListP() {}
 
+	/*
+	 * Listing and paging a large set of permissions can be slow, so run this off the main thread.
+	 */
+	@Override
+	protected boolean isAsync(@NotNull String[] args) {
+
+		return true;
+	}
+
+	/*
+	 * Player lookups use the Bukkit API, so resolve the player before going async.
+	 */
+	@Override
+	protected boolean prepareAsync(@NotNull String[] args) {
+
+		if ((args.length == 0) || (args.length > 4) || !GroupManager.getGMConfig().isToggleValidate())
+			return true;
+
+		return (match = validatePlayer(args[0], sender)) != null;
+	}
+
 	@Override
 	protected boolean parseCommand(@NotNull String[] args) {
 
@@ -50,15 +71,12 @@ public class ManUListP extends BaseCommand {
 				return true;
 		}
 		// Validating arguments
-		if ((args.length == 0) || (args.length > 2)) {
+		if ((args.length == 0) || (args.length > 4)) {
 			sender.sendMessage(ChatColor.RED + Messages.getString("ERROR_REVIEW_ARGUMENTS") + Messages.getString("MANULISTP_SYNTAX")); //$NON-NLS-1$ //$NON-NLS-2$
 			return true;
 		}
 
-		if ((GroupManager.getGMConfig().isToggleValidate()) && ((match = validatePlayer(args[0], sender)) == null)) {
-			return false;
-		}
-
+		// The player was validated on the main thread, see prepareAsync.
 		if (match != null) {
 			auxUser = dataHolder.getUser(match.toString());
 		} else {
@@ -66,45 +84,42 @@ public class ManUListP extends BaseCommand {
 		}
 		// Validating permission
 		// Seems OK
-		auxString = ""; //$NON-NLS-1$
-		for (String perm : auxUser.getAllPermissionList()) {
-			auxString += perm + ", "; //$NON-NLS-1$
+		boolean superPerms = false;
+		List<String> options = new ArrayList<>();
+		for (int i = 1; i < args.length; i++) {
+			if (args[i].equals("+")) //$NON-NLS-1$
+				superPerms = true;
+			else
+				options.add(args[i]);
 		}
-		if (auxString.lastIndexOf(",") > 0) { //$NON-NLS-1$
-			auxString = auxString.substring(0, auxString.lastIndexOf(",")); //$NON-NLS-1$
-			sender.sendMessage(ChatColor.YELLOW + String.format(Messages.getString("USER_HAS_PERMISSIONS"), auxUser.getLastName(), ChatColor.WHITE + auxString)); //$NON-NLS-1$
-			sender.sendMessage(ChatColor.YELLOW + String.format(Messages.getString("AND_ALL_PERMISSIONS_GROUPS"), auxUser.getGroupName())); //$NON-NLS-1$
-			auxString = "";
-			for (String subGroup : auxUser.subGroupListStringCopy()) {
-				auxString += subGroup + ", ";
-			}
-			if (auxString.lastIndexOf(",") > 0) {
-				auxString = auxString.substring(0, auxString.lastIndexOf(","));
-				sender.sendMessage(ChatColor.YELLOW + String.format(Messages.getString("AND_ALL_PERMISSIONS_SUBGROUPS"), auxString)); //$NON-NLS-1$
-			}
-		} else {
+
+		PagedList list = new PagedList().parseArgs(options.toArray(new String[0]), 0);
+		for (String perm : auxUser.getAllPermissionList())
+			list.add(perm);
+
+		if (list.isEmpty()) {
 			sender.sendMessage(ChatColor.YELLOW + String.format(Messages.getString("USER_NO_SPECIFIC_PERMISSIONS"), auxUser.getLastName())); //$NON-NLS-1$
-			sender.sendMessage(ChatColor.YELLOW + String.format(Messages.getString("AND_ALL_PERMISSIONS_GROUPS"), auxUser.getGroupName())); //$NON-NLS-1$
-			
-			auxString = ""; //$NON-NLS-1$
-			for (String subGroup : auxUser.subGroupListStringCopy()) {
-				auxString += subGroup + ", "; //$NON-NLS-1$
-			}
-			if (auxString.lastIndexOf(",") > 0) { //$NON-NLS-1$
-				auxString = auxString.substring(0, auxString.lastIndexOf(","));
-				sender.sendMessage(ChatColor.YELLOW + String.format(Messages.getString("AND_ALL_PERMISSIONS_SUBGROUPS"), auxString)); //$NON-NLS-1$
-			}
+		} else if (!list.send(sender, ChatColor.YELLOW + String.format(Messages.getString("USER_HAS_PERMISSIONS"), auxUser.getLastName(), ""), ChatColor.WHITE)) { //$NON-NLS-1$ //$NON-NLS-2$
+			return true;
 		}
 
-		// bukkit perms
-		if ((args.length == 2) && (args[1].equalsIgnoreCase("+"))) {
-			targetPlayer = BukkitWrapper.getInstance().getPlayer(auxUser.getLastName());
-			if (targetPlayer != null) {
-				sender.sendMessage(ChatColor.YELLOW + Messages.getString("SUPER_PERMS_REPORTS")); //$NON-NLS-1$
-				for (String line : GroupManager.getBukkitPermissions().listPerms(targetPlayer))
-					sender.sendMessage(ChatColor.YELLOW + line);
+		sender.sendMessage(ChatColor.YELLOW + String.format(Messages.getString("AND_ALL_PERMISSIONS_GROUPS"), auxUser.getGroupName())); //$NON-NLS-1$
+
+		List<String> subGroups = auxUser.subGroupListStringCopy();
+		if (!subGroups.isEmpty())
+			sender.sendMessage(ChatColor.YELLOW + String.format(Messages.getString("AND_ALL_PERMISSIONS_SUBGROUPS"), String.join(", ", subGroups))); //$NON-NLS-1$ //$NON-NLS-2$
+
+		// bukkit perms (read from the live player, so on the main thread)
+		if (superPerms) {
+			sync(() -> {
+				targetPlayer = BukkitWrapper.getInstance().getPlayer(auxUser.getLastName());
+				if (targetPlayer != null) {
+					sender.sendMessage(ChatColor.YELLOW + Messages.getString("SUPER_PERMS_REPORTS")); //$NON-NLS-1$
+					for (String line : GroupManager.getBukkitPermissions().listPerms(targetPlayer))
+						sender.sendMessage(ChatColor.YELLOW + line);
 
-			}
+				}
+			});
 		}
 
 		return true;
@@ -48,7 +48,7 @@ public class ManUListV extends BaseCommand {
 				return true;
 		}
 		// Validating arguments
-		if (args.length != 1) {
+		if ((args.length == 0) || (args.length > 3)) {
 			sender.sendMessage(ChatColor.RED + Messages.getString("ERROR_REVIEW_ARGUMENTS") + Messages.getString("MANULISTV_SYNTAX")); //$NON-NLS-1$ //$NON-NLS-2$
 			return true;
 		}
@@ -62,17 +62,15 @@ public class ManUListV extends BaseCommand {
 		}
 		// Validating permission
 		// Seems OK
-		auxString = ""; //$NON-NLS-1$
+		PagedList list = new PagedList().parseArgs(args, 1);
 		for (String varKey : auxUser.getVariables().getVarKeyList()) {
 			Object o = auxUser.getVariables().getVarObject(varKey);
-			auxString += ChatColor.GOLD + varKey + ChatColor.WHITE + ":'" + ChatColor.GREEN + o.toString() + ChatColor.WHITE + "', "; //$NON-NLS-1$ //$NON-NLS-2$
+			list.add(varKey, ChatColor.GOLD + varKey + ChatColor.WHITE + ":'" + ChatColor.GREEN + o.toString() + ChatColor.WHITE + "'"); //$NON-NLS-1$ //$NON-NLS-2$
 		}
-		if (auxString.lastIndexOf(",") > 0) { //$NON-NLS-1$
-			auxString = auxString.substring(0, auxString.lastIndexOf(",")); //$NON-NLS-1$
-		}
-		sender.sendMessage(ChatColor.YELLOW + String.format(Messages.getString("VARIABLES_OF_USER"), auxUser.getLastName()));
-		sender.sendMessage(auxString + "."); //$NON-NLS-1$
-		sender.sendMessage(ChatColor.YELLOW + String.format(Messages.getString("VARIABLES_ALL_GROUPS"), auxUser.getGroupName()));
+		if (!list.send(sender, ChatColor.YELLOW + String.format(Messages.getString("VARIABLES_OF_USER"), auxUser.getLastName()), ChatColor.WHITE)) //$NON-NLS-1$
+			return true;
+
+		sender.sendMessage(ChatColor.YELLOW + String.format(Messages.getString("VARIABLES_ALL_GROUPS"), auxUser.getGroupName())); //$NON-NLS-1$
 
 		return true;
 	}
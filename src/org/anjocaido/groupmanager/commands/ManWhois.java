@@ -65,14 +65,9 @@ public class ManWhois extends BaseCommand {
 		sender.sendMessage(ChatColor.YELLOW + Messages.getString("NAME") + ChatColor.GREEN + auxUser.getLastName()); //$NON-NLS-1$
 		sender.sendMessage(ChatColor.YELLOW + Messages.getString("GROUP") + ChatColor.GREEN + auxUser.getGroup().getName()); //$NON-NLS-1$
 		// Compile a list of subgroups
-		auxString = "";
-		for (String subGroup : auxUser.subGroupListStringCopy()) {
-			auxString += subGroup + ", "; //$NON-NLS-1$
-		}
-		if (auxString.lastIndexOf(",") > 0) { //$NON-NLS-1$
-			auxString = auxString.substring(0, auxString.lastIndexOf(",")); //$NON-NLS-1$
-			sender.sendMessage(ChatColor.YELLOW + Messages.getString("SUBGROUPS") + auxString); //$NON-NLS-1$
-		}
+		List<String> subGroups = auxUser.subGroupListStringCopy();
+		if (!subGroups.isEmpty())
+			sender.sendMessage(ChatColor.YELLOW + Messages.getString("SUBGROUPS") + String.join(", ", subGroups)); //$NON-NLS-1$ //$NON-NLS-2$
 
 		sender.sendMessage(ChatColor.YELLOW + Messages.getString("OVERLOADED") + ChatColor.GREEN + dataHolder.isOverloaded(auxUser.getUUID())); //$NON-NLS-1$
 		auxGroup = dataHolder.surpassOverload(auxUser.getUUID()).getGroup();
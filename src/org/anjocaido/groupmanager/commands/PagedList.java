@@ -0,0 +1,166 @@
+/*
+ *  GroupManager - A plug-in for Spigot/Bukkit based Minecraft servers.
+ *  Copyright (C) 2020  ElgarL
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.anjocaido.groupmanager.commands;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.anjocaido.groupmanager.localization.Messages;
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+
+/**
+ * Builds a long list of entries (permissions, variables, users) for
+ * display one page at a time, optionally filtered on a prefix.
+ * 
+ * A page is sent as comma separated lines no longer than {@link #LINE_LENGTH},
+ * with a footer when there is more than one page.
+ * 
+ * @author ElgarL
+ *
+ */
+public class PagedList {
+
+	/*
+	 * Entries shown per page.
+	 */
+	public static final int PAGE_SIZE = 50;
+
+	/*
+	 * Longest line sent. Lines are only split between entries.
+	 */
+	public static final int LINE_LENGTH = 250;
+
+	private final List<String> entries = new ArrayList<>();
+	private int page = 1;
+	private String filter = null;
+	private String invalid = null;
+
+	/**
+	 * Read the optional page number and filter from the end of a command's arguments.
+	 * A number is the page, anything else is a prefix entries must start with.
+	 * 
+	 * @param args	the command arguments.
+	 * @param from	the index of the first optional argument.
+	 * @return this list.
+	 */
+	public PagedList parseArgs(String[] args, int from) {
+
+		for (int i = from; i < args.length; i++) {
+			try {
+				page = Integer.parseInt(args[i]);
+				if (page < 1)
+					invalid = args[i];
+			} catch (NumberFormatException ex) {
+				filter = args[i].toLowerCase();
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Add an entry, if it passes the filter.
+	 * 
+	 * @param entry
+	 * @return this list.
+	 */
+	public PagedList add(String entry) {
+
+		return add(entry, entry);
+	}
+
+	/**
+	 * Add an entry whose display text differs from the key it is filtered on.
+	 * 
+	 * @param key	the text to match the filter against.
+	 * @param text	the text to display.
+	 * @return this list.
+	 */
+	public PagedList add(String key, String text) {
+
+		if ((filter == null) || key.toLowerCase().startsWith(filter))
+			entries.add(text);
+		return this;
+	}
+
+	/**
+	 * @return the number of entries which passed the filter.
+	 */
+	public int size() {
+
+		return entries.size();
+	}
+
+	public boolean isEmpty() {
+
+		return entries.isEmpty();
+	}
+
+	/**
+	 * @return the number of pages.
+	 */
+	public int getPages() {
+
+		return Math.max(1, (entries.size() + PAGE_SIZE - 1) / PAGE_SIZE);
+	}
+
+	/**
+	 * @return the entries on the requested page.
+	 */
+	public List<String> getPage() {
+
+		return entries.subList(Math.min((page - 1) * PAGE_SIZE, entries.size()), Math.min(page * PAGE_SIZE, entries.size()));
+	}
+
+	/**
+	 * Send the requested page, preceded by a header.
+	 * 
+	 * @param sender	who to send to.
+	 * @param header	the first line, sent as is.
+	 * @param color		the color for the entries.
+	 * @return false if the requested page doesn't exist (nothing but an error is sent).
+	 */
+	public boolean send(CommandSender sender, String header, ChatColor color) {
+
+		if ((invalid != null) || (page > getPages())) {
+			sender.sendMessage(ChatColor.RED + String.format(Messages.getString("PAGE_INVALID"), (invalid != null) ? invalid : page)); //$NON-NLS-1$
+			return false;
+		}
+
+		sender.sendMessage(header);
+
+		StringBuilder line = new StringBuilder();
+
+		for (String text : getPage()) {
+			if ((line.length() > 0) && (line.length() + text.length() + 2 > LINE_LENGTH)) {
+				sender.sendMessage(color + line.toString());
+				line.setLength(0);
+			}
+			if (line.length() > 0)
+				line.append(", "); //$NON-NLS-1$
+			line.append(text);
+		}
+		if (line.length() > 0)
+			sender.sendMessage(color + line.toString());
+
+		if (getPages() > 1)
+			sender.sendMessage(ChatColor.YELLOW + String.format(Messages.getString("PAGE_FOOTER"), page, getPages(), entries.size())); //$NON-NLS-1$
+
+		return true;
+	}
+}
@@ -19,6 +19,7 @@ package org.anjocaido.groupmanager.data;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -39,9 +40,14 @@ public abstract class DataUnit {
 	private final String uUID;
 	private String lastName = "";
 	private boolean changed, sorted = false;
+	private volatile long revision = 0;
 	private List<String> permissions = Collections.synchronizedList(new ArrayList<>());
 	
 	private Map<String, Long> timedPermissions = Collections.synchronizedSortedMap(new TreeMap<>());
+	/*
+	 * This unit's entries in the ExpiryQueue, only touched by the queue.
+	 */
+	final Map<String, ExpiryQueue.Expiry> queuedPermissions = new HashMap<>();
 
 	public DataUnit(WorldDataHolder dataSource, String name) {
 
@@ -145,6 +151,7 @@ public abstract class DataUnit {
 			dataSource.putUUIDLookup(lastName, uUID);
 			
 			changed = true;
+			revise();
 		}
 	}
 
@@ -164,6 +171,30 @@ public abstract class DataUnit {
 		// }
 		sorted = false;
 		changed = true;
+		revise();
+	}
+
+	/**
+	 * Record that this unit's data differs from any published snapshot.
+	 */
+	protected void revise() {
+
+		revision++;
+
+		if (dataSource != null) {
+			dataSource.updateIndex(this);
+			dataSource.invalidateSnapshot();
+		}
+		else if (GroupManager.getGlobalGroups() != null)
+			GroupManager.getGlobalGroups().revise();
+	}
+
+	/**
+	 * @return a number which changes whenever this unit's data does.
+	 */
+	public long getRevision() {
+
+		return revision;
 	}
 
 	public boolean isChanged() {
@@ -231,6 +262,7 @@ public abstract class DataUnit {
 			
 			if (!timedPermissions.containsKey(permission) || timedPermissions.get(permission) < expires) {
 				timedPermissions.put(permission, expires);
+				GroupManager.getExpiryQueue().addPermission(this, permission, expires);
 				GroupManager.logger.info(String.format("Timed: %s - expires: %o", permission, expires));
 			}
 			flagAsChanged();
@@ -249,10 +281,10 @@ public abstract class DataUnit {
 			if (timedPermissions.containsKey(permission))
 				return removeTimedPermission(permission);
 		}
-		flagAsChanged();
-
-		return permissions.remove(permission);
+		boolean removed = permissions.remove(permission);
 
+		flagAsChanged();
+		return removed;
 	}
 
 	/**
@@ -264,9 +296,35 @@ public abstract class DataUnit {
 	private boolean removeTimedPermission(String permission) {
 
 		synchronized(timedPermissions) {
+			boolean removed = timedPermissions.remove(permission) != null;
+
+			if (removed)
+				GroupManager.getExpiryQueue().removePermission(this, permission);
 			flagAsChanged();
-			
-			return timedPermissions.remove(permission) != null;
+			return removed;
+		}
+	}
+
+	/**
+	 * Remove a timed permission which has fallen due.
+	 * Nothing is removed if the permission has since been extended.
+	 *
+	 * @param permission
+	 * @param expires	the expiry time it was queued with.
+	 * @return	true if the permission was removed.
+	 */
+	public boolean removeExpired(String permission, long expires) {
+
+		synchronized(timedPermissions) {
+			Long current = timedPermissions.get(permission);
+
+			if ((current == null) || (current != expires))
+				return false;
+
+			timedPermissions.remove(permission);
+			revise();
+			GroupManager.logger.info(String.format("Timed Permission removed from : %s : %s", getLastName(), permission));
+			return true;
 		}
 	}
 
@@ -360,6 +418,7 @@ public abstract class DataUnit {
 			for (Entry<String, Long> perm : timedPermissions.entrySet()) {
 				if (Tasks.isExpired(perm.getValue())) {
 					if (timedPermissions.remove(perm.getKey()) != null) {
+						GroupManager.getExpiryQueue().removePermission(this, perm.getKey());
 						//changed = true;
 						expired = true;
 						GroupManager.logger.info(String.format("Timed Permission removed from : %s : %s", getLastName(), perm.getKey()));
@@ -368,6 +427,8 @@ public abstract class DataUnit {
 			}
 		}
 		
+		if (expired)
+			revise();
 		return expired;
 	}
 }
\ No newline at end of file
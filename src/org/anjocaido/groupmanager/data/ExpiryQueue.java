@@ -0,0 +1,326 @@
+/*
+ *  GroupManager - A plug-in for Spigot/Bukkit based Minecraft servers.
+ *  Copyright (C) 2020  ElgarL
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.anjocaido.groupmanager.data;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.LongConsumer;
+
+/**
+ * Every timed permission and timed sub-group ordered by the time it expires.
+ * 
+ * Entries are queued as they are added to a {@link DataUnit} so expired
+ * entries can be taken from the head without scanning any world.
+ * A unit holds at most one entry per node. It is replaced when the node
+ * is extended, and dropped when the node is removed, or the unit is
+ * removed or replaced in its world. Entries of units which were never
+ * held, like those of a temporary holder, go once the unit is collected.
+ * 
+ * @author ElgarL
+ */
+public class ExpiryQueue {
+
+	private final TreeSet<Expiry> queue = new TreeSet<>();
+
+	/**
+	 * Told of entries whose unit has been garbage collected.
+	 */
+	private final ReferenceQueue<DataUnit> collected = new ReferenceQueue<>();
+	private long sequence = 0;
+
+	/**
+	 * Told the time the head of the queue is due, whenever that becomes earlier.
+	 */
+	private LongConsumer wakeUp = null;
+	private long wakeUpAt = Long.MAX_VALUE;
+
+	/**
+	 * Queue a timed permission, replacing any entry
+	 * the unit already had for it.
+	 * 
+	 * @param unit	the group or user holding the permission.
+	 * @param permission	the permission node.
+	 * @param expires	expiry time in epoch seconds.
+	 */
+	public void addPermission(DataUnit unit, String permission, long expires) {
+
+		add(unit.queuedPermissions, new Expiry(unit, permission, expires, false, collected));
+	}
+
+	/**
+	 * Queue a timed sub-group, replacing any entry
+	 * the user already had for it.
+	 * 
+	 * @param user	the user holding the sub-group.
+	 * @param group	name of the sub-group.
+	 * @param expires	expiry time in epoch seconds.
+	 */
+	public void addSubGroup(User user, String group, long expires) {
+
+		add(user.queuedSubGroups, new Expiry(user, group, expires, true, collected));
+	}
+
+	private synchronized void add(Map<String, Expiry> queued, Expiry expiry) {
+
+		expungeCollected();
+
+		expiry.sequence = sequence++;
+		Expiry previous = queued.put(expiry.node, expiry);
+		if (previous != null)
+			queue.remove(previous);
+		queue.add(expiry);
+
+		if ((wakeUp != null) && (expiry.expires < wakeUpAt)) {
+			wakeUpAt = expiry.expires;
+			wakeUp.accept(wakeUpAt);
+		}
+	}
+
+	/**
+	 * Drop the entry for a timed permission which has been removed.
+	 * 
+	 * @param unit	the group or user which held the permission.
+	 * @param permission	the permission node.
+	 */
+	public synchronized void removePermission(DataUnit unit, String permission) {
+
+		Expiry expiry = unit.queuedPermissions.remove(permission);
+		if (expiry != null)
+			queue.remove(expiry);
+	}
+
+	/**
+	 * Drop the entry for a timed sub-group which has been removed.
+	 * 
+	 * @param user	the user which held the sub-group.
+	 * @param group	name of the sub-group.
+	 */
+	public synchronized void removeSubGroup(User user, String group) {
+
+		Expiry expiry = user.queuedSubGroups.remove(group);
+		if (expiry != null)
+			queue.remove(expiry);
+	}
+
+	/**
+	 * Drop every entry of a unit which is no longer held by its world.
+	 * 
+	 * @param unit	the group or user which was removed or replaced.
+	 */
+	public synchronized void remove(DataUnit unit) {
+
+		queue.removeAll(unit.queuedPermissions.values());
+		unit.queuedPermissions.clear();
+
+		if (unit instanceof User) {
+			queue.removeAll(((User) unit).queuedSubGroups.values());
+			((User) unit).queuedSubGroups.clear();
+		}
+	}
+
+	/**
+	 * Remove and return every entry which expired before the given time.
+	 * 
+	 * @param now	the current time in epoch seconds.
+	 * @return the expired entries, soonest first.
+	 */
+	public synchronized List<Expiry> pollExpired(long now) {
+
+		expungeCollected();
+
+		List<Expiry> expired = new ArrayList<>();
+
+		while (!queue.isEmpty() && (queue.first().expires < now)) {
+			Expiry expiry = queue.pollFirst();
+			DataUnit unit = expiry.getUnit();
+
+			if (unit != null)
+				(expiry.subGroup ? ((User) unit).queuedSubGroups : unit.queuedPermissions).remove(expiry.node, expiry);
+			expired.add(expiry);
+		}
+
+		// Only ask again once the pending wake up has passed.
+		if (wakeUpAt < now) {
+			wakeUpAt = Long.MAX_VALUE;
+			scheduleWakeUp();
+		}
+		return expired;
+	}
+
+	/**
+	 * @return the time the next entry is due in epoch seconds, or Long.MAX_VALUE if there is none.
+	 */
+	public synchronized long getNextExpiry() {
+
+		return queue.isEmpty() ? Long.MAX_VALUE : queue.first().expires;
+	}
+
+	/**
+	 * Set who should be told when the next entry falls due.
+	 * It is called straight away for the current head and then
+	 * whenever an earlier entry is added or the head is polled.
+	 * 
+	 * @param wakeUp	accepts a time in epoch seconds, or null to stop.
+	 */
+	public synchronized void setWakeUp(LongConsumer wakeUp) {
+
+		this.wakeUp = wakeUp;
+		wakeUpAt = Long.MAX_VALUE;
+		scheduleWakeUp();
+	}
+
+	/**
+	 * Drop every queued entry, before all data is loaded again.
+	 */
+	public synchronized void clear() {
+
+		queue.clear();
+		wakeUpAt = Long.MAX_VALUE;
+	}
+
+	/**
+	 * @return the number of queued entries.
+	 */
+	public synchronized int size() {
+
+		expungeCollected();
+		return queue.size();
+	}
+
+	private void scheduleWakeUp() {
+
+		if ((wakeUp != null) && !queue.isEmpty()) {
+			wakeUpAt = queue.first().expires;
+			wakeUp.accept(wakeUpAt);
+		}
+	}
+
+	/**
+	 * Drop the entries of units which have been garbage collected.
+	 */
+	private void expungeCollected() {
+
+		UnitReference reference;
+
+		while ((reference = (UnitReference) collected.poll()) != null)
+			queue.remove(reference.expiry);
+	}
+
+	/**
+	 * Links a collected unit back to its queued entry.
+	 */
+	private static final class UnitReference extends WeakReference<DataUnit> {
+
+		private final Expiry expiry;
+
+		private UnitReference(DataUnit unit, Expiry expiry, ReferenceQueue<DataUnit> queue) {
+
+			super(unit, queue);
+			this.expiry = expiry;
+		}
+	}
+
+	/**
+	 * A timed permission or sub-group falling due.
+	 */
+	public static final class Expiry implements Comparable<Expiry> {
+
+		/*
+		 * Never keeps a unit alive, so those of a temporary holder can be collected.
+		 */
+		private final UnitReference unit;
+		private final String node;
+		private final long expires;
+		private final boolean subGroup;
+		/*
+		 * Orders entries falling due in the same second.
+		 */
+		private long sequence;
+
+		private Expiry(DataUnit unit, String node, long expires, boolean subGroup, ReferenceQueue<DataUnit> collected) {
+
+			this.unit = new UnitReference(unit, this, collected);
+			this.node = node;
+			this.expires = expires;
+			this.subGroup = subGroup;
+		}
+
+		/**
+		 * @return the group or user holding the node, or null if it no longer exists.
+		 */
+		public DataUnit getUnit() {
+
+			return unit.get();
+		}
+
+		/**
+		 * @return the permission node or sub-group name.
+		 */
+		public String getNode() {
+
+			return node;
+		}
+
+		/**
+		 * @return the expiry time in epoch seconds.
+		 */
+		public long getExpires() {
+
+			return expires;
+		}
+
+		/**
+		 * @return true for a timed sub-group, false for a timed permission.
+		 */
+		public boolean isSubGroup() {
+
+			return subGroup;
+		}
+
+		/**
+		 * Does this entry still describe a node held in a world?
+		 * 
+		 * @return false if the unit was replaced or removed, or the node was removed or extended.
+		 */
+		public boolean isCurrent() {
+
+			DataUnit unit = getUnit();
+
+			if ((unit == null) || (unit.getDataSource() == null))
+				return false;
+
+			if (!unit.getDataSource().isHeld(unit))
+				return false;
+
+			Long current = subGroup ? ((User) unit).getTimedSubGroups().get(node) : unit.getTimedPermissions().get(node);
+			return (current != null) && (current == expires);
+		}
+
+		@Override
+		public int compareTo(Expiry other) {
+
+			int compare = Long.compare(expires, other.expires);
+			return (compare != 0) ? compare : Long.compare(sequence, other.sequence);
+		}
+	}
+}
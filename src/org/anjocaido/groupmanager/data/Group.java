@@ -163,7 +163,7 @@ public class Group extends DataUnit implements Cloneable {
 				inherits.add(inherit.getName().toLowerCase());
 			}
 			flagAsChanged();
-			if (GroupManager.isLoaded()) {
+			if (!getDataSource().deferGroupUpdate(getName()) && GroupManager.isLoaded()) {
 				GroupManager.getBukkitPermissions().updateAllPlayers();
 				GroupManager.getGMEventHandler().callEvent(this, Action.GROUP_INHERITANCE_CHANGED);
 			}
@@ -177,7 +177,8 @@ public class Group extends DataUnit implements Cloneable {
 				inherits.remove(inherit.toLowerCase());
 				
 				flagAsChanged();
-				GroupManager.getGMEventHandler().callEvent(this, Action.GROUP_INHERITANCE_CHANGED);
+				if (!getDataSource().deferGroupUpdate(getName()))
+					GroupManager.getGMEventHandler().callEvent(this, Action.GROUP_INHERITANCE_CHANGED);
 				return true;
 			}
 		}
@@ -205,7 +206,7 @@ public class Group extends DataUnit implements Cloneable {
 				variables.addVar(key, temp.getVarObject(key));
 			}
 			flagAsChanged();
-			if (GroupManager.isLoaded()) {
+			if (!getDataSource().deferGroupUpdate(getName()) && GroupManager.isLoaded()) {
 				GroupManager.getBukkitPermissions().updateAllPlayers();
 				GroupManager.getGMEventHandler().callEvent(this, Action.GROUP_INFO_CHANGED);
 			}
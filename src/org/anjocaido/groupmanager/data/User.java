@@ -19,8 +19,10 @@ package org.anjocaido.groupmanager.data;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.TreeMap;
 import java.util.Map.Entry;
 
@@ -41,11 +43,27 @@ public class User extends DataUnit implements Cloneable {
 	private String group;
 	private final List<String> subGroups = Collections.synchronizedList(new ArrayList<>());
 	private Map<String, Long> timedSubGroups = Collections.synchronizedSortedMap(new TreeMap<>());
+	/*
+	 * This user's timed subGroup entries in the ExpiryQueue, only touched by the queue.
+	 */
+	final Map<String, ExpiryQueue.Expiry> queuedSubGroups = new HashMap<>();
 	/**
 	 * This one holds the fields in INFO node,
 	 * like prefix = 'c' or build = false.
 	 */
 	private UserVariables variables = new UserVariables(this);
+	/**
+	 * Set while this is a stand-in for a user with no record,
+	 * until it's first changed and stored in its data source.
+	 */
+	private volatile boolean ephemeral = false;
+	/**
+	 * The record a stand-in applies its changes to, if the user
+	 * was stored by other means before its first change,
+	 * and what the stand-in held when it last did so.
+	 */
+	private User record = null;
+	private Held applied = null;
 
 	/**
 	 * @param name
@@ -56,6 +74,17 @@ public class User extends DataUnit implements Cloneable {
 		this.group = source.getDefaultGroup().getName();
 	}
 
+	/**
+	 * @param source
+	 * @param name
+	 * @param ephemeral	true if this is not stored in the source until it's changed.
+	 */
+	public User(WorldDataHolder source, String name, boolean ephemeral) {
+
+		this(source, name);
+		this.ephemeral = ephemeral;
+	}
+
 	@Override
 	public User clone() {
 
@@ -75,6 +104,7 @@ public class User extends DataUnit implements Cloneable {
 		}
 		// Clone timed subgroups.
 		clone.timedSubGroups.putAll(this.timedSubGroups);
+		clone.queueTimedSubGroups();
 
 		return clone;
 	}
@@ -114,6 +144,7 @@ public class User extends DataUnit implements Cloneable {
 
 		// Clone timed subgroups.
 		clone.timedSubGroups.putAll(this.timedSubGroups);
+		clone.queueTimedSubGroups();
 
 		clone.variables = this.variables.clone(this);
 		clone.flagAsChanged();
@@ -144,6 +175,7 @@ public class User extends DataUnit implements Cloneable {
 
 		// Clone timed subgroups.
 		clone.timedSubGroups.putAll(this.timedSubGroups);
+		clone.queueTimedSubGroups();
 
 		clone.variables = this.variables.clone(this);
 		clone.flagAsChanged();
@@ -151,6 +183,127 @@ public class User extends DataUnit implements Cloneable {
 		return clone;
 	}
 
+	/**
+	 * @return true if this is a stand-in which isn't stored in its data source.
+	 */
+	public boolean isEphemeral() {
+
+		return ephemeral || (record != null);
+	}
+
+	/**
+	 * Store a stand-in in its data source before its first change is recorded.
+	 * If the user was stored by other means in the meantime, this stays a
+	 * stand-in and each change to it is applied to the stored record.
+	 */
+	@Override
+	protected void revise() {
+
+		if (ephemeral) {
+			ephemeral = false;
+			User stored = getDataSource().materializeUser(this);
+
+			if (stored != this) {
+				// A stand-in starts out as a default user with nothing else.
+				applied = new Held(getDataSource().getDefaultGroup().getName());
+				record = stored;
+			}
+		}
+		if (record != null)
+			applyChanges();
+		super.revise();
+	}
+
+	/**
+	 * Apply everything this stand-in gained or lost since it
+	 * last did so to the stored record, so removals follow too.
+	 */
+	private void applyChanges() {
+
+		Held before = applied;
+		Held now = new Held(this);
+
+		applied = now;
+
+		if (!now.group.equalsIgnoreCase(before.group) && !now.group.equalsIgnoreCase(record.getGroupName())) {
+			Group main = getDataSource().getGroup(now.group);
+
+			if (main != null)
+				record.setGroup(main);
+		}
+
+		before.permissions.keySet().stream().filter(permission -> !now.permissions.containsKey(permission)).forEach(record::removePermission);
+		now.permissions.forEach((permission, expires) -> {
+			if (before.permissions.containsKey(permission) && Objects.equals(before.permissions.get(permission), expires))
+				return;
+			if (expires != null)
+				record.addTimedPermission(permission, expires);
+			else if (!record.hasSamePermissionNode(permission))
+				record.addPermission(permission);
+		});
+
+		before.subGroups.keySet().stream().filter(name -> !now.subGroups.containsKey(name)).forEach(name -> {
+			Group subGroup = getDataSource().getGroup(name);
+
+			if (subGroup != null)
+				record.removeSubGroup(subGroup);
+		});
+		now.subGroups.forEach((name, expires) -> {
+			Group subGroup = getDataSource().getGroup(name);
+
+			if ((subGroup == null) || (before.subGroups.containsKey(name) && Objects.equals(before.subGroups.get(name), expires)))
+				return;
+			if (expires != null)
+				record.addTimedSubGroup(subGroup, expires);
+			else
+				record.addSubGroup(subGroup);
+		});
+
+		before.variables.keySet().stream().filter(key -> !now.variables.containsKey(key)).forEach(record.getVariables()::removeVar);
+		now.variables.forEach((key, value) -> {
+			if (!value.equals(before.variables.get(key)))
+				record.getVariables().addVar(key, value);
+		});
+	}
+
+	/**
+	 * What a stand-in held, with the expiry of each timed
+	 * permission and sub-group, or null for a static one.
+	 */
+	private static final class Held {
+
+		private final String group;
+		private final Map<String, Long> permissions = new HashMap<>();
+		private final Map<String, Long> subGroups = new HashMap<>();
+		private final Map<String, Object> variables = new HashMap<>();
+
+		/**
+		 * @param group	the main group of a user holding nothing else.
+		 */
+		private Held(String group) {
+
+			this.group = group;
+		}
+
+		private Held(User user) {
+
+			this(user.getGroupName());
+
+			user.getPermissionList().forEach(permission -> permissions.put(permission, null));
+			permissions.putAll(user.getTimedPermissions());
+			user.subGroupListCloneStringCopy().forEach(name -> subGroups.put(name, null));
+			synchronized (user.timedSubGroups) {
+				subGroups.putAll(user.timedSubGroups);
+			}
+			for (String key : user.getVariables().getVarKeyList()) {
+				Object value = user.getVariables().getVarObject(key);
+
+				if (value != null)
+					variables.put(key, value);
+			}
+		}
+	}
+
 	/**
 	 * Gets the main group this user is a member of.
 	 *
@@ -193,6 +346,16 @@ public class User extends DataUnit implements Cloneable {
 
 	}
 
+	@Override
+	public void setLastName(String lastName) {
+
+		String oldName = getLastName();
+
+		super.setLastName(lastName);
+		if ((getDataSource() != null) && !oldName.equals(getLastName()))
+			getDataSource().getUsersObject().updateNameIndex(this, oldName);
+	}
+
 	/**
 	 * Silently set teh Users Group.
 	 * 
@@ -218,7 +381,7 @@ public class User extends DataUnit implements Cloneable {
 		String oldGroup = this.group;
 		this.group = group.getName();
 		flagAsChanged();
-		if (GroupManager.isLoaded()) {
+		if (!getDataSource().deferUserUpdate(getUUID()) && GroupManager.isLoaded()) {
 			if (!GroupManager.getBukkitPermissions().isPlayer_join() && (updatePerms))
 				GroupManager.getBukkitPermissions().updatePlayer(getBukkitPlayer());
 
@@ -260,7 +423,7 @@ public class User extends DataUnit implements Cloneable {
 
 		subGroups.add(subGroup.getName());
 		flagAsChanged();
-		if (GroupManager.isLoaded()) {
+		if (!getDataSource().deferUserUpdate(getUUID()) && GroupManager.isLoaded()) {
 			if (!GroupManager.getBukkitPermissions().isPlayer_join())
 				GroupManager.getBukkitPermissions().updatePlayer(getBukkitPlayer());
 			GroupManager.getGMEventHandler().callEvent(this, Action.USER_SUBGROUP_CHANGED);
@@ -299,11 +462,12 @@ public class User extends DataUnit implements Cloneable {
 					|| !timedSubGroups.containsKey(subGroup.getName())) {
 	
 				timedSubGroups.put(subGroup.getName(), expires);
+				GroupManager.getExpiryQueue().addSubGroup(this, subGroup.getName(), expires);
 				
 				GroupManager.logger.info(String.format("Timed: %s - expires: %o", subGroup.getName(), expires));
 			}
 			flagAsChanged();
-			if (GroupManager.isLoaded()) {
+			if (!getDataSource().deferUserUpdate(getUUID()) && GroupManager.isLoaded()) {
 				if (!GroupManager.getBukkitPermissions().isPlayer_join())
 					GroupManager.getBukkitPermissions().updatePlayer(getBukkitPlayer());
 				GroupManager.getGMEventHandler().callEvent(this, Action.USER_SUBGROUP_CHANGED);
@@ -358,10 +522,12 @@ public class User extends DataUnit implements Cloneable {
 		try {
 			if (subGroups.remove(subGroup.getName())) {
 				flagAsChanged();
-				if (GroupManager.isLoaded())
-					if (!GroupManager.getBukkitPermissions().isPlayer_join())
-						GroupManager.getBukkitPermissions().updatePlayer(getBukkitPlayer());
-				GroupManager.getGMEventHandler().callEvent(this, Action.USER_SUBGROUP_CHANGED);
+				if (!getDataSource().deferUserUpdate(getUUID())) {
+					if (GroupManager.isLoaded())
+						if (!GroupManager.getBukkitPermissions().isPlayer_join())
+							GroupManager.getBukkitPermissions().updatePlayer(getBukkitPlayer());
+					GroupManager.getGMEventHandler().callEvent(this, Action.USER_SUBGROUP_CHANGED);
+				}
 				return true;
 			}
 		} catch (Exception ignored) {}
@@ -380,12 +546,15 @@ public class User extends DataUnit implements Cloneable {
 		synchronized(timedSubGroups) {
 			
 			if (timedSubGroups.remove(subGroup.getName()) != null) {
+				GroupManager.getExpiryQueue().removeSubGroup(this, subGroup.getName());
 				flagAsChanged();
 
-				if (GroupManager.isLoaded())
-					if (!GroupManager.getBukkitPermissions().isPlayer_join())
-						GroupManager.getBukkitPermissions().updatePlayer(getBukkitPlayer());
-				GroupManager.getGMEventHandler().callEvent(this, Action.USER_SUBGROUP_CHANGED);
+				if (!getDataSource().deferUserUpdate(getUUID())) {
+					if (GroupManager.isLoaded())
+						if (!GroupManager.getBukkitPermissions().isPlayer_join())
+							GroupManager.getBukkitPermissions().updatePlayer(getBukkitPlayer());
+					GroupManager.getGMEventHandler().callEvent(this, Action.USER_SUBGROUP_CHANGED);
+				}
 				return true;
 			}
 			
@@ -504,7 +673,7 @@ public class User extends DataUnit implements Cloneable {
 			variables.addVar(key, varList.get(key));
 		}
 		flagAsChanged();
-		if (GroupManager.isLoaded()) {
+		if (!getDataSource().deferUserUpdate(getUUID()) && GroupManager.isLoaded()) {
 			GroupManager.getGMEventHandler().callEvent(this, Action.USER_INFO_CHANGED);
 		}
 	}
@@ -534,6 +703,39 @@ public class User extends DataUnit implements Cloneable {
 
 		return getBukkitPlayer() != null;
 	}
+	/**
+	 * Remove a timed subGroup which has fallen due.
+	 * Nothing is removed if the subGroup has since been extended.
+	 *
+	 * @param group		name of the subGroup.
+	 * @param expires	the expiry time it was queued with.
+	 * @return true if the subGroup was removed.
+	 */
+	public boolean removeExpiredSubGroup(String group, long expires) {
+
+		synchronized (timedSubGroups) {
+			Long current = timedSubGroups.get(group);
+
+			if ((current == null) || (current != expires))
+				return false;
+
+			timedSubGroups.remove(group);
+			revise();
+			GroupManager.logger.info(String.format("Timed Subgroup removed from : %s : %s", getLastName(), group));
+			return true;
+		}
+	}
+
+	/**
+	 * Queue the expiry of every timed subGroup copied into this user.
+	 */
+	private void queueTimedSubGroups() {
+
+		synchronized (timedSubGroups) {
+			timedSubGroups.forEach((group, expires) -> GroupManager.getExpiryQueue().addSubGroup(this, group, expires));
+		}
+	}
+
 	/**
 	 * Remove any expired subGroups.
 	 *
@@ -548,7 +750,7 @@ public class User extends DataUnit implements Cloneable {
 			for (Entry<String, Long> entry : timedSubGroups.entrySet()) {
 				if (Tasks.isExpired(entry.getValue())) {
 					if (timedSubGroups.remove(entry.getKey()) != null) {
-						
+						GroupManager.getExpiryQueue().removeSubGroup(this, entry.getKey());
 						expired = true;
 						GroupManager.logger.info(String.format("Timed Subgroup removed from : %s : %s", getLastName(), entry.getKey()));
 					}
@@ -556,6 +758,8 @@ public class User extends DataUnit implements Cloneable {
 			}
 		}
 
-		return expired || super.removeExpired();
+		if (expired)
+			revise();
+		return super.removeExpired() || expired;
 	}
 }
@@ -0,0 +1,57 @@
+/*
+ *  GroupManager - A plug-in for Spigot/Bukkit based Minecraft servers.
+ *  Copyright (C) 2020  ElgarL
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.anjocaido.groupmanager.dataholder;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Reads the entries of a data file's root node one at a time.
+ *
+ * @author ElgarL
+ *
+ */
+public interface DataEntryReader extends Closeable {
+
+	/**
+	 * Advance to the start of the root node.
+	 *
+	 * @return	true if there are entries to read, false if the node is missing or empty.
+	 * @throws IOException
+	 */
+	public boolean open() throws IOException;
+
+	/**
+	 * Read the next entry from the root node.
+	 * The key and value are then available from {@link #getKey()} and {@link #getValue()}.
+	 *
+	 * @return	false when there are no more entries.
+	 * @throws IOException
+	 */
+	public boolean next() throws IOException;
+
+	/**
+	 * @return the key of the current entry.
+	 */
+	public Object getKey();
+
+	/**
+	 * @return the data held under the current entry.
+	 */
+	public Object getValue();
+}
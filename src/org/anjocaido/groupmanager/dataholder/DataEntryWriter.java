@@ -0,0 +1,64 @@
+/*
+ *  GroupManager - A plug-in for Spigot/Bukkit based Minecraft servers.
+ *  Copyright (C) 2020  ElgarL
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.anjocaido.groupmanager.dataholder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Writes a data file, one entry of its root node at a time.
+ *
+ * @author ElgarL
+ *
+ */
+public interface DataEntryWriter extends Closeable {
+
+	/**
+	 * Text to place before the data, such as a comment block.
+	 * Formats which can't hold comments ignore this.
+	 *
+	 * @param text
+	 * @throws IOException
+	 */
+	public void writeHeader(String text) throws IOException;
+
+	/**
+	 * Begin the root node.
+	 *
+	 * @param key	name of the root node ('users' or 'groups').
+	 * @throws IOException
+	 */
+	public void startRoot(String key) throws IOException;
+
+	/**
+	 * Write a single entry of the root node.
+	 *
+	 * @param key	the entry name.
+	 * @param value	the entry data.
+	 * @throws IOException
+	 */
+	public void writeEntry(String key, Map<String, Object> value) throws IOException;
+
+	/**
+	 * End the root node.
+	 *
+	 * @throws IOException
+	 */
+	public void endRoot() throws IOException;
+}
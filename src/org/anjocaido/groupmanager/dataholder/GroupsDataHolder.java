@@ -18,11 +18,12 @@
 package org.anjocaido.groupmanager.dataholder;
 
 import java.io.File;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.anjocaido.groupmanager.data.Group;
+import org.anjocaido.groupmanager.utils.PrefixIndex;
 
 /**
  * This container holds all Groups loaded from the relevant groupsFile.
@@ -37,11 +38,13 @@ public class GroupsDataHolder {
 	private File groupsFile;
 	private boolean haveGroupsChanged = false;
 	private long timeStampGroups = 0;
+	private long hashGroups = 0;
+	private volatile long revision = 0;
 
 	/**
 	 * The actual groups holder
 	 */
-	private final Map<String, Group> groups = Collections.synchronizedMap(new HashMap<>());
+	private final IndexedMap<Group> groups = new IndexedMap<>();
 
 	/**
 	 * Constructor
@@ -54,10 +57,8 @@ public class GroupsDataHolder {
 
 		this.dataSource = dataSource;
 		//push this data source to the users, so they pull the correct groups data.
-		synchronized(groups) {
 		for (Group group : groups.values())
 			group.setDataSource(this.dataSource);
-		}
 	}
 	
 	public WorldDataHolder getDataSource() {
@@ -65,6 +66,51 @@ public class GroupsDataHolder {
 		return this.dataSource;
 	}
 
+	/**
+	 * @return a prefix index of the names of all groups.
+	 */
+	public PrefixIndex getNameIndex() {
+
+		return groups.getNames();
+	}
+
+	/**
+	 * Mark a group's permissions to be re-indexed,
+	 * and the group to be copied into the next snapshot.
+	 * 
+	 * @param group
+	 */
+	public void updateIndex(Group group) {
+
+		groups.changed(group);
+	}
+
+	/**
+	 * @return a count of the changes made to the groups held here.
+	 */
+	public long getChangeCount() {
+
+		return groups.getChangeCount();
+	}
+
+	/**
+	 * @param count	a value returned by {@link #getChangeCount()}.
+	 * @return the keys of groups added, changed or removed since, or null if they are no longer known.
+	 */
+	public Set<String> getChangedSince(long count) {
+
+		return groups.getChangedSince(count);
+	}
+
+	/**
+	 * @param node
+	 * @return the keys of all groups declaring this exact permission node, in key order.
+	 */
+	public List<String> getDeclaring(String node) {
+
+		return groups.getMembership().getDeclaring(node);
+	}
+
 	/**
 	 * @return the defaultGroup
 	 */
@@ -82,7 +128,7 @@ public class GroupsDataHolder {
 	}
 
 	/**
-	 * Note: Iteration over this object has to be synchronised!
+	 * Iteration is weakly consistent and needs no locking.
 	 * @return the groups
 	 */
 	public Map<String, Group> getGroups() {
@@ -145,4 +191,36 @@ public class GroupsDataHolder {
 		this.timeStampGroups = timeStampGroups;
 	}
 
+	/**
+	 * @return the content hash of the groups file when last loaded or saved.
+	 */
+	public long getHashGroups() {
+
+		return hashGroups;
+	}
+
+	/**
+	 * @param hashGroups the hashGroups to set
+	 */
+	public void setHashGroups(long hashGroups) {
+
+		this.hashGroups = hashGroups;
+	}
+
+	/**
+	 * Record that a group has changed since the last snapshot.
+	 */
+	public void revise() {
+
+		revision++;
+	}
+
+	/**
+	 * @return a number which changes whenever any group does.
+	 */
+	public long getRevision() {
+
+		return revision;
+	}
+
 }
@@ -0,0 +1,213 @@
+/*
+ *  GroupManager - A plug-in for Spigot/Bukkit based Minecraft servers.
+ *  Copyright (C) 2020  ElgarL
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.anjocaido.groupmanager.dataholder;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.anjocaido.groupmanager.GroupManager;
+import org.anjocaido.groupmanager.data.DataUnit;
+import org.anjocaido.groupmanager.utils.PrefixIndex;
+
+/**
+ * The map holding a world's Users or Groups, which keeps an index
+ * of their names up to date as entries are put and removed, and
+ * a {@link MembershipIndex} of their groups and permission nodes.
+ * Units which are removed or replaced have their timed nodes
+ * dropped from the {@link org.anjocaido.groupmanager.data.ExpiryQueue}.
+ * Every change is also logged by key, so a snapshot can copy
+ * only the entries changed since it was last built.
+ * <p>
+ * Changes are serialized so the index always matches the map.
+ * Reads are not locked, as for any ConcurrentHashMap.
+ * 
+ * @author ElgarL
+ *
+ * @param <V> User or Group
+ */
+class IndexedMap<V extends DataUnit> extends ConcurrentHashMap<String, V> {
+
+	private static final long serialVersionUID = 1L;
+
+	private final transient PrefixIndex names = new PrefixIndex();
+	private final transient MembershipIndex membership = new MembershipIndex(this);
+
+	/*
+	 * The latest change to each key, in the order they were made.
+	 */
+	private final transient Map<String, Long> lastChange = new HashMap<>();
+	private final transient TreeMap<Long, String> changes = new TreeMap<>();
+	private transient long changeCount = 0;
+	private transient long forgotten = 0;
+
+	@Override
+	public synchronized V put(String key, V value) {
+
+		V previous = super.put(key, value);
+
+		if (previous != null) {
+			names.remove(previous.getLastName());
+			membership.changed(previous);
+			if (previous != value)
+				GroupManager.getExpiryQueue().remove(previous);
+		}
+		names.add(value.getLastName());
+		membership.changed(value);
+		logChange(key);
+		return previous;
+	}
+
+	@Override
+	public synchronized void putAll(Map<? extends String, ? extends V> map) {
+
+		for (Map.Entry<? extends String, ? extends V> entry : map.entrySet())
+			put(entry.getKey(), entry.getValue());
+	}
+
+	@Override
+	public synchronized V remove(Object key) {
+
+		V previous = super.remove(key);
+
+		if (previous != null) {
+			names.remove(previous.getLastName());
+			membership.changed(previous);
+			GroupManager.getExpiryQueue().remove(previous);
+			logChange((String) key);
+		}
+		return previous;
+	}
+
+	@Override
+	public synchronized boolean remove(Object key, Object value) {
+
+		if (!super.remove(key, value))
+			return false;
+
+		names.remove(((DataUnit) value).getLastName());
+		membership.changed((DataUnit) value);
+		GroupManager.getExpiryQueue().remove((DataUnit) value);
+		logChange((String) key);
+		return true;
+	}
+
+	@Override
+	public synchronized void clear() {
+
+		Set<String> keys = new HashSet<>(keySet());
+
+		for (V unit : values())
+			GroupManager.getExpiryQueue().remove(unit);
+		super.clear();
+		names.clear();
+		membership.clear();
+		keys.forEach(this::logChange);
+	}
+
+	/**
+	 * Mark a unit as changed, to be re-indexed
+	 * and copied into the next snapshot.
+	 * 
+	 * @param unit	the unit which changed.
+	 */
+	synchronized void changed(V unit) {
+
+		membership.changed(unit);
+		logChange(unit.getUUID().toLowerCase());
+	}
+
+	/**
+	 * @return a count of the changes made to this map, see {@link #getChangedSince(long)}.
+	 */
+	synchronized long getChangeCount() {
+
+		return changeCount;
+	}
+
+	/**
+	 * @param count	a value returned by {@link #getChangeCount()}.
+	 * @return the keys added, changed or removed since, or null if some of those changes have been forgotten.
+	 */
+	synchronized Set<String> getChangedSince(long count) {
+
+		if (count < forgotten)
+			return null;
+
+		return new HashSet<>(changes.tailMap(count, false).values());
+	}
+
+	private void logChange(String key) {
+
+		Long previous = lastChange.put(key, ++changeCount);
+
+		if (previous != null)
+			changes.remove(previous);
+		changes.put(changeCount, key);
+
+		// Forget the keys no longer held, once they outnumber those which are.
+		if (changes.size() > ((2 * size()) + 64)) {
+			Iterator<Map.Entry<Long, String>> iterator = changes.entrySet().iterator();
+
+			while (iterator.hasNext()) {
+				Map.Entry<Long, String> change = iterator.next();
+
+				if (!containsKey(change.getValue())) {
+					forgotten = Math.max(forgotten, change.getKey());
+					lastChange.remove(change.getValue());
+					iterator.remove();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Update the index after a held unit changes its name.
+	 * 
+	 * @param unit		the unit which was renamed.
+	 * @param oldName	the name it had.
+	 */
+	synchronized void renamed(V unit, String oldName) {
+
+		if (get(unit.getUUID().toLowerCase()) != unit)
+			return;
+
+		names.remove(oldName);
+		names.add(unit.getLastName());
+	}
+
+	/**
+	 * @return the index of groups and permission nodes in this map.
+	 */
+	MembershipIndex getMembership() {
+
+		return membership;
+	}
+
+	/**
+	 * @return the index of names in this map.
+	 */
+	PrefixIndex getNames() {
+
+		return names;
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ *  GroupManager - A plug-in for Spigot/Bukkit based Minecraft servers.
+ *  Copyright (C) 2020  ElgarL
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.anjocaido.groupmanager.dataholder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.anjocaido.groupmanager.data.DataUnit;
+import org.anjocaido.groupmanager.data.User;
+
+/**
+ * Inverted index of the Users or Groups in an {@link IndexedMap}.
+ * <p>
+ * Maps each group name to the users who are members (main group,
+ * sub-groups and timed sub-groups) and each permission node to the
+ * units which declare it (static or timed). Every change to a unit
+ * marks its key, and the units held under marked keys are re-indexed
+ * before the next query. Only keys are kept, never the units, so a
+ * replaced or removed unit can be collected straight away.
+ * 
+ * @author ElgarL
+ *
+ */
+class MembershipIndex {
+
+	private static class Entry {
+
+		private final Set<String> groups = new HashSet<>();
+		private final Set<String> nodes = new HashSet<>();
+	}
+
+	private final Map<String, ? extends DataUnit> units;
+
+	private final Set<String> changed = new HashSet<>();
+	private final Map<String, Entry> indexed = new HashMap<>();
+
+	private final Map<String, Set<String>> members = new HashMap<>();
+	private final Map<String, Set<String>> declared = new HashMap<>();
+
+	MembershipIndex(Map<String, ? extends DataUnit> units) {
+
+		this.units = units;
+	}
+
+	/**
+	 * Mark a unit's key to be re-indexed before the next query.
+	 * 
+	 * @param unit
+	 */
+	synchronized void changed(DataUnit unit) {
+
+		changed.add(unit.getUUID().toLowerCase());
+	}
+
+	synchronized void clear() {
+
+		changed.clear();
+		indexed.clear();
+		members.clear();
+		declared.clear();
+	}
+
+	/**
+	 * @param groupName
+	 * @return the keys of all users who are members of this group, in key order.
+	 */
+	synchronized List<String> getMembers(String groupName) {
+
+		update();
+		return new ArrayList<>(members.getOrDefault(groupName.toLowerCase(), Collections.emptySet()));
+	}
+
+	/**
+	 * @param node
+	 * @return the keys of all units which declare this exact node, in key order.
+	 */
+	synchronized List<String> getDeclaring(String node) {
+
+		update();
+		return new ArrayList<>(declared.getOrDefault(node.toLowerCase(), Collections.emptySet()));
+	}
+
+	/**
+	 * Re-index the unit held under each changed key,
+	 * or drop the key if nothing is held there now.
+	 */
+	private void update() {
+
+		if (changed.isEmpty())
+			return;
+
+		for (String key : changed) {
+			Entry previous = indexed.remove(key);
+
+			if (previous != null) {
+				previous.groups.forEach(group -> remove(members, group, key));
+				previous.nodes.forEach(node -> remove(declared, node, key));
+			}
+
+			DataUnit unit = units.get(key);
+
+			if (unit == null)
+				continue;
+
+			Entry entry = new Entry();
+
+			if (unit instanceof User) {
+				User user = (User) unit;
+
+				entry.groups.add(user.getGroupName().toLowerCase());
+				user.subGroupListStringCopy().forEach(group -> entry.groups.add(group.toLowerCase()));
+			}
+			unit.getAllPermissionList().forEach(node -> entry.nodes.add(node.toLowerCase()));
+
+			entry.groups.forEach(group -> members.computeIfAbsent(group, k -> new TreeSet<>()).add(key));
+			entry.nodes.forEach(node -> declared.computeIfAbsent(node, k -> new TreeSet<>()).add(key));
+			indexed.put(key, entry);
+		}
+		changed.clear();
+	}
+
+	private static void remove(Map<String, Set<String>> index, String name, String key) {
+
+		Set<String> keys = index.get(name);
+
+		if ((keys != null) && keys.remove(key) && keys.isEmpty())
+			index.remove(name);
+	}
+}
@@ -19,9 +19,9 @@ package org.anjocaido.groupmanager.dataholder;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import org.anjocaido.groupmanager.data.User;
 
 /**
@@ -33,7 +33,7 @@ public class OverloadedWorldHolder extends WorldDataHolder {
 	/**
      *
      */
-	protected final Map<String, User> overloadedUsers = Collections.synchronizedMap(new HashMap<>());
+	protected final Map<String, User> overloadedUsers = new ConcurrentHashMap<>();
 
 	/**
 	 * 
@@ -65,6 +65,23 @@ public class OverloadedWorldHolder extends WorldDataHolder {
 		return super.getUser(userId);
 	}
 
+	/**
+	 * 
+	 * @return user object or a new user if none exists.
+	 */
+	@Override
+	public User getUser(UUID uuid) {
+
+		//OVERLOADED CODE
+		User user = overloadedUsers.get(uuid.toString());
+		if (user != null) {
+			return user;
+		}
+		//END CODE
+
+		return super.getUser(uuid);
+	}
+
 	/**
 	 * 
 	 * @param theUser
@@ -121,35 +138,27 @@ public class OverloadedWorldHolder extends WorldDataHolder {
 		if (groupName.equals(getDefaultGroup().getName())) {
 			return false;
 		}
-		synchronized(getGroups()) {
 		for (String key : getGroups().keySet()) {
 			if (groupName.equalsIgnoreCase(key)) {
 				getGroups().remove(key);
-				synchronized(getUsers()) {
-				for (String userKey : getUsers().keySet()) {
-					User user = getUsers().get(userKey);
+				for (User user : getUsers().values()) {
 					if (user.getGroupName().equalsIgnoreCase(key)) {
 						user.setGroup(getDefaultGroup());
 					}
 
-				}
 				}
 				//OVERLOADED CODE
-				synchronized(overloadedUsers) {
-				for (String userKey : overloadedUsers.keySet()) {
-					User user = overloadedUsers.get(userKey);
+				for (User user : overloadedUsers.values()) {
 					if (user.getGroupName().equalsIgnoreCase(key)) {
 						user.setGroup(getDefaultGroup());
 					}
 
-				}
 				}
 				//END OVERLOAD
 				setGroupsChanged(true);
 				return true;
 			}
 		}
-		}
 		return false;
 	}
 
@@ -161,12 +170,10 @@ public class OverloadedWorldHolder extends WorldDataHolder {
 	public Collection<User> getUserList() {
 
 		Collection<User> overloadedList = new ArrayList<>();
-		synchronized(getUsers()) {
 		Collection<User> normalList = getUsers().values();
 		for (User u : normalList) {
 			overloadedList.add(overloadedUsers.getOrDefault(u.getUUID().toLowerCase(), u));
 		}
-		}
 		return overloadedList;
 	}
 
@@ -191,6 +198,7 @@ public class OverloadedWorldHolder extends WorldDataHolder {
 			theUser = theUser.clone();
 			overloadedUsers.remove(theUser.getUUID().toLowerCase());
 			overloadedUsers.put(theUser.getUUID().toLowerCase(), theUser);
+			invalidateSnapshot();
 		}
 	}
 
@@ -201,7 +209,8 @@ public class OverloadedWorldHolder extends WorldDataHolder {
 	public void removeOverload(String userId) {
 
 		User theUser = getUser(userId);
-		overloadedUsers.remove(theUser.getUUID().toLowerCase());
+		if (overloadedUsers.remove(theUser.getUUID().toLowerCase()) != null)
+			invalidateSnapshot();
 	}
 
 	/**
@@ -0,0 +1,404 @@
+/*
+ *  GroupManager - A plug-in for Spigot/Bukkit based Minecraft servers.
+ *  Copyright (C) 2020  ElgarL
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.anjocaido.groupmanager.dataholder;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.anjocaido.groupmanager.GroupManager;
+import org.anjocaido.groupmanager.data.DataUnit;
+import org.anjocaido.groupmanager.data.Group;
+import org.anjocaido.groupmanager.data.User;
+import org.anjocaido.groupmanager.localization.Messages;
+
+/**
+ * A set of changes to the Users and Groups of one world which are all
+ * checked before any are made, then applied together.
+ * <p>
+ * Obtain one from {@link WorldDataHolder#beginTransaction()}, queue the
+ * changes, then {@link #commit()}. Nothing is applied if any change is
+ * invalid, and anything already applied is undone if one fails part way.
+ * The players affected are updated once, and a single RELOADED event is
+ * fired, when the commit completes.
+ * 
+ * @author ElgarL
+ *
+ */
+public class Transaction {
+
+	private enum Type {
+		SET_GROUP, ADD_SUBGROUP, REMOVE_SUBGROUP, ADD_USER_PERMISSION, REMOVE_USER_PERMISSION, ADD_GROUP_PERMISSION, REMOVE_GROUP_PERMISSION
+	}
+
+	private static class Operation {
+
+		private final Type type;
+		private final String target;
+		private final String value;
+
+		private Operation(Type type, String target, String value) {
+
+			this.type = type;
+			this.target = target;
+			this.value = value;
+		}
+	}
+
+	private final WorldDataHolder holder;
+	private final List<Operation> operations = new ArrayList<>();
+	private boolean committed = false;
+
+	Transaction(WorldDataHolder holder) {
+
+		this.holder = holder;
+	}
+
+	/**
+	 * Move a user to a new main group.
+	 * 
+	 * @param userId	UUID or name of the user.
+	 * @param groupName	the group to move them to.
+	 * @return this transaction.
+	 */
+	public Transaction setGroup(String userId, String groupName) {
+
+		return add(Type.SET_GROUP, userId, groupName);
+	}
+
+	/**
+	 * Give a user a sub-group.
+	 * 
+	 * @param userId	UUID or name of the user.
+	 * @param groupName	the group to add.
+	 * @return this transaction.
+	 */
+	public Transaction addSubGroup(String userId, String groupName) {
+
+		return add(Type.ADD_SUBGROUP, userId, groupName);
+	}
+
+	/**
+	 * Take a sub-group (static or timed) from a user.
+	 * 
+	 * @param userId	UUID or name of the user.
+	 * @param groupName	the group to remove.
+	 * @return this transaction.
+	 */
+	public Transaction removeSubGroup(String userId, String groupName) {
+
+		return add(Type.REMOVE_SUBGROUP, userId, groupName);
+	}
+
+	/**
+	 * Add a permission node to a user.
+	 * 
+	 * @param userId		UUID or name of the user.
+	 * @param permission	the node to add.
+	 * @return this transaction.
+	 */
+	public Transaction addUserPermission(String userId, String permission) {
+
+		return add(Type.ADD_USER_PERMISSION, userId, permission);
+	}
+
+	/**
+	 * Remove a permission node (static or timed) from a user.
+	 * 
+	 * @param userId		UUID or name of the user.
+	 * @param permission	the node to remove.
+	 * @return this transaction.
+	 */
+	public Transaction removeUserPermission(String userId, String permission) {
+
+		return add(Type.REMOVE_USER_PERMISSION, userId, permission);
+	}
+
+	/**
+	 * Add a permission node to a group.
+	 * 
+	 * @param groupName		the group to change.
+	 * @param permission	the node to add.
+	 * @return this transaction.
+	 */
+	public Transaction addGroupPermission(String groupName, String permission) {
+
+		return add(Type.ADD_GROUP_PERMISSION, groupName, permission);
+	}
+
+	/**
+	 * Remove a permission node (static or timed) from a group.
+	 * 
+	 * @param groupName		the group to change.
+	 * @param permission	the node to remove.
+	 * @return this transaction.
+	 */
+	public Transaction removeGroupPermission(String groupName, String permission) {
+
+		return add(Type.REMOVE_GROUP_PERMISSION, groupName, permission);
+	}
+
+	private Transaction add(Type type, String target, String value) {
+
+		if (committed)
+			throw new IllegalStateException(Messages.getString("Transaction.ALREADY_COMMITTED")); //$NON-NLS-1$
+
+		operations.add(new Operation(type, target, value));
+		return this;
+	}
+
+	/**
+	 * @return the world this transaction changes.
+	 */
+	public WorldDataHolder getWorld() {
+
+		return holder;
+	}
+
+	/**
+	 * @return the number of changes queued.
+	 */
+	public int size() {
+
+		return operations.size();
+	}
+
+	/**
+	 * Check every queued change against the current data without applying any.
+	 * 
+	 * @return why each invalid change can't be made, keyed and ordered
+	 *         by its position (from 1) in the transaction. Empty if all are valid.
+	 */
+	public Map<Integer, String> validate() {
+
+		Map<Integer, String> problems = new TreeMap<>();
+
+		for (int i = 0; i < operations.size(); i++) {
+			String problem = check(operations.get(i));
+
+			if (problem != null)
+				problems.put(i + 1, problem);
+		}
+		return problems;
+	}
+
+	/**
+	 * Validate then apply every queued change.
+	 * <p>
+	 * Saving is held off until the commit completes, so the data
+	 * files never contain only part of a transaction.
+	 * 
+	 * @throws IllegalArgumentException if any change is invalid (nothing is applied).
+	 * @throws IllegalStateException if the transaction was already committed.
+	 */
+	public void commit() {
+
+		if (committed)
+			throw new IllegalStateException(Messages.getString("Transaction.ALREADY_COMMITTED")); //$NON-NLS-1$
+
+		ReentrantLock saveLock = GroupManager.getPlugin(GroupManager.class).getSaveLock();
+
+		try {
+			saveLock.lock();
+
+			Map<Integer, String> problems = validate();
+			if (!problems.isEmpty()) {
+				Map.Entry<Integer, String> first = problems.entrySet().iterator().next();
+				throw new IllegalArgumentException(String.format(Messages.getString("Transaction.INVALID_CHANGE"), first.getKey(), first.getValue())); //$NON-NLS-1$
+			}
+
+			committed = true;
+			Deque<Runnable> undo = new ArrayDeque<>();
+
+			holder.beginBatch();
+			try {
+				for (Operation operation : operations)
+					apply(operation, undo);
+
+			} catch (RuntimeException ex) {
+				while (!undo.isEmpty())
+					undo.pop().run();
+				throw ex;
+
+			} finally {
+				holder.endBatch();
+			}
+		} finally {
+			saveLock.unlock();
+		}
+	}
+
+	/**
+	 * @param operation
+	 * @return why this change can't be made, or null if it can.
+	 */
+	private String check(Operation operation) {
+
+		if ((operation.target == null) || operation.target.isEmpty() || (operation.value == null) || operation.value.isEmpty())
+			return Messages.getString("Transaction.MISSING_ARGUMENT"); //$NON-NLS-1$
+
+		String groupName;
+
+		switch (operation.type) {
+
+		case ADD_GROUP_PERMISSION:
+		case REMOVE_GROUP_PERMISSION:
+			groupName = operation.target;
+			break;
+
+		case ADD_USER_PERMISSION:
+		case REMOVE_USER_PERMISSION:
+			return (findUser(operation.target) == null && !isUUID(operation.target)) ? String.format(Messages.getString("Transaction.UNKNOWN_USER"), operation.target) : null; //$NON-NLS-1$
+
+		default:
+			if (findUser(operation.target) == null && !isUUID(operation.target))
+				return String.format(Messages.getString("Transaction.UNKNOWN_USER"), operation.target); //$NON-NLS-1$
+			groupName = operation.value;
+		}
+
+		Group group = holder.getGroup(groupName);
+
+		if (group == null)
+			return String.format(Messages.getString("ERROR_GROUP_DOES_NOT_EXIST"), groupName); //$NON-NLS-1$
+		if (group.isGlobal())
+			return String.format(Messages.getString("Transaction.GLOBAL_GROUP"), groupName); //$NON-NLS-1$
+
+		return null;
+	}
+
+	/**
+	 * Apply a single change, recording how to reverse it.
+	 */
+	private void apply(Operation operation, Deque<Runnable> undo) {
+
+		switch (operation.type) {
+
+		case ADD_GROUP_PERMISSION:
+		case REMOVE_GROUP_PERMISSION:
+			Group group = holder.getGroup(operation.target);
+
+			changePermission(group, operation, undo);
+			holder.deferGroupUpdate(group.getName());
+			return;
+
+		default:
+		}
+
+		User user = findUser(operation.target);
+
+		if (user == null) {
+			user = holder.getUser(operation.target);
+			String created = user.getUUID();
+			undo.push(() -> holder.removeUser(created));
+		}
+		final User target = user;
+
+		switch (operation.type) {
+
+		case SET_GROUP:
+			Group previous = holder.getGroup(target.getGroupName());
+			target.setGroup(holder.getGroup(operation.value));
+			if (previous != null)
+				undo.push(() -> target.setGroup(previous));
+			break;
+
+		case ADD_SUBGROUP:
+			Group added = holder.getGroup(operation.value);
+			if (target.addSubGroup(added))
+				undo.push(() -> target.removeSubGroup(added));
+			break;
+
+		case REMOVE_SUBGROUP:
+			Group removed = holder.getGroup(operation.value);
+			Long expires = target.getTimedSubGroups().get(removed.getName());
+			if (target.removeSubGroup(removed))
+				undo.push(() -> {
+					if (expires != null)
+						target.addTimedSubGroup(removed, expires);
+					else
+						target.addSubGroup(removed);
+				});
+			break;
+
+		default:
+			changePermission(target, operation, undo);
+		}
+		holder.deferUserUpdate(target.getUUID());
+	}
+
+	private void changePermission(DataUnit unit, Operation operation, Deque<Runnable> undo) {
+
+		String permission = operation.value;
+
+		if ((operation.type == Type.ADD_USER_PERMISSION) || (operation.type == Type.ADD_GROUP_PERMISSION)) {
+			if (!unit.hasSamePermissionNode(permission)) {
+				unit.addPermission(permission);
+				undo.push(() -> unit.removePermission(permission));
+			}
+			return;
+		}
+
+		Long expires = unit.getTimedPermissions().get(permission);
+
+		if (unit.removePermission(permission))
+			undo.push(() -> {
+				if (expires != null)
+					unit.addTimedPermission(permission, expires);
+				else
+					unit.addPermission(permission);
+			});
+	}
+
+	/**
+	 * Find an existing user by UUID or name without creating one.
+	 */
+	private User findUser(String userId) {
+
+		User user = holder.getUsers().get(userId.toLowerCase());
+
+		if (user != null)
+			return user;
+
+		Set<String> uUIDs = holder.getUUIDLookup(userId);
+
+		if (uUIDs != null) {
+			for (String uid : uUIDs) {
+				user = holder.getUsers().get(uid.toLowerCase());
+
+				if ((user != null) && userId.equalsIgnoreCase(user.getLastName()))
+					return user;
+			}
+		}
+		return null;
+	}
+
+	private static boolean isUUID(String userId) {
+
+		try {
+			return (userId.length() == 36) && (UUID.fromString(userId) != null);
+		} catch (IllegalArgumentException ex) {
+			return false;
+		}
+	}
+}
@@ -18,11 +18,12 @@
 package org.anjocaido.groupmanager.dataholder;
 
 import java.io.File;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.anjocaido.groupmanager.data.User;
+import org.anjocaido.groupmanager.utils.PrefixIndex;
 
 /**
  * This container holds all Users loaded from the relevant usersFile.
@@ -36,11 +37,13 @@ public class UsersDataHolder {
 	private File usersFile;
 	private boolean haveUsersChanged = false;
 	private long timeStampUsers = 0;
+	private long hashUsers = 0;
+	private volatile long revision = 0;
 
 	/**
 	 * The actual groups holder
 	 */
-	private final Map<String, User> users = Collections.synchronizedMap(new HashMap<>());
+	private final IndexedMap<User> users = new IndexedMap<>();
 
 	/**
 	 * Constructor
@@ -53,14 +56,12 @@ public class UsersDataHolder {
 
 		this.dataSource = dataSource;
 		//push this data source to the users, so they pull the correct groups data.
-		synchronized(users) {
 		for (User user : users.values())
 			user.setDataSource(this.dataSource);
-		}
 	}
 
 	/**
-	 * Note: Iteration over this object has to be synchronised!
+	 * Iteration is weakly consistent and needs no locking.
 	 * @return the users
 	 */
 	public Map<String, User> getUsers() {
@@ -73,6 +74,71 @@ public class UsersDataHolder {
 		return this.dataSource;
 	}
 
+	/**
+	 * @return a prefix index of the last names of all users.
+	 */
+	public PrefixIndex getNameIndex() {
+
+		return users.getNames();
+	}
+
+	/**
+	 * Update the name index when a user's last name changes.
+	 * 
+	 * @param user		the user which was renamed.
+	 * @param oldName	their previous name.
+	 */
+	public void updateNameIndex(User user, String oldName) {
+
+		users.renamed(user, oldName);
+	}
+
+	/**
+	 * Mark a user's groups and permissions to be re-indexed,
+	 * and the user to be copied into the next snapshot.
+	 * 
+	 * @param user
+	 */
+	public void updateIndex(User user) {
+
+		users.changed(user);
+	}
+
+	/**
+	 * @return a count of the changes made to the users held here.
+	 */
+	public long getChangeCount() {
+
+		return users.getChangeCount();
+	}
+
+	/**
+	 * @param count	a value returned by {@link #getChangeCount()}.
+	 * @return the keys of users added, changed or removed since, or null if they are no longer known.
+	 */
+	public Set<String> getChangedSince(long count) {
+
+		return users.getChangedSince(count);
+	}
+
+	/**
+	 * @param groupName
+	 * @return the keys of all users in the group (main, sub or timed), in key order.
+	 */
+	public List<String> getMembers(String groupName) {
+
+		return users.getMembership().getMembers(groupName);
+	}
+
+	/**
+	 * @param node
+	 * @return the keys of all users declaring this exact permission node, in key order.
+	 */
+	public List<String> getDeclaring(String node) {
+
+		return users.getMembership().getDeclaring(node);
+	}
+
 	/**
 	 * Resets the Users
 	 */
@@ -128,4 +194,36 @@ public class UsersDataHolder {
 		this.timeStampUsers = timeStampUsers;
 	}
 
+	/**
+	 * @return the content hash of the users file when last loaded or saved.
+	 */
+	public long getHashUsers() {
+
+		return hashUsers;
+	}
+
+	/**
+	 * @param hashUsers the hashUsers to set
+	 */
+	public void setHashUsers(long hashUsers) {
+
+		this.hashUsers = hashUsers;
+	}
+
+	/**
+	 * Record that a user has changed since the last snapshot.
+	 */
+	public void revise() {
+
+		revision++;
+	}
+
+	/**
+	 * @return a number which changes whenever any user does.
+	 */
+	public long getRevision() {
+
+		return revision;
+	}
+
 }
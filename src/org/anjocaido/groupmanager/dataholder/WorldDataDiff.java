@@ -0,0 +1,185 @@
+/*
+ *  GroupManager - A plug-in for Spigot/Bukkit based Minecraft servers.
+ *  Copyright (C) 2020  ElgarL
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.anjocaido.groupmanager.dataholder;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.anjocaido.groupmanager.data.DataUnit;
+import org.anjocaido.groupmanager.data.Group;
+import org.anjocaido.groupmanager.data.User;
+import org.anjocaido.groupmanager.data.Variables;
+
+/**
+ * The differences between the Groups or Users we hold and a freshly
+ * loaded copy of them, so a reload can be applied in place.
+ * 
+ * All group names and user ids are held in lower case.
+ * 
+ * @author ElgarL
+ */
+public class WorldDataDiff {
+
+	private final Set<String> added = new HashSet<>();
+	private final Set<String> removed = new HashSet<>();
+	private final Set<String> changed = new HashSet<>();
+
+	private WorldDataDiff() {}
+
+	/**
+	 * Compare two sets of Groups by their permissions, inheritance and info nodes.
+	 * 
+	 * @param current	the groups we hold.
+	 * @param loaded	the groups read from file.
+	 * @return the differences.
+	 */
+	public static WorldDataDiff ofGroups(Collection<Group> current, Collection<Group> loaded) {
+
+		WorldDataDiff diff = new WorldDataDiff();
+		Map<String, Group> previous = new HashMap<>();
+
+		for (Group group : current)
+			previous.put(group.getName().toLowerCase(), group);
+
+		for (Group group : loaded) {
+			String key = group.getName().toLowerCase();
+			Group old = previous.remove(key);
+
+			if (old == null)
+				diff.added.add(key);
+			else if (!isSameGroup(old, group))
+				diff.changed.add(key);
+		}
+		diff.removed.addAll(previous.keySet());
+
+		return diff;
+	}
+
+	/**
+	 * Compare two sets of Users by their name, groups, permissions and info nodes.
+	 * 
+	 * @param current	the users we hold.
+	 * @param loaded	the users read from file.
+	 * @return the differences.
+	 */
+	public static WorldDataDiff ofUsers(Collection<User> current, Collection<User> loaded) {
+
+		WorldDataDiff diff = new WorldDataDiff();
+		Map<String, User> previous = new HashMap<>();
+
+		for (User user : current)
+			previous.put(user.getUUID().toLowerCase(), user);
+
+		for (User user : loaded) {
+			String key = user.getUUID().toLowerCase();
+			User old = previous.remove(key);
+
+			if (old == null)
+				diff.added.add(key);
+			else if (!isSameUser(old, user))
+				diff.changed.add(key);
+		}
+		diff.removed.addAll(previous.keySet());
+
+		return diff;
+	}
+
+	/**
+	 * @return entries which only exist in the loaded data.
+	 */
+	public Set<String> getAdded() {
+
+		return Collections.unmodifiableSet(added);
+	}
+
+	/**
+	 * @return entries which no longer exist in the loaded data.
+	 */
+	public Set<String> getRemoved() {
+
+		return Collections.unmodifiableSet(removed);
+	}
+
+	/**
+	 * @return entries which exist in both but differ.
+	 */
+	public Set<String> getChanged() {
+
+		return Collections.unmodifiableSet(changed);
+	}
+
+	/**
+	 * @return every added, removed or changed entry.
+	 */
+	public Set<String> getAll() {
+
+		Set<String> all = new HashSet<>(added);
+		all.addAll(removed);
+		all.addAll(changed);
+		return all;
+	}
+
+	/**
+	 * @return true if the data is identical.
+	 */
+	public boolean isEmpty() {
+
+		return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+	}
+
+	private static boolean isSameGroup(Group a, Group b) {
+
+		return a.getName().equals(b.getName())
+				&& isSameUnit(a, b)
+				&& a.getInherits().equals(b.getInherits())
+				&& isSameVariables(a.getVariables(), b.getVariables());
+	}
+
+	private static boolean isSameUser(User a, User b) {
+
+		return a.getLastName().equals(b.getLastName())
+				&& a.getGroupName().equalsIgnoreCase(b.getGroupName())
+				&& a.subGroupListCloneStringCopy().equals(b.subGroupListCloneStringCopy())
+				&& a.getTimedSubGroups().equals(b.getTimedSubGroups())
+				&& isSameUnit(a, b)
+				&& isSameVariables(a.getVariables(), b.getVariables());
+	}
+
+	private static boolean isSameUnit(DataUnit a, DataUnit b) {
+
+		return a.getPermissionList().equals(b.getPermissionList())
+				&& a.getTimedPermissions().equals(b.getTimedPermissions());
+	}
+
+	private static boolean isSameVariables(Variables a, Variables b) {
+
+		if (a.getSize() != b.getSize())
+			return false;
+
+		for (String key : a.getVarKeyList()) {
+			if (!b.hasVar(key) || !Objects.equals(a.getVarObject(key), b.getVarObject(key)))
+				return false;
+		}
+		return true;
+	}
+}
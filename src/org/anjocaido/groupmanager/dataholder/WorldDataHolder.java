@@ -17,16 +17,19 @@
  */
 package org.anjocaido.groupmanager.dataholder;
 
+import java.io.Closeable;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
+import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -34,25 +37,33 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.anjocaido.groupmanager.GroupManager;
+import org.anjocaido.groupmanager.data.DataUnit;
 import org.anjocaido.groupmanager.data.Group;
 import org.anjocaido.groupmanager.data.User;
+import org.anjocaido.groupmanager.dataholder.storage.DataStorages;
+import org.anjocaido.groupmanager.dataholder.yaml.YamlDataWriter;
 import org.anjocaido.groupmanager.events.GMGroupEvent;
 import org.anjocaido.groupmanager.events.GMSystemEvent;
 import org.anjocaido.groupmanager.events.GMUserEvent;
 import org.anjocaido.groupmanager.events.GMUserEvent.Action;
 import org.anjocaido.groupmanager.localization.Messages;
 import org.anjocaido.groupmanager.permissions.AnjoPermissionsHandler;
+import org.anjocaido.groupmanager.permissions.PermissionsSnapshot;
+import org.anjocaido.groupmanager.utils.Tasks;
+import org.bukkit.Bukkit;
 import org.bukkit.Server;
+import org.bukkit.plugin.IllegalPluginAccessException;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.plugin.PluginManager;
-import org.yaml.snakeyaml.DumperOptions;
-import org.yaml.snakeyaml.Yaml;
-import org.yaml.snakeyaml.constructor.SafeConstructor;
-import org.yaml.snakeyaml.reader.UnicodeReader;
 
 /**
  * One instance of this should exist per world/mirror it contains all functions
@@ -78,12 +89,36 @@ public class WorldDataHolder {
 
     /**
      * List of UUID's associated with this user name.
+     * Synchronized as worlds may be read in parallel.
      */
-    protected static Map<String, Set<String>> nameToUUIDLookup = new TreeMap<String, Set<String>>();
+    protected static Map<String, Set<String>> nameToUUIDLookup = Collections.synchronizedMap(new TreeMap<String, Set<String>>());
     /**
      *
      */
     protected AnjoPermissionsHandler permissionsHandler;
+    /**
+     * Users serialized per task when saving a large users file.
+     */
+    private static final int USERS_PER_CHUNK = 2000;
+    /**
+     * Nesting depth of bulk updates, and what they changed.
+     */
+    private int batchDepth = 0;
+    private final Set<String> batchGroups = new HashSet<>();
+    private final Set<String> batchUsers = new HashSet<>();
+    /**
+     * Set while this holder is read by {@link #parse(String, File, File)},
+     * so nothing reacts to its data before it's in use.
+     */
+    private volatile boolean loading = false;
+
+    /**
+     * The latest published snapshot, and the revisions it was built from.
+     */
+    private volatile PermissionsSnapshot snapshot = null;
+    private volatile long snapshotStamp = 0;
+    private final Object snapshotLock = new Object();
+    private final AtomicBoolean publishPending = new AtomicBoolean(false);
 
     /**
      * Prevent direct instantiation
@@ -123,7 +158,8 @@ public class WorldDataHolder {
     }
 
     /**
-     * Search for a user. If it doesn't exist, create a new one with default group.
+     * Search for a user. If it doesn't exist, return a stand-in in the default group,
+     * which is only stored once it's changed.
      * <p>
      * If this is called passing a player name with mantogglevalidate off
      * it can return the wrong user object (offline/online UUID match).
@@ -138,10 +174,12 @@ public class WorldDataHolder {
         }
 
         // Legacy name matching
-        if ((userId.length() < 36) && nameToUUIDLookup.containsKey(userId.toLowerCase())) {
+        Set<String> uUIDs = (userId.length() < 36) ? getUUIDLookup(userId.toLowerCase()) : null;
+
+        if (uUIDs != null) {
 
             // Search for a name to UUID match
-            for (String uid : getUUIDLookup(userId.toLowerCase())) {
+            for (String uid : uUIDs) {
 
                 User user = getUsers().get(uid.toLowerCase());
 
@@ -156,9 +194,49 @@ public class WorldDataHolder {
             GroupManager.logger.fine("ERROR: No lookup for: " + userId);
         }
 
-        // No user account found so create a new one.
-        User newUser = createUser(userId);
-        return newUser;
+        // No user account found so stand in with a default one.
+        return new User(this, userId, true);
+    }
+
+    /**
+     * Search for a user by UUID. If it doesn't exist, return a stand-in in the default group,
+     * which is only stored once it's changed.
+     * <p>
+     * A single lookup, with no legacy name matching, for players
+     * whose record has been keyed by UUID since they joined.
+     *
+     * @param uuid the UUID of the user
+     * @return class that manage that user permission
+     */
+    public User getUser(UUID uuid) {
+
+        String userId = uuid.toString();
+        User user = getUsers().get(userId);
+
+        return (user != null) ? user : new User(this, userId, true);
+    }
+
+    /**
+     * *** Internal GM use only ***
+     * Store a stand-in user returned by {@link #getUser(String)} on its first change.
+     * <p>
+     * If a record for the same user was created in the meantime (they joined)
+     * that record is kept, and the stand-in applies its changes to it instead.
+     *
+     * @param user the stand-in user.
+     * @return the stored record for this user, which is the stand-in if it was stored.
+     */
+    public User materializeUser(User user) {
+
+        User stored = getUsers().get(user.getUUID().toLowerCase());
+
+        if (stored == null) {
+            addUser(user);
+            return user;
+        }
+
+        GroupManager.logger.warning(String.format(Messages.getString("WorldDatHolder.STAND_IN_MERGED"), user.getUUID(), getName()));
+        return stored;
     }
 
     /**
@@ -245,7 +323,7 @@ public class WorldDataHolder {
         //putUUIDLookup(theUser.getLastName(), theUser.getUUID().toLowerCase());
 
         setUsersChanged(true);
-        if (GroupManager.isLoaded())
+        if (!deferUserUpdate(theUser.getUUID()) && GroupManager.isLoaded())
             GroupManager.getGMEventHandler().callEvent(theUser, Action.USER_ADDED);
     }
 
@@ -268,7 +346,7 @@ public class WorldDataHolder {
 
             setUsersChanged(true);
 
-            if (GroupManager.isLoaded())
+            if (!deferUserUpdate(userId) && GroupManager.isLoaded())
                 GroupManager.getGMEventHandler().callEvent(userId, GMUserEvent.Action.USER_REMOVED);
 
             return true;
@@ -285,6 +363,21 @@ public class WorldDataHolder {
         return getUsers().containsKey(userId.toLowerCase());
     }
 
+    /**
+     * Is this the instance of a group or user held by this world,
+     * rather than a copy or one which has since been replaced.
+     *
+     * @param unit the group or user to test.
+     * @return true if it is held here.
+     */
+    public boolean isHeld(DataUnit unit) {
+
+        if (unit instanceof Group)
+            return getGroups().get(unit.getUUID().toLowerCase()) == unit;
+
+        return getUsers().get(unit.getUUID().toLowerCase()) == unit;
+    }
+
     /**
      * Change the default group of the file.
      *
@@ -297,7 +390,7 @@ public class WorldDataHolder {
         }
         groups.setDefaultGroup(getGroup(group.getName()));
         setGroupsChanged(true);
-        if (GroupManager.isLoaded())
+        if (!deferGroupUpdate(group.getName()) && GroupManager.isLoaded())
             GroupManager.getGMEventHandler().callEvent(GMSystemEvent.Action.DEFAULT_GROUP_CHANGED);
     }
 
@@ -359,7 +452,7 @@ public class WorldDataHolder {
         removeGroup(groupToAdd.getName());
         getGroups().put(groupToAdd.getName().toLowerCase(), groupToAdd);
         setGroupsChanged(true);
-        if (GroupManager.isLoaded())
+        if (!deferGroupUpdate(groupToAdd.getName()) && GroupManager.isLoaded())
             GroupManager.getGMEventHandler().callEvent(groupToAdd, GMGroupEvent.Action.GROUP_ADDED);
     }
 
@@ -382,7 +475,7 @@ public class WorldDataHolder {
         if (getGroups().containsKey(groupName.toLowerCase())) {
             getGroups().remove(groupName.toLowerCase());
             setGroupsChanged(true);
-            if (GroupManager.isLoaded())
+            if (!deferGroupUpdate(groupName) && GroupManager.isLoaded())
                 GroupManager.getGMEventHandler().callEvent(groupName.toLowerCase(), GMGroupEvent.Action.GROUP_REMOVED);
             return true;
         }
@@ -390,6 +483,280 @@ public class WorldDataHolder {
 
     }
 
+    /**
+     * Start a bulk update of this world's data.
+     * <p>
+     * Until the matching {@link #endBatch()}, changes to Groups and Users
+     * in this world neither update players nor fire events. Instead the
+     * players affected by all of them are updated once, and a single
+     * RELOADED event is fired, when the batch ends. Batches may be nested.
+     */
+    public synchronized void beginBatch() {
+
+        batchDepth++;
+    }
+
+    /**
+     * End a bulk update started with {@link #beginBatch()}.
+     */
+    public void endBatch() {
+
+        Set<String> groupNames;
+        Set<String> userIds;
+
+        synchronized (this) {
+            if (batchDepth == 0)
+                throw new IllegalStateException(String.format(Messages.getString("WorldDatHolder.NOT_IN_BATCH"), getName()));
+
+            if (--batchDepth > 0)
+                return;
+
+            groupNames = new HashSet<>(batchGroups);
+            userIds = new HashSet<>(batchUsers);
+            batchGroups.clear();
+            batchUsers.clear();
+        }
+
+        if (snapshot != null)
+            publishSnapshot();
+
+        if ((groupNames.isEmpty() && userIds.isEmpty()) || loading || !GroupManager.isLoaded())
+            return;
+
+        GroupManager.getBukkitPermissions().updatePlayers(this, getDependantGroups(groupNames), userIds);
+        GroupManager.getGMEventHandler().callEvent(GMSystemEvent.Action.RELOADED);
+    }
+
+    /**
+     * Mark a User or Group held by this world to be re-indexed
+     * by group membership and permission node.
+     *
+     * @param unit the unit which changed.
+     */
+    public void updateIndex(DataUnit unit) {
+
+        if (unit instanceof User)
+            users.updateIndex((User) unit);
+        else if (unit instanceof Group)
+            groups.updateIndex((Group) unit);
+    }
+
+    /**
+     * Find every user who is a member of a group, as their main group,
+     * a sub-group or a timed sub-group.
+     *
+     * @param groupName the group to search for.
+     * @return the members, ordered by UUID.
+     */
+    public List<User> getUsersInGroup(String groupName) {
+
+        return resolve(users.getMembers(groupName), getUsers());
+    }
+
+    /**
+     * Find every user who declares a permission node (static or timed).
+     * Only exact nodes match, wildcards are not expanded.
+     *
+     * @param node the permission node to search for.
+     * @return the users, ordered by UUID.
+     */
+    public List<User> getUsersWithPermission(String node) {
+
+        return resolve(users.getDeclaring(node), getUsers());
+    }
+
+    /**
+     * Find every group in this world which declares a permission node (static or timed).
+     * Only exact nodes match, wildcards are not expanded.
+     *
+     * @param node the permission node to search for.
+     * @return the groups, ordered by name.
+     */
+    public List<Group> getGroupsWithPermission(String node) {
+
+        return resolve(groups.getDeclaring(node), getGroups());
+    }
+
+    private static <V> List<V> resolve(List<String> keys, Map<String, V> units) {
+
+        List<V> result = new ArrayList<>(keys.size());
+
+        for (String key : keys) {
+            V unit = units.get(key);
+
+            if (unit != null)
+                result.add(unit);
+        }
+        return result;
+    }
+
+    /**
+     * Start a transaction of changes to this world's Users and Groups,
+     * which are validated together and applied as one batch on commit.
+     *
+     * @return a new, empty, Transaction.
+     */
+    public Transaction beginTransaction() {
+
+        return new Transaction(this);
+    }
+
+    /**
+     * @return true if a bulk update is in progress.
+     */
+    public synchronized boolean isBatching() {
+
+        return batchDepth > 0;
+    }
+
+    /**
+     * Record a change to a Group if we are in a bulk update.
+     *
+     * @param groupName
+     * @return true if the update is deferred to the end of the batch.
+     */
+    public synchronized boolean deferGroupUpdate(String groupName) {
+
+        if (batchDepth == 0)
+            return false;
+
+        batchGroups.add(groupName.toLowerCase());
+        return true;
+    }
+
+    /**
+     * Record a change to a User if we are in a bulk update.
+     *
+     * @param userId
+     * @return true if the update is deferred to the end of the batch.
+     */
+    public synchronized boolean deferUserUpdate(String userId) {
+
+        if (batchDepth == 0)
+            return false;
+
+        batchUsers.add(userId.toLowerCase());
+        return true;
+    }
+
+    /**
+     * The latest immutable snapshot of this world, for permission
+     * queries from any thread.
+     * <p>
+     * Changes are published at the end of each batch, or on the next
+     * server tick, so a snapshot may briefly lag the live data.
+     *
+     * @return the latest snapshot.
+     */
+    public PermissionsSnapshot getSnapshot() {
+
+        PermissionsSnapshot current = snapshot;
+
+        if (current == null)
+            return publishSnapshot();
+
+        if (snapshotStamp != getRevisionStamp())
+            schedulePublish();
+
+        return current;
+    }
+
+    /**
+     * Publish a new snapshot if anything has changed since the last one.
+     * Nothing is published while a batch is open.
+     *
+     * @return the latest snapshot.
+     */
+    public PermissionsSnapshot publishSnapshot() {
+
+        synchronized (snapshotLock) {
+            if ((snapshot != null) && (isBatching() || (snapshotStamp == getRevisionStamp())))
+                return snapshot;
+
+            // Read first, so a change made while copying is published next time.
+            long stamp = getRevisionStamp();
+
+            snapshot = PermissionsSnapshot.build(this, snapshot);
+            snapshotStamp = stamp;
+            return snapshot;
+        }
+    }
+
+    /**
+     * Mark the published snapshot as out of date.
+     * Called whenever a group or user held here changes.
+     */
+    public void invalidateSnapshot() {
+
+        if (groups != null)
+            groups.revise();
+        if (users != null)
+            users.revise();
+
+        if (snapshot != null)
+            schedulePublish();
+    }
+
+    /**
+     * Publish on the next tick, once, however many changes are made before then.
+     */
+    private void schedulePublish() {
+
+        if (!GroupManager.isLoaded() || !publishPending.compareAndSet(false, true))
+            return;
+
+        try {
+            Bukkit.getScheduler().runTask(GroupManager.getPlugin(GroupManager.class), () -> {
+                publishPending.set(false);
+                publishSnapshot();
+            });
+        } catch (IllegalPluginAccessException ex) {
+            // Disabling, nothing left to publish for.
+            publishPending.set(false);
+        }
+    }
+
+    /**
+     * @return a value which changes whenever the groups, users or global groups seen by this world do.
+     */
+    public long getRevisionStamp() {
+
+        long stamp = groups.getRevision() + users.getRevision();
+
+        if (GroupManager.getGlobalGroups() != null)
+            stamp += GroupManager.getGlobalGroups().getRevision();
+
+        return stamp;
+    }
+
+    /**
+     * Find the groups which inherit, directly or through other groups,
+     * from any of the given groups.
+     *
+     * @param groupNames lower case names of the groups.
+     * @return the given groups and all their dependants, in lower case.
+     */
+    public Set<String> getDependantGroups(Collection<String> groupNames) {
+
+        Map<String, List<String>> dependants = new HashMap<>();
+
+        for (Group group : getGroupList())
+            for (String inherit : group.getInherits())
+                dependants.computeIfAbsent(inherit.toLowerCase(), k -> new ArrayList<>()).add(group.getName().toLowerCase());
+
+        Set<String> result = new HashSet<>(groupNames);
+        Deque<String> queue = new ArrayDeque<>(groupNames);
+
+        while (!queue.isEmpty()) {
+            List<String> next = dependants.get(queue.poll());
+            if (next != null)
+                for (String name : next)
+                    if (result.add(name))
+                        queue.add(name);
+        }
+        return result;
+    }
+
     /**
      * Creates a new User with the given name and adds it to this holder.
      *
@@ -436,9 +803,7 @@ public class WorldDataHolder {
      */
     public Collection<Group> getGroupList() {
 
-        synchronized (getGroups()) {
-            return new ArrayList<Group>(getGroups().values());
-        }
+        return new ArrayList<Group>(getGroups().values());
     }
 
     /**
@@ -446,9 +811,7 @@ public class WorldDataHolder {
      */
     public Collection<User> getUserList() {
 
-        synchronized (getUsers()) {
-            return new ArrayList<User>(getUsers().values());
-        }
+        return new ArrayList<User>(getUsers().values());
     }
 
     /**
@@ -465,38 +828,64 @@ public class WorldDataHolder {
     }
 
     /**
-     * Refresh Group data from file
+     * Refresh Group data from file.
+     * Only groups which differ from the file are replaced and only the
+     * online players using them, or groups inheriting them, are updated.
      */
     public void reloadGroups() {
 
+        Set<String> affected = Collections.emptySet();
+
         GroupManager.setLoaded(false);
         try {
             // temporary holder in case the load fails.
             WorldDataHolder ph = new WorldDataHolder(this.getName());
 
             loadGroups(ph, getGroupsFile());
-            // transfer new data
-            resetGroups();
-            for (Group tempGroup : ph.getGroupList()) {
-                tempGroup.clone(this);
-            }
-            this.setDefaultGroup(getGroup(ph.getDefaultGroup().getName()));
+
+            // transfer only the groups which differ.
+            WorldDataDiff diff = WorldDataDiff.ofGroups(getGroupList(), ph.getGroupList());
+            Set<String> changed = diff.getAll();
+
+            String defaultGroup = ph.getDefaultGroup().getName();
+            if ((getDefaultGroup() == null) || !defaultGroup.equalsIgnoreCase(getDefaultGroup().getName()))
+                changed.add(defaultGroup.toLowerCase());
+
+            // Dependants through the old inheritance, before we replace it.
+            affected = getDependantGroups(changed);
+
+            for (String key : diff.getRemoved())
+                getGroups().remove(key);
+            for (String key : diff.getChanged())
+                getGroups().remove(key);
+            for (String key : diff.getChanged())
+                ph.getGroup(key).clone(this);
+            for (String key : diff.getAdded())
+                ph.getGroup(key).clone(this);
+
+            this.setDefaultGroup(getGroup(defaultGroup));
             this.removeGroupsChangedFlag();
-            this.setTimeStampGroups(getGroupsFile().lastModified());
+            this.stampGroupsFile();
+
+            affected.addAll(getDependantGroups(changed));
 
             ph = null;
         } catch (Exception ex) {
             Logger.getLogger(WorldDataHolder.class.getName()).log(Level.WARNING, null, ex);
         }
         GroupManager.setLoaded(true);
+        GroupManager.getBukkitPermissions().updatePlayers(this, affected, Collections.emptySet());
         GroupManager.getGMEventHandler().callEvent(GMSystemEvent.Action.RELOADED);
     }
 
     /**
-     * Refresh Users data from file
+     * Refresh Users data from file.
+     * Only users which differ from the file are replaced and updated.
      */
     public void reloadUsers() {
 
+        Set<String> affected = Collections.emptySet();
+
         GroupManager.setLoaded(false);
         try {
             // temporary holder in case the load fails.
@@ -508,22 +897,103 @@ public class WorldDataHolder {
             // setup the default group before loading user data.
             ph.setDefaultGroup(ph.getGroup(getDefaultGroup().getName()));
             loadUsers(ph, getUsersFile());
-            // transfer new data
-            resetUsers();
-            for (User tempUser : ph.getUserList()) {
-                tempUser.clone(this);
+
+            // transfer only the users which differ.
+            List<User> current = new ArrayList<>(getUsers().values());
+            WorldDataDiff diff = WorldDataDiff.ofUsers(current, ph.getUsers().values());
+            affected = diff.getAll();
+
+            for (String key : affected) {
+                User user = getUsers().remove(key);
+                if (user != null)
+                    removeUUIDLookup(user.getLastName().toLowerCase(), user.getUUID());
+            }
+            for (String key : affected) {
+                User loaded = ph.getUsers().get(key);
+                if (loaded != null) {
+                    User user = loaded.clone(this);
+                    if (user != null)
+                        user.setLastName(loaded.getLastName());
+                }
             }
             this.removeUsersChangedFlag();
-            this.setTimeStampUsers(getUsersFile().lastModified());
+            this.stampUsersFile();
 
             ph = null;
         } catch (Exception ex) {
             Logger.getLogger(WorldDataHolder.class.getName()).log(Level.WARNING, null, ex);
         }
         GroupManager.setLoaded(true);
+        GroupManager.getBukkitPermissions().updatePlayers(this, Collections.emptySet(), affected);
         GroupManager.getGMEventHandler().callEvent(GMSystemEvent.Action.RELOADED);
     }
 
+    /**
+     * Write any data not held as yml out to yml files
+     * of the same name, so it can be read or edited.
+     *
+     * @return false if this world's data is all yml.
+     */
+    public boolean exportYaml() {
+
+        boolean exported = false;
+
+        if (!DataStorages.isYaml(getGroupsFile())) {
+            exportGroups(this, DataStorages.toStorage(getGroupsFile(), DataStorages.YAML));
+            exported = true;
+        }
+        if (!DataStorages.isYaml(getUsersFile())) {
+            exportUsers(this, DataStorages.toStorage(getUsersFile(), DataStorages.YAML));
+            exported = true;
+        }
+        return exported;
+    }
+
+    /**
+     * Replace the data not held as yml with the contents
+     * of the yml files of the same name, then reload.
+     *
+     * @return false if this world's data is all yml.
+     * @throws IOException
+     */
+    public boolean importYaml() throws IOException {
+
+        boolean convertGroups = !DataStorages.isYaml(getGroupsFile());
+        boolean convertUsers = !DataStorages.isYaml(getUsersFile());
+
+        if (!convertGroups && !convertUsers)
+            return false;
+
+        GroupManager.setLoaded(false);
+        try {
+            // temporary holder in case the load fails.
+            WorldDataHolder ph = new WorldDataHolder(this.getName());
+
+            if (convertGroups) {
+                loadGroups(ph, DataStorages.toStorage(getGroupsFile(), DataStorages.YAML));
+            } else {
+                // copy groups for reference
+                for (Group tempGroup : this.getGroupList()) {
+                    tempGroup.clone(ph);
+                }
+                ph.setDefaultGroup(ph.getGroup(getDefaultGroup().getName()));
+            }
+
+            if (convertUsers) {
+                loadUsers(ph, DataStorages.toStorage(getUsersFile(), DataStorages.YAML));
+                exportUsers(ph, getUsersFile());
+            }
+            if (convertGroups)
+                exportGroups(ph, getGroupsFile());
+
+        } finally {
+            GroupManager.setLoaded(true);
+        }
+
+        reload();
+        return true;
+    }
+
     public void loadGroups(File groupsFile) {
 
         GroupManager.setLoaded(false);
@@ -581,6 +1051,33 @@ public class WorldDataHolder {
         return ph;
     }
 
+    /**
+     * Returns a NEW data holder containing data read from the files.
+     * <p>
+     * Unlike {@link #load(String, File, File)} the global loaded state is left
+     * alone and only the new holder is marked as loading, so worlds can be
+     * read on other threads during startup.
+     *
+     * @param worldName
+     * @param groupsFile
+     * @param usersFile
+     * @throws FileNotFoundException
+     * @throws IOException
+     */
+    public static WorldDataHolder parse(String worldName, File groupsFile, File usersFile) throws FileNotFoundException, IOException {
+
+        WorldDataHolder ph = new WorldDataHolder(worldName);
+
+        ph.loading = true;
+        try {
+            loadGroups(ph, groupsFile);
+            loadUsers(ph, usersFile);
+        } finally {
+            ph.loading = false;
+        }
+        return ph;
+    }
+
     /**
      * Updates the WorldDataHolder from the Groups file
      *
@@ -589,30 +1086,25 @@ public class WorldDataHolder {
      * @throws FileNotFoundException
      * @throws IOException
      */
-    @SuppressWarnings({"rawtypes", "unchecked"})
     protected static void loadGroups(WorldDataHolder ph, File groupsFile) throws FileNotFoundException, IOException {
 
-        // READ GROUPS FILE
+        // Wire up every group and inheritance as a single update.
+        ph.beginBatch();
+        try {
+            readGroups(ph, groupsFile);
+        } finally {
+            ph.endBatch();
+        }
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static void readGroups(WorldDataHolder ph, File groupsFile) throws FileNotFoundException, IOException {
 
-        Yaml yamlGroups = new Yaml(new SafeConstructor());
-        Map<String, Object> groupsRootDataNode;
+        // READ GROUPS FILE
 
         if (!groupsFile.exists()) {
             throw new IllegalArgumentException(Messages.getString("WorldDatHolder.ERROR_NO_GROUPS_FILE") + System.lineSeparator() + groupsFile.getPath());
         }
-        FileInputStream groupsInputStream = new FileInputStream(groupsFile);
-        try {
-            groupsRootDataNode = (Map<String, Object>) yamlGroups.load(new UnicodeReader(groupsInputStream));
-            if (groupsRootDataNode == null) {
-                throw new NullPointerException();
-            }
-        } catch (Exception ex) {
-            throw new IllegalArgumentException(String.format(Messages.getString("WorldDatHolder.ERROR_INVALID_FILE"), groupsFile.getPath(), ex));
-        } finally {
-            groupsInputStream.close();
-        }
-
-        // PROCESS GROUPS FILE
 
         Map<String, List<String>> inheritance = new HashMap<String, List<String>>();
         Map<String, Object> allGroupsNode = null;
@@ -621,11 +1113,13 @@ public class WorldDataHolder {
          * Fetch all groups under the 'groups' entry.
          */
         try {
-            allGroupsNode = (Map<String, Object>) groupsRootDataNode.get("groups");
+            allGroupsNode = DataStorages.readEntries(DataStorages.forFile(groupsFile).openReader(groupsFile, "groups"));
         } catch (Exception ex) {
             throw new IllegalArgumentException(String.format(Messages.getString("WorldDatHolder.ERROR_INVALID_FILE"), groupsFile.getPath()), ex);
         }
 
+        // PROCESS GROUPS FILE
+
         if (allGroupsNode == null) {
             throw new IllegalArgumentException(String.format(Messages.getString("WorldDatHolder.ERROR_NO_GROUPS"), groupsFile.getPath()));
         }
@@ -871,7 +1365,7 @@ public class WorldDataHolder {
         ph.removeGroupsChangedFlag();
         // Update the LastModified time.
         ph.setGroupsFile(groupsFile);
-        ph.setTimeStampGroups(groupsFile.lastModified());
+        ph.stampGroupsFile();
 
         // return ph;
     }
@@ -884,54 +1378,54 @@ public class WorldDataHolder {
      * @throws FileNotFoundException
      * @throws IOException
      */
-    @SuppressWarnings({"rawtypes", "unchecked"})
     protected static void loadUsers(WorldDataHolder ph, File usersFile) throws FileNotFoundException, IOException {
 
-        // READ USERS FILE
-        Yaml yamlUsers = new Yaml(new SafeConstructor());
-        Map<String, Object> usersRootDataNode;
-        if (!usersFile.exists()) {
-            throw new IllegalArgumentException(Messages.getString("WorldDatHolder.ERROR_NO_USERS_FILE") + System.lineSeparator() + usersFile.getPath());
-        }
-        FileInputStream usersInputStream = new FileInputStream(usersFile);
+        ph.beginBatch();
         try {
-            usersRootDataNode = (Map<String, Object>) yamlUsers.load(new UnicodeReader(usersInputStream));
-            if (usersRootDataNode == null) {
-                throw new NullPointerException();
-            }
-        } catch (Exception ex) {
-            throw new IllegalArgumentException(String.format(Messages.getString("WorldDatHolder.ERROR_INVALID_FILE"), usersFile.getPath()), ex);
+            readUsers(ph, usersFile);
         } finally {
-            usersInputStream.close();
+            ph.endBatch();
         }
+    }
 
-        // PROCESS USERS FILE
-
-        Map<String, Object> allUsersNode = null;
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static void readUsers(WorldDataHolder ph, File usersFile) throws FileNotFoundException, IOException {
 
+        // READ USERS FILE
+        if (!usersFile.exists()) {
+            throw new IllegalArgumentException(Messages.getString("WorldDatHolder.ERROR_NO_USERS_FILE") + System.lineSeparator() + usersFile.getPath());
+        }
         /*
-         * Fetch all child nodes under the 'users' entry.
+         * Stream the users from the file one at a time,
+         * rather than loading the whole file into memory.
          */
+        DataEntryReader usersReader = null;
         try {
-            allUsersNode = (Map<String, Object>) usersRootDataNode.get("users");
-        } catch (Exception ex) {
-            throw new IllegalArgumentException(String.format(Messages.getString("WorldDatHolder.ERROR_INVALID_FILE"), usersFile.getPath()), ex);
-        }
+            boolean hasUsers;
+
+            /*
+             * Fetch all child nodes under the 'users' entry.
+             */
+            try {
+                usersReader = DataStorages.forFile(usersFile).openReader(usersFile, "users");
 
-        // Load users if the file is NOT empty
+                hasUsers = usersReader.open();
+            } catch (Exception ex) {
+                throw new IllegalArgumentException(String.format(Messages.getString("WorldDatHolder.ERROR_INVALID_FILE"), usersFile.getPath()), ex);
+            }
 
-        if (allUsersNode != null) {
+            // PROCESS USERS FILE
 
-            Iterator<String> usersItr = allUsersNode.keySet().iterator();
             String usersKey;
             Object node;
             Integer userCount = 0;
 
-            while (usersItr.hasNext()) {
+            // Load users if the file is NOT empty
+            while (hasUsers && readNextUser(usersReader, usersFile)) {
                 try {
                     userCount++;
                     // Attempt to fetch the next user name.
-                    node = usersItr.next();
+                    node = usersReader.getKey();
                     if (node instanceof Integer)
                         usersKey = Integer.toString((Integer) node);
                     else
@@ -943,7 +1437,7 @@ public class WorldDataHolder {
 
                 Map<String, Object> thisUserNode = null;
                 try {
-                    thisUserNode = (Map<String, Object>) allUsersNode.get(node);
+                    thisUserNode = (Map<String, Object>) usersReader.getValue();
                 } catch (Exception ex) {
                     throw new IllegalArgumentException(String.format(Messages.getString("WorldDatHolder.ERROR_INVALID_FORMAT_FOR_USER"), usersKey, usersFile.getPath()));
                 }
@@ -1140,11 +1634,29 @@ public class WorldDataHolder {
                         }
                     }
                 }
-            }
+        } finally {
+            closeQuietly(usersReader);
+        }
 		ph.removeUsersChangedFlag();
 		// Update the LastModified time.
 		ph.setUsersFile(usersFile);
-		ph.setTimeStampUsers(usersFile.lastModified());
+		ph.stampUsersFile();
+	}
+
+	/**
+	 * Advance the reader to the next user entry.
+	 *
+	 * @param usersReader
+	 * @param usersFile
+	 * @return true if there is another user to process.
+	 */
+	private static boolean readNextUser(DataEntryReader usersReader, File usersFile) {
+
+		try {
+			return usersReader.next();
+		} catch (Exception ex) {
+			throw new IllegalArgumentException(String.format(Messages.getString("WorldDatHolder.ERROR_INVALID_FILE"), usersFile.getPath()), ex);
+		}
 	}
 
 	/**
@@ -1155,17 +1667,63 @@ public class WorldDataHolder {
 	 */
 	public static void writeGroups(WorldDataHolder ph, File groupsFile) {
 
-		Map<String, Object> root = new HashMap<String, Object>();
+		exportGroups(ph, groupsFile);
+
+		// Update the LastModified time.
+		ph.setGroupsFile(groupsFile);
+		ph.stampGroupsFile();
+		ph.removeGroupsChangedFlag();
+
+		if (GroupManager.isLoaded())
+			GroupManager.getGMEventHandler().callEvent(GMSystemEvent.Action.SAVED);
+
+		/*
+		 * FileWriter tx = null; try { tx = new FileWriter(groupsFile, false);
+		 * tx.write(yaml.dump(root)); tx.flush(); } catch (Exception e) { }
+		 * finally { try { tx.close(); } catch (IOException ex) { } }
+		 */
+	}
 
-		Map<String, Object> groupsMap = new HashMap<String, Object>();
+	/**
+	 * Write the groups of a dataHolder to a file, in the storage
+	 * its file name is for. The dataHolder's own file is unchanged.
+	 *
+	 * @param ph
+	 * @param groupsFile
+	 */
+	public static void exportGroups(WorldDataHolder ph, File groupsFile) {
+
+		DataEntryWriter yaml = null;
+		try {
+			yaml = openWriter(groupsFile);
+
+			String newLine = System.getProperty("line.separator");
+
+			yaml.writeHeader("# Group inheritance" + newLine);
+			yaml.writeHeader("#" + newLine);
+			yaml.writeHeader("# Any inherited groups prefixed with a g: are global groups" + newLine);
+			yaml.writeHeader("# and are inherited from the GlobalGroups.yml." + newLine);
+			yaml.writeHeader("#" + newLine);
+			yaml.writeHeader("# Groups without the g: prefix are groups local to this world" + newLine);
+			yaml.writeHeader("# and are defined in the this groups.yml file." + newLine);
+			yaml.writeHeader("#" + newLine);
+			yaml.writeHeader("# Local group inheritances define your promotion tree when using 'manpromote/mandemote'" + newLine);
+			yaml.writeHeader(newLine);
+
+			yaml.startRoot("groups");
+			/*
+			 * Groups are written in the same order
+			 * as a HashMap of their names.
+			 */
+			Map<String, Group> groupsMap = new HashMap<String, Group>();
+
+			for (Group group : ph.getGroups().values()) {
+				groupsMap.put(group.getName(), group);
+			}
 
-		root.put("groups", groupsMap);
-		synchronized (ph.getGroups()) {
-			for (String groupKey : ph.getGroups().keySet()) {
-				Group group = ph.getGroups().get(groupKey);
+			for (Group group : groupsMap.values()) {
 
 				Map<String, Object> aGroupMap = new HashMap<String, Object>();
-				groupsMap.put(group.getName(), aGroupMap);
 
 				if (ph.getDefaultGroup() == null) {
 					GroupManager.logger.severe(Messages.getString("WorldDatHolder.WARN_NO_DEFAULT_GROUP") + ph.getName());
@@ -1182,128 +1740,186 @@ public class WorldDataHolder {
 				aGroupMap.put("inheritance", group.getInherits());
 
 				aGroupMap.put("permissions", group.getSavePermissionList());
-			}
-		}
 
-		if (!root.isEmpty()) {
-			DumperOptions opt = new DumperOptions();
-			opt.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
-			final Yaml yaml = new Yaml(opt);
-			try {
-				OutputStreamWriter out = new OutputStreamWriter(new FileOutputStream(groupsFile), "UTF-8");
-
-				String newLine = System.getProperty("line.separator");
-
-				out.write("# Group inheritance" + newLine);
-				out.write("#" + newLine);
-				out.write("# Any inherited groups prefixed with a g: are global groups" + newLine);
-				out.write("# and are inherited from the GlobalGroups.yml." + newLine);
-				out.write("#" + newLine);
-				out.write("# Groups without the g: prefix are groups local to this world" + newLine);
-				out.write("# and are defined in the this groups.yml file." + newLine);
-				out.write("#" + newLine);
-				out.write("# Local group inheritances define your promotion tree when using 'manpromote/mandemote'" + newLine);
-				out.write(newLine);
-
-				yaml.dump(root, out);
-				out.close();
-			} catch (UnsupportedEncodingException ex) {
-			} catch (FileNotFoundException ex) {
-			} catch (IOException e) {
+				yaml.writeEntry(group.getName(), aGroupMap);
 			}
+			yaml.endRoot();
+
+		} catch (UnsupportedEncodingException ex) {
+		} catch (FileNotFoundException ex) {
+		} catch (IOException e) {
+		} finally {
+			closeQuietly(yaml);
 		}
+	}
+
+	/**
+	 * Write a dataHolder in a specified file
+	 *
+	 * @param ph
+	 * @param usersFile
+	 */
+	public static void writeUsers(WorldDataHolder ph, File usersFile) {
+
+		exportUsers(ph, usersFile);
 
 		// Update the LastModified time.
-		ph.setGroupsFile(groupsFile);
-		ph.setTimeStampGroups(groupsFile.lastModified());
-		ph.removeGroupsChangedFlag();
+		ph.setUsersFile(usersFile);
+		ph.stampUsersFile();
+		ph.removeUsersChangedFlag();
 
 		if (GroupManager.isLoaded())
 			GroupManager.getGMEventHandler().callEvent(GMSystemEvent.Action.SAVED);
 
-		/*
-		 * FileWriter tx = null; try { tx = new FileWriter(groupsFile, false);
-		 * tx.write(yaml.dump(root)); tx.flush(); } catch (Exception e) { }
-		 * finally { try { tx.close(); } catch (IOException ex) { } }
-		 */
 	}
 
 	/**
-	 * Write a dataHolder in a specified file
+	 * Write the users of a dataHolder to a file, in the storage
+	 * its file name is for. The dataHolder's own file is unchanged.
 	 *
 	 * @param ph
 	 * @param usersFile
 	 */
-	public static void writeUsers(WorldDataHolder ph, File usersFile) {
-
-		Map<String, Object> root = new HashMap<String, Object>();
-		LinkedHashMap<String, Object> usersMap = new LinkedHashMap<String, Object>();
+	public static void exportUsers(WorldDataHolder ph, File usersFile) {
 
-		root.put("users", usersMap);
-		synchronized (ph.getUsers()) {
+		DataEntryWriter yaml = null;
+		try {
+			yaml = openWriter(usersFile);
 
+			yaml.startRoot("users");
 			// A sorted list of users.
-			for (String userKey : new TreeSet<String>(ph.getUsers().keySet())) {
-				User user = ph.getUsers().get(userKey);
-				if ((user.getGroup() == null || user.getGroup().equals(ph.getDefaultGroup())) && user.getPermissionList().isEmpty() && user.getVariables().isEmpty() && user.isSubGroupsEmpty()) {
-					continue;
-				}
+			List<User> sortedUsers = new ArrayList<User>(new TreeMap<String, User>(ph.getUsers()).values());
 
-				LinkedHashMap<String, Object> aUserMap = new LinkedHashMap<String, Object>();
-				usersMap.put(user.getUUID(), aUserMap);
+			// Only the yml output is slow enough to be worth splitting.
+			if (sortedUsers.size() <= USERS_PER_CHUNK || !(yaml instanceof YamlDataWriter)) {
+				writeUserEntries(ph, yaml, sortedUsers);
+			} else {
+				writeUserChunks(ph, (YamlDataWriter) yaml, sortedUsers);
+			}
+			yaml.endRoot();
 
-				if (!user.getUUID().equalsIgnoreCase(user.getLastName())) {
-					aUserMap.put("lastname", user.getLastName());
-				}
+		} catch (UnsupportedEncodingException ex) {
+		} catch (FileNotFoundException ex) {
+		} catch (IOException e) {
+		} finally {
+			closeQuietly(yaml);
+		}
+	}
 
-				// GROUP NODE
-				if (user.getGroup() == null) {
-					aUserMap.put("group", ph.getDefaultGroup().getName());
-				} else {
-					aUserMap.put("group", user.getGroup().getName());
-				}
+	/**
+	 * Serialize large user sets in chunks on the ForkJoin common pool.
+	 * Chunks are written in order, so the file is the same as
+	 * writing every user in turn.
+	 *
+	 * @param ph
+	 * @param yaml
+	 * @param sortedUsers
+	 * @throws IOException
+	 */
+	private static void writeUserChunks(final WorldDataHolder ph, final YamlDataWriter yaml, List<User> sortedUsers) throws IOException {
+
+		ForkJoinPool pool = ForkJoinPool.commonPool();
+		// Limit how many finished chunks can be waiting to be written.
+		int maxPending = Math.max(2, pool.getParallelism() * 2);
+		Deque<ForkJoinTask<String>> pending = new ArrayDeque<ForkJoinTask<String>>();
+
+		for (int start = 0; start < sortedUsers.size(); start += USERS_PER_CHUNK) {
+			final List<User> chunk = sortedUsers.subList(start, Math.min(start + USERS_PER_CHUNK, sortedUsers.size()));
 
-				// SUBGROUPS NODE
-				aUserMap.put("subgroups", user.getSaveSubGroupsList());
+			pending.add(pool.submit(new Callable<String>() {
 
-				// PERMISSIONS NODE
-				aUserMap.put("permissions", user.getSavePermissionList());
+				@Override
+				public String call() throws IOException {
 
-				// USER INFO NODE - BETA
-				if (user.getVariables().getSize() > 0) {
-					Map<String, Object> infoMap = new HashMap<String, Object>();
-					aUserMap.put("info", infoMap);
-					for (String infoKey : user.getVariables().getVarKeyList()) {
-						infoMap.put(infoKey, user.getVariables().getVarObject(infoKey));
-					}
+					StringWriter out = new StringWriter();
+					writeUserEntries(ph, yaml.entryWriter(out), chunk);
+					return out.toString();
 				}
-				// END USER INFO NODE - BETA
+			}));
 
-			}
+			if (pending.size() >= maxPending)
+				yaml.writeEntries(pending.poll().join());
 		}
 
-		if (!root.isEmpty()) {
-			DumperOptions opt = new DumperOptions();
-			opt.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
-			final Yaml yaml = new Yaml(opt);
-			try {
-				OutputStreamWriter out = new OutputStreamWriter(new FileOutputStream(usersFile), "UTF-8");
-				yaml.dump(root, out);
-				out.close();
-			} catch (UnsupportedEncodingException ex) {
-			} catch (FileNotFoundException ex) {
-			} catch (IOException e) {
+		while (!pending.isEmpty())
+			yaml.writeEntries(pending.poll().join());
+	}
+
+	/**
+	 * Write each user that has anything to save.
+	 *
+	 * @param ph
+	 * @param yaml
+	 * @param users
+	 * @throws IOException
+	 */
+	private static void writeUserEntries(WorldDataHolder ph, DataEntryWriter yaml, List<User> users) throws IOException {
+
+		for (User user : users) {
+			if ((user.getGroup() == null || user.getGroup().equals(ph.getDefaultGroup())) && user.getPermissionList().isEmpty() && user.getVariables().isEmpty() && user.isSubGroupsEmpty()) {
+				continue;
+			}
+
+			LinkedHashMap<String, Object> aUserMap = new LinkedHashMap<String, Object>();
+
+			if (!user.getUUID().equalsIgnoreCase(user.getLastName())) {
+				aUserMap.put("lastname", user.getLastName());
+			}
+
+			// GROUP NODE
+			if (user.getGroup() == null) {
+				aUserMap.put("group", ph.getDefaultGroup().getName());
+			} else {
+				aUserMap.put("group", user.getGroup().getName());
+			}
+
+			// SUBGROUPS NODE
+			aUserMap.put("subgroups", user.getSaveSubGroupsList());
+
+			// PERMISSIONS NODE
+			aUserMap.put("permissions", user.getSavePermissionList());
+
+			// USER INFO NODE - BETA
+			if (user.getVariables().getSize() > 0) {
+				Map<String, Object> infoMap = new HashMap<String, Object>();
+				aUserMap.put("info", infoMap);
+				for (String infoKey : user.getVariables().getVarKeyList()) {
+					infoMap.put(infoKey, user.getVariables().getVarObject(infoKey));
+				}
 			}
+			// END USER INFO NODE - BETA
+
+			// Each user is written out as soon as it's built.
+			yaml.writeEntry(user.getUUID(), aUserMap);
 		}
+	}
 
-		// Update the LastModified time.
-		ph.setUsersFile(usersFile);
-		ph.setTimeStampUsers(usersFile.lastModified());
-		ph.removeUsersChangedFlag();
+	/**
+	 * Open a writer for the storage this file is named for.
+	 *
+	 * @param file
+	 * @return	a DataEntryWriter for this file's storage.
+	 * @throws IOException
+	 */
+	private static DataEntryWriter openWriter(File file) throws IOException {
 
-		if (GroupManager.isLoaded())
-			GroupManager.getGMEventHandler().callEvent(GMSystemEvent.Action.SAVED);
+		return DataStorages.forFile(file).openWriter(file);
+	}
 
+	/**
+	 * Close a writer, ignoring any error as the save methods always have.
+	 *
+	 * @param closeable
+	 */
+	private static void closeQuietly(Closeable closeable) {
+
+		if (closeable == null)
+			return;
+
+		try {
+			closeable.close();
+		} catch (IOException e) {
+		}
 	}
 
 	/**
@@ -1352,6 +1968,8 @@ public class WorldDataHolder {
 	public void setUsersChanged(boolean haveUsersChanged) {
 
 		users.setUsersChanged(haveUsersChanged);
+		if (haveUsersChanged)
+			invalidateSnapshot();
 	}
 
 	/**
@@ -1363,11 +1981,9 @@ public class WorldDataHolder {
 		if (users.HaveUsersChanged()) {
 			return true;
 		}
-		synchronized (users) {
-			for (User u : users.getUsers().values()) {
-				if (u.isChanged()) {
-					return true;
-				}
+		for (User u : users.getUsers().values()) {
+			if (u.isChanged()) {
+				return true;
 			}
 		}
 		return false;
@@ -1379,6 +1995,8 @@ public class WorldDataHolder {
 	public void setGroupsChanged(boolean setGroupsChanged) {
 
 		groups.setGroupsChanged(setGroupsChanged);
+		if (setGroupsChanged)
+			invalidateSnapshot();
 	}
 
 	/**
@@ -1390,11 +2008,9 @@ public class WorldDataHolder {
 		if (groups.HaveGroupsChanged()) {
 			return true;
 		}
-		synchronized (groups) {
-			for (Group g : groups.getGroups().values()) {
-				if (g.isChanged()) {
-					return true;
-				}
+		for (Group g : groups.getGroups().values()) {
+			if (g.isChanged()) {
+				return true;
 			}
 		}
 		return false;
@@ -1406,10 +2022,8 @@ public class WorldDataHolder {
 	public void removeUsersChangedFlag() {
 
 		setUsersChanged(false);
-		synchronized (users) {
-			for (User u : getUsers().values()) {
-				u.flagAsSaved();
-			}
+		for (User u : getUsers().values()) {
+			u.flagAsSaved();
 		}
 	}
 
@@ -1419,44 +2033,11 @@ public class WorldDataHolder {
 	public void removeGroupsChangedFlag() {
 
 		setGroupsChanged(false);
-		synchronized (groups) {
-			for (Group g : getGroups().values()) {
-				g.flagAsSaved();
-			}
+		for (Group g : getGroups().values()) {
+			g.flagAsSaved();
 		}
 	}
 
-	/**
-	 * Searches all groups and users for expired permissions
-	 * Removes those perms and flags the object for saving.
-	 */
-	public boolean purgeTimedPermissions() {
-
-		boolean expired = false;
-
-		synchronized (groups) {
-
-			for (Group group : getGroups().values()) {
-				if (group.removeExpired()) {
-					setGroupsChanged(true);
-					expired = true;
-				}
-			}
-		}
-
-		synchronized (users) {
-
-			for (User user : getUsers().values()) {
-				if (user.removeExpired()) {
-					setUsersChanged(true);
-					expired = true;
-				}
-			}
-		}
-
-		return expired;
-	}
-
 	/**
 	 * @return the usersFile
 	 */
@@ -1516,7 +2097,7 @@ public class WorldDataHolder {
 	}
 
 	/**
-	 * Note: Iteration over this object has to be synchronized!
+	 * Iteration is weakly consistent and needs no locking.
 	 *
 	 * @return the groups
 	 */
@@ -1526,7 +2107,7 @@ public class WorldDataHolder {
 	}
 
 	/**
-	 * Note: Iteration over this object has to be synchronized!
+	 * Iteration is weakly consistent and needs no locking.
 	 *
 	 * @return the users
 	 */
@@ -1602,9 +2183,69 @@ public class WorldDataHolder {
 	public void setTimeStamps() {
 
 		if (getGroupsFile() != null)
-			setTimeStampGroups(getGroupsFile().lastModified());
+			stampGroupsFile();
 		if (getUsersFile() != null)
-			setTimeStampUsers(getUsersFile().lastModified());
+			stampUsersFile();
+	}
+
+	/**
+	 * Record the modified time and content hash of the groups file.
+	 */
+	protected void stampGroupsFile() {
+
+		setTimeStampGroups(getGroupsFile().lastModified());
+		groups.setHashGroups(Tasks.hashFile(getGroupsFile()));
+	}
+
+	/**
+	 * Record the modified time and content hash of the users file.
+	 */
+	protected void stampUsersFile() {
+
+		setTimeStampUsers(getUsersFile().lastModified());
+		users.setHashUsers(Tasks.hashFile(getUsersFile()));
+	}
+
+	/**
+	 * Check if the groups file was changed by something other than us.
+	 * The file is only hashed if its modified time is newer than ours,
+	 * and a file which was only touched has its time stamp updated.
+	 *
+	 * @return true if the content differs from when we last loaded or saved it.
+	 */
+	public boolean isGroupsFileChanged() {
+
+		long modified = getGroupsFile().lastModified();
+
+		if (getTimeStampGroups() >= modified)
+			return false;
+
+		if (Tasks.hashFile(getGroupsFile()) != groups.getHashGroups())
+			return true;
+
+		setTimeStampGroups(modified);
+		return false;
+	}
+
+	/**
+	 * Check if the users file was changed by something other than us.
+	 * The file is only hashed if its modified time is newer than ours,
+	 * and a file which was only touched has its time stamp updated.
+	 *
+	 * @return true if the content differs from when we last loaded or saved it.
+	 */
+	public boolean isUsersFileChanged() {
+
+		long modified = getUsersFile().lastModified();
+
+		if (getTimeStampUsers() >= modified)
+			return false;
+
+		if (Tasks.hashFile(getUsersFile()) != users.getHashUsers())
+			return true;
+
+		setTimeStampUsers(modified);
+		return false;
 	}
 
 	/** Name to UUID lookups **/
@@ -1617,14 +2258,16 @@ public class WorldDataHolder {
 	 */
 	public void putUUIDLookup(String name, String UUID) {
 
-		Set<String> lookup = getUUIDLookup(name.toLowerCase());
+		synchronized (nameToUUIDLookup) {
+			Set<String> lookup = getUUIDLookup(name.toLowerCase());
 
-		if (lookup == null)
-			lookup = new TreeSet<String>();
+			if (lookup == null)
+				lookup = new TreeSet<String>();
 
-		lookup.add(UUID);
+			lookup.add(UUID);
 
-		nameToUUIDLookup.put(name.toLowerCase(), lookup);
+			nameToUUIDLookup.put(name.toLowerCase(), lookup);
+		}
 	}
 
 	/**
@@ -1636,19 +2279,21 @@ public class WorldDataHolder {
 	 */
 	public void removeUUIDLookup(String name, String UUID) {
 
-		if (nameToUUIDLookup.containsKey(name.toLowerCase())) {
+		synchronized (nameToUUIDLookup) {
+			if (nameToUUIDLookup.containsKey(name.toLowerCase())) {
 
-			Set<String> lookup = getUUIDLookup(name.toLowerCase());
+				Set<String> lookup = getUUIDLookup(name.toLowerCase());
 
-			lookup.remove(UUID);
+				lookup.remove(UUID);
 
-			if (lookup.isEmpty()) {
-				nameToUUIDLookup.remove(name.toLowerCase());
-				return;
-			}
+				if (lookup.isEmpty()) {
+					nameToUUIDLookup.remove(name.toLowerCase());
+					return;
+				}
 
-			nameToUUIDLookup.put(name.toLowerCase(), lookup);
+				nameToUUIDLookup.put(name.toLowerCase(), lookup);
 
+			}
 		}
 
 	}
@@ -1656,11 +2301,16 @@ public class WorldDataHolder {
 	/**
 	 *
 	 * @param name
-	 * @return a Set of strings containing the User objects UUID (or name if they don't have a UUID)
+	 * @return a copy of the Set of strings containing the User objects UUID (or name if they don't have a UUID), or null.
 	 */
 	public Set<String> getUUIDLookup(String name) {
 
-		return nameToUUIDLookup.get(name.toLowerCase());
+		// Copied under the lock, as worlds read in parallel may be changing it.
+		synchronized (nameToUUIDLookup) {
+			Set<String> lookup = nameToUUIDLookup.get(name.toLowerCase());
+
+			return (lookup == null) ? null : new TreeSet<>(lookup);
+		}
 	}
 
 	/**
@@ -0,0 +1,66 @@
+/*
+ *  GroupManager - A plug-in for Spigot/Bukkit based Minecraft servers.
+ *  Copyright (C) 2020  ElgarL
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.anjocaido.groupmanager.dataholder.snapshot;
+
+/**
+ * Layout of a binary snapshot file.
+ * <p>
+ * A snapshot holds the same data as a users.yml or groups.yml:
+ * <pre>
+ * int     MAGIC
+ * short   VERSION
+ * string  root key ('users' or 'groups')
+ * entries, each one:
+ *   int   length of the entry in bytes
+ *   value entry key
+ *   value entry data
+ * int     END_OF_ENTRIES
+ * </pre>
+ * Strings are an int byte count followed by UTF-8. Values are a
+ * type byte followed by the data for that type.
+ * All numbers are big-endian.
+ *
+ * @author ElgarL
+ *
+ */
+public final class SnapshotFormat {
+
+	/**
+	 * File extension for snapshots, in place of '.yml'.
+	 */
+	public static final String EXTENSION = ".dat"; //$NON-NLS-1$
+
+	static final int MAGIC = 0x474D5344; // 'GMSD'
+	static final short VERSION = 1;
+	static final int END_OF_ENTRIES = -1;
+
+	static final byte NULL = 0;
+	static final byte STRING = 1;
+	static final byte BOOLEAN = 2;
+	static final byte INTEGER = 3;
+	static final byte LONG = 4;
+	static final byte DOUBLE = 5;
+	static final byte BIG_INTEGER = 6;
+	static final byte LIST = 7;
+	static final byte MAP = 8;
+	static final byte SET = 9;
+	static final byte DATE = 10;
+	static final byte BINARY = 11;
+
+	private SnapshotFormat() {}
+}
@@ -0,0 +1,278 @@
+/*
+ *  GroupManager - A plug-in for Spigot/Bukkit based Minecraft servers.
+ *  Copyright (C) 2020  ElgarL
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.anjocaido.groupmanager.dataholder.snapshot;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.anjocaido.groupmanager.dataholder.DataEntryReader;
+
+/**
+ * Reads a binary snapshot, see {@link SnapshotFormat}.
+ * <p>
+ * The file is read in a single pass into one buffer and entries
+ * are decoded from it as they are requested. The buffer is not
+ * memory-mapped, as a mapped file stays locked on some systems until
+ * garbage collected, which would block the next save.
+ *
+ * @author ElgarL
+ *
+ */
+public class SnapshotReader implements DataEntryReader {
+
+	private final ByteBuffer buffer;
+	private final String rootKey;
+
+	// Reused for decoding strings.
+	private byte[] scratch = new byte[64];
+
+	private Object key = null;
+	private Object value = null;
+
+	/**
+	 *
+	 * @param file	the snapshot to read.
+	 * @param rootKey	the root node expected ('users' or 'groups').
+	 * @throws IOException
+	 */
+	public SnapshotReader(File file, String rootKey) throws IOException {
+
+		this.rootKey = rootKey;
+
+		FileInputStream in = new FileInputStream(file);
+		try {
+			FileChannel channel = in.getChannel();
+			buffer = ByteBuffer.allocate((int) channel.size());
+
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer) < 0)
+					throw new EOFException();
+			}
+			buffer.flip();
+		} finally {
+			in.close();
+		}
+	}
+
+	private SnapshotReader(ByteBuffer buffer) {
+
+		this.rootKey = null;
+		this.buffer = buffer;
+	}
+
+	/**
+	 * Decode a single value written by {@link SnapshotWriter#encode(Object)}.
+	 *
+	 * @param data	the encoded bytes.
+	 * @return	the value, as a yml load would give it.
+	 * @throws IOException	if the data is damaged.
+	 */
+	public static Object decode(byte[] data) throws IOException {
+
+		SnapshotReader reader = new SnapshotReader(ByteBuffer.wrap(data));
+		Object value;
+
+		try {
+			value = reader.readValue();
+		} catch (RuntimeException ex) {
+			throw corrupt(ex);
+		}
+
+		if (reader.buffer.hasRemaining())
+			throw new StreamCorruptedException("Trailing data after value."); //$NON-NLS-1$
+
+		return value;
+	}
+
+	@Override
+	public boolean open() throws IOException {
+
+		try {
+			if (buffer.getInt() != SnapshotFormat.MAGIC)
+				throw new StreamCorruptedException("Not a GroupManager snapshot."); //$NON-NLS-1$
+
+			short version = buffer.getShort();
+			if (version != SnapshotFormat.VERSION)
+				throw new StreamCorruptedException("Unsupported snapshot version " + version); //$NON-NLS-1$
+
+			String root = readString();
+			if (!rootKey.equals(root))
+				throw new StreamCorruptedException("Expected a '" + rootKey + "' snapshot but found '" + root + "'."); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+		} catch (RuntimeException ex) {
+			throw corrupt(ex);
+		}
+		return true;
+	}
+
+	@Override
+	public boolean next() throws IOException {
+
+		try {
+			int length = buffer.getInt();
+
+			if (length == SnapshotFormat.END_OF_ENTRIES) {
+				key = null;
+				value = null;
+				return false;
+			}
+
+			int end = buffer.position() + length;
+
+			key = readValue();
+			value = readValue();
+
+			if (buffer.position() != end)
+				throw new StreamCorruptedException("Entry length mismatch for " + key); //$NON-NLS-1$
+
+		} catch (RuntimeException ex) {
+			throw corrupt(ex);
+		}
+		return true;
+	}
+
+	@Override
+	public Object getKey() {
+
+		return key;
+	}
+
+	@Override
+	public Object getValue() {
+
+		return value;
+	}
+
+	/**
+	 * The file is fully read on creation, so there is nothing to release.
+	 */
+	@Override
+	public void close() {
+
+	}
+
+	private Object readValue() throws StreamCorruptedException {
+
+		byte type = buffer.get();
+
+		switch (type) {
+
+		case SnapshotFormat.NULL:
+			return null;
+
+		case SnapshotFormat.STRING:
+			return readString();
+
+		case SnapshotFormat.BOOLEAN:
+			return buffer.get() != 0;
+
+		case SnapshotFormat.INTEGER:
+			return buffer.getInt();
+
+		case SnapshotFormat.LONG:
+			return buffer.getLong();
+
+		case SnapshotFormat.DOUBLE:
+			return buffer.getDouble();
+
+		case SnapshotFormat.BIG_INTEGER:
+			return new BigInteger(readString());
+
+		case SnapshotFormat.DATE:
+			return new Date(buffer.getLong());
+
+		case SnapshotFormat.BINARY:
+			byte[] bytes = new byte[readCount()];
+			buffer.get(bytes);
+			return bytes;
+
+		case SnapshotFormat.LIST:
+			int size = readCount();
+			List<Object> list = new ArrayList<Object>(size);
+
+			for (int i = 0; i < size; i++)
+				list.add(readValue());
+			return list;
+
+		case SnapshotFormat.SET:
+			size = readCount();
+			Set<Object> set = new LinkedHashSet<Object>();
+
+			for (int i = 0; i < size; i++)
+				set.add(readValue());
+			return set;
+
+		case SnapshotFormat.MAP:
+			size = readCount();
+			Map<Object, Object> map = new LinkedHashMap<Object, Object>();
+
+			for (int i = 0; i < size; i++) {
+				Object mapKey = readValue();
+				map.put(mapKey, readValue());
+			}
+			return map;
+
+		default:
+			throw new StreamCorruptedException("Unknown value type " + type); //$NON-NLS-1$
+		}
+	}
+
+	private String readString() throws StreamCorruptedException {
+
+		int length = readCount();
+
+		if (scratch.length < length)
+			scratch = new byte[Math.max(length, scratch.length * 2)];
+
+		buffer.get(scratch, 0, length);
+		return new String(scratch, 0, length, StandardCharsets.UTF_8);
+	}
+
+	/*
+	 * A count can never be more than the bytes left,
+	 * so a damaged file can't cause a huge allocation.
+	 */
+	private int readCount() throws StreamCorruptedException {
+
+		int count = buffer.getInt();
+
+		if (count < 0 || count > buffer.remaining())
+			throw new StreamCorruptedException("Invalid length " + count); //$NON-NLS-1$
+
+		return count;
+	}
+
+	private static IOException corrupt(RuntimeException ex) {
+
+		return new StreamCorruptedException("Snapshot is truncated or damaged: " + ex); //$NON-NLS-1$
+	}
+}
@@ -0,0 +1,188 @@
+/*
+ *  GroupManager - A plug-in for Spigot/Bukkit based Minecraft servers.
+ *  Copyright (C) 2020  ElgarL
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.anjocaido.groupmanager.dataholder.snapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.anjocaido.groupmanager.dataholder.DataEntryWriter;
+
+/**
+ * Writes a binary snapshot, see {@link SnapshotFormat}.
+ * <p>
+ * Values are stored as the types a yml would load them back as,
+ * so a snapshot and a yml of the same data are interchangeable.
+ *
+ * @author ElgarL
+ *
+ */
+public class SnapshotWriter implements DataEntryWriter {
+
+	private final DataOutputStream out;
+
+	// Each entry is built here first so its length can be written ahead of it.
+	private final ByteArrayOutputStream entryBytes = new ByteArrayOutputStream();
+	private final DataOutputStream entry = new DataOutputStream(entryBytes);
+
+	/**
+	 *
+	 * @param file	the snapshot file to create.
+	 * @throws IOException
+	 */
+	public SnapshotWriter(File file) throws IOException {
+
+		this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+	}
+
+	/**
+	 * Snapshots have no comments.
+	 */
+	@Override
+	public void writeHeader(String text) {
+
+	}
+
+	@Override
+	public void startRoot(String key) throws IOException {
+
+		out.writeInt(SnapshotFormat.MAGIC);
+		out.writeShort(SnapshotFormat.VERSION);
+		writeString(out, key);
+	}
+
+	@Override
+	public void writeEntry(String key, Map<String, Object> value) throws IOException {
+
+		entryBytes.reset();
+		writeValue(entry, key);
+		writeValue(entry, value);
+
+		out.writeInt(entryBytes.size());
+		entryBytes.writeTo(out);
+	}
+
+	@Override
+	public void endRoot() throws IOException {
+
+		out.writeInt(SnapshotFormat.END_OF_ENTRIES);
+	}
+
+	@Override
+	public void close() throws IOException {
+
+		out.close();
+	}
+
+	/**
+	 * Encode a single value in the snapshot value format.
+	 *
+	 * @param value
+	 * @return	the encoded bytes, for {@link SnapshotReader#decode(byte[])}.
+	 * @throws IOException
+	 */
+	public static byte[] encode(Object value) throws IOException {
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		writeValue(new DataOutputStream(bytes), value);
+		return bytes.toByteArray();
+	}
+
+	private static void writeValue(DataOutputStream out, Object value) throws IOException {
+
+		if (value == null) {
+			out.writeByte(SnapshotFormat.NULL);
+
+		} else if (value instanceof String || value instanceof Character) {
+			out.writeByte(SnapshotFormat.STRING);
+			writeString(out, value.toString());
+
+		} else if (value instanceof Boolean) {
+			out.writeByte(SnapshotFormat.BOOLEAN);
+			out.writeBoolean((Boolean) value);
+
+		} else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+			out.writeByte(SnapshotFormat.INTEGER);
+			out.writeInt(((Number) value).intValue());
+
+		} else if (value instanceof Long) {
+			out.writeByte(SnapshotFormat.LONG);
+			out.writeLong((Long) value);
+
+		} else if (value instanceof Double || value instanceof Float) {
+			out.writeByte(SnapshotFormat.DOUBLE);
+			out.writeDouble(((Number) value).doubleValue());
+
+		} else if (value instanceof BigInteger) {
+			out.writeByte(SnapshotFormat.BIG_INTEGER);
+			writeString(out, value.toString());
+
+		} else if (value instanceof Date) {
+			out.writeByte(SnapshotFormat.DATE);
+			out.writeLong(((Date) value).getTime());
+
+		} else if (value instanceof byte[]) {
+			byte[] bytes = (byte[]) value;
+			out.writeByte(SnapshotFormat.BINARY);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+
+		} else if (value instanceof Map) {
+			Map<?, ?> map = (Map<?, ?>) value;
+			out.writeByte(SnapshotFormat.MAP);
+			out.writeInt(map.size());
+
+			for (Map.Entry<?, ?> entry : map.entrySet()) {
+				writeValue(out, entry.getKey());
+				writeValue(out, entry.getValue());
+			}
+
+		} else if (value instanceof List || value instanceof Set) {
+			Collection<?> collection = (Collection<?>) value;
+			out.writeByte((value instanceof Set) ? SnapshotFormat.SET : SnapshotFormat.LIST);
+			out.writeInt(collection.size());
+
+			for (Object item : collection)
+				writeValue(out, item);
+
+		} else {
+			// Anything else is kept as its text.
+			out.writeByte(SnapshotFormat.STRING);
+			writeString(out, value.toString());
+		}
+	}
+
+	private static void writeString(DataOutputStream out, String text) throws IOException {
+
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+}
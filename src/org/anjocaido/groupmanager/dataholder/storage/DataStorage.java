@@ -0,0 +1,72 @@
+/*
+ *  GroupManager - A plug-in for Spigot/Bukkit based Minecraft servers.
+ *  Copyright (C) 2020  ElgarL
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.anjocaido.groupmanager.dataholder.storage;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.anjocaido.groupmanager.dataholder.DataEntryReader;
+import org.anjocaido.groupmanager.dataholder.DataEntryWriter;
+
+/**
+ * A way of storing the groups or users data of a world.
+ * <p>
+ * Each data file holds a single root node ('groups' or 'users')
+ * of named entries. The storage used for a file is chosen by its
+ * extension, see {@link DataStorages}.
+ *
+ * @author ElgarL
+ *
+ */
+public interface DataStorage {
+
+	/**
+	 * @return the name this format is selected by in config.yml.
+	 */
+	public String getFormat();
+
+	/**
+	 * @return the file extension this storage uses, including the dot.
+	 */
+	public String getExtension();
+
+	/**
+	 * @param file
+	 * @return true if this file is held in this storage.
+	 */
+	public boolean handles(File file);
+
+	/**
+	 * Open a reader over every entry in a root node.
+	 *
+	 * @param file	the data file.
+	 * @param rootKey	'groups' or 'users'.
+	 * @return	a DataEntryReader which must be closed.
+	 * @throws IOException
+	 */
+	public DataEntryReader openReader(File file, String rootKey) throws IOException;
+
+	/**
+	 * Open a writer to replace the whole contents of a data file.
+	 *
+	 * @param file	the data file.
+	 * @return	a DataEntryWriter which must be closed.
+	 * @throws IOException
+	 */
+	public DataEntryWriter openWriter(File file) throws IOException;
+}
@@ -0,0 +1,144 @@
+/*
+ *  GroupManager - A plug-in for Spigot/Bukkit based Minecraft servers.
+ *  Copyright (C) 2020  ElgarL
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.anjocaido.groupmanager.dataholder.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.anjocaido.groupmanager.dataholder.DataEntryReader;
+
+/**
+ * The registered DataStorage implementations.
+ * <p>
+ * Other plugins may register their own storage, which
+ * can then be selected per world in config.yml.
+ *
+ * @author ElgarL
+ *
+ */
+public final class DataStorages {
+
+	/**
+	 * The default storage, used for any file no other storage handles.
+	 */
+	public static final DataStorage YAML = new YamlStorage();
+
+	private static final List<DataStorage> storages = new CopyOnWriteArrayList<DataStorage>();
+
+	static {
+		register(YAML);
+		register(new SnapshotStorage());
+		register(new SqlStorage());
+	}
+
+	private DataStorages() {}
+
+	/**
+	 * Add a storage, replacing any with the same format name.
+	 *
+	 * @param storage
+	 */
+	public static void register(DataStorage storage) {
+
+		DataStorage existing = forFormat(storage.getFormat());
+
+		if (existing != null)
+			storages.remove(existing);
+
+		storages.add(storage);
+	}
+
+	/**
+	 * @param format	the format name from config.yml.
+	 * @return	the DataStorage for this format, or null if there is none.
+	 */
+	public static DataStorage forFormat(String format) {
+
+		for (DataStorage storage : storages)
+			if (storage.getFormat().equalsIgnoreCase(format))
+				return storage;
+
+		return null;
+	}
+
+	/**
+	 * @param file	a users or groups data file.
+	 * @return	the DataStorage holding this file.
+	 */
+	public static DataStorage forFile(File file) {
+
+		for (DataStorage storage : storages)
+			if ((storage != YAML) && storage.handles(file))
+				return storage;
+
+		return YAML;
+	}
+
+	/**
+	 * @param file	a users or groups data file.
+	 * @return	true if this file is a plain yml.
+	 */
+	public static boolean isYaml(File file) {
+
+		return forFile(file) == YAML;
+	}
+
+	/**
+	 * @param file	a users or groups data file.
+	 * @param storage	the storage wanted.
+	 * @return	the file of the same name, in the same folder, for this storage.
+	 */
+	public static File toStorage(File file, DataStorage storage) {
+
+		String name = file.getName();
+		int dot = name.lastIndexOf('.');
+
+		if (dot >= 0)
+			name = name.substring(0, dot);
+
+		return new File(file.getParentFile(), name + storage.getExtension());
+	}
+
+	/**
+	 * Read every entry from a reader, then close it.
+	 *
+	 * @param reader
+	 * @return	the entries in the order read, or null if the root node is missing.
+	 * @throws IOException
+	 */
+	public static Map<String, Object> readEntries(DataEntryReader reader) throws IOException {
+
+		try {
+			if (!reader.open())
+				return null;
+
+			Map<String, Object> entries = new LinkedHashMap<String, Object>();
+
+			while (reader.next())
+				entries.put(String.valueOf(reader.getKey()), reader.getValue());
+
+			return entries;
+		} finally {
+			reader.close();
+		}
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ *  GroupManager - A plug-in for Spigot/Bukkit based Minecraft servers.
+ *  Copyright (C) 2020  ElgarL
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.anjocaido.groupmanager.dataholder.storage;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.anjocaido.groupmanager.dataholder.DataEntryReader;
+import org.anjocaido.groupmanager.dataholder.snapshot.SnapshotReader;
+
+/**
+ * Reads the rows of a {@link SqlStorage} table as entries.
+ *
+ * @author ElgarL
+ *
+ */
+class SqlEntryReader implements DataEntryReader {
+
+	private final Connection connection;
+	private final String rootKey;
+
+	private PreparedStatement select = null;
+	private ResultSet rows = null;
+
+	private Object key = null;
+	private Object value = null;
+
+	SqlEntryReader(Connection connection, String rootKey) {
+
+		this.connection = connection;
+		this.rootKey = rootKey;
+	}
+
+	@Override
+	public boolean open() throws IOException {
+
+		try {
+			if (!SqlStorage.hasTable(connection, rootKey))
+				return false;
+
+			select = connection.prepareStatement("SELECT id, data FROM " + SqlStorage.table(rootKey) + " ORDER BY id"); //$NON-NLS-1$ //$NON-NLS-2$
+			rows = select.executeQuery();
+
+		} catch (SQLException ex) {
+			throw new IOException(ex);
+		}
+		return true;
+	}
+
+	@Override
+	public boolean next() throws IOException {
+
+		try {
+			if (!rows.next()) {
+				key = null;
+				value = null;
+				return false;
+			}
+
+			key = rows.getString(1);
+			value = SnapshotReader.decode(rows.getBytes(2));
+
+		} catch (SQLException ex) {
+			throw new IOException(ex);
+		}
+		return true;
+	}
+
+	@Override
+	public Object getKey() {
+
+		return key;
+	}
+
+	@Override
+	public Object getValue() {
+
+		return value;
+	}
+
+	@Override
+	public void close() {
+
+		SqlStorage.closeQuietly(rows);
+		SqlStorage.closeQuietly(select);
+		SqlStorage.closeQuietly(connection);
+	}
+}
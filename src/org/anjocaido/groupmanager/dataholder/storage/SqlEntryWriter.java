@@ -0,0 +1,169 @@
+/*
+ *  GroupManager - A plug-in for Spigot/Bukkit based Minecraft servers.
+ *  Copyright (C) 2020  ElgarL
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.anjocaido.groupmanager.dataholder.storage;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.anjocaido.groupmanager.dataholder.DataEntryWriter;
+import org.anjocaido.groupmanager.dataholder.snapshot.SnapshotWriter;
+
+/**
+ * Replaces the contents of a {@link SqlStorage} table.
+ * <p>
+ * Only rows whose data has changed are written, and rows for entries
+ * no longer present are deleted, all in a single transaction. Nothing
+ * is committed unless the root is completed.
+ *
+ * @author ElgarL
+ *
+ */
+class SqlEntryWriter implements DataEntryWriter {
+
+	// Rows sent to the database in each batch.
+	private static final int BATCH_SIZE = 500;
+
+	private final Connection connection;
+
+	private PreparedStatement upsert = null;
+	private String rootKey = null;
+	private int batched = 0;
+	private boolean completed = false;
+
+	// The stored hash of every row not yet written, by lower case key.
+	private final Map<String, byte[]> stored = new HashMap<String, byte[]>();
+
+	SqlEntryWriter(Connection connection) throws IOException {
+
+		this.connection = connection;
+
+		try {
+			connection.setAutoCommit(false);
+		} catch (SQLException ex) {
+			SqlStorage.closeQuietly(connection);
+			throw new IOException(ex);
+		}
+	}
+
+	/**
+	 * A database has no comments.
+	 */
+	@Override
+	public void writeHeader(String text) {
+
+	}
+
+	@Override
+	public void startRoot(String key) throws IOException {
+
+		rootKey = key;
+
+		try {
+			SqlStorage.createTable(connection, rootKey);
+
+			PreparedStatement select = connection.prepareStatement("SELECT id, hash FROM " + SqlStorage.table(rootKey)); //$NON-NLS-1$
+			try {
+				ResultSet rows = select.executeQuery();
+
+				while (rows.next())
+					stored.put(rows.getString(1).toLowerCase(), rows.getBytes(2));
+			} finally {
+				select.close();
+			}
+
+			upsert = connection.prepareStatement(SqlStorage.upsertSql(rootKey));
+
+		} catch (SQLException ex) {
+			throw new IOException(ex);
+		}
+	}
+
+	@Override
+	public void writeEntry(String key, Map<String, Object> value) throws IOException {
+
+		byte[] data = SnapshotWriter.encode(value);
+		byte[] hash = SqlStorage.hash(key, data);
+
+		// Unchanged, so leave the row alone.
+		if (Arrays.equals(hash, stored.remove(key.toLowerCase())))
+			return;
+
+		try {
+			SqlStorage.bindEntry(upsert, key, value, data, hash);
+			upsert.addBatch();
+
+			if (++batched >= BATCH_SIZE) {
+				upsert.executeBatch();
+				batched = 0;
+			}
+		} catch (SQLException ex) {
+			throw new IOException(ex);
+		}
+	}
+
+	@Override
+	public void endRoot() throws IOException {
+
+		try {
+			if (batched > 0)
+				upsert.executeBatch();
+
+			// Anything not written this time has been removed.
+			if (!stored.isEmpty()) {
+				PreparedStatement delete = connection.prepareStatement(SqlStorage.deleteSql(rootKey));
+				try {
+					for (String key : stored.keySet()) {
+						delete.setString(1, key);
+						delete.addBatch();
+					}
+					delete.executeBatch();
+				} finally {
+					delete.close();
+				}
+				stored.clear();
+			}
+			completed = true;
+
+		} catch (SQLException ex) {
+			throw new IOException(ex);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+
+		try {
+			if (completed)
+				connection.commit();
+			else
+				connection.rollback();
+
+		} catch (SQLException ex) {
+			throw new IOException(ex);
+		} finally {
+			SqlStorage.closeQuietly(upsert);
+			SqlStorage.closeQuietly(connection);
+		}
+	}
+}
@@ -0,0 +1,197 @@
+/*
+ *  GroupManager - A plug-in for Spigot/Bukkit based Minecraft servers.
+ *  Copyright (C) 2020  ElgarL
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.anjocaido.groupmanager.dataholder.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+
+import org.anjocaido.groupmanager.dataholder.DataEntryReader;
+import org.anjocaido.groupmanager.dataholder.DataEntryWriter;
+
+/**
+ * An embedded SQLite database per data file.
+ * <p>
+ * Each file holds one table, named for its root node, with a row
+ * per entry. The entry data is stored in the snapshot value format
+ * along with a hash of it, so a save only writes the rows which
+ * have changed. Rows are keyed by UUID or group name, and hold the
+ * user's last name so the database can be read by name with other tools.
+ * <p>
+ * The SQLite driver ships with the server, so no extra
+ * download or external database is needed.
+ *
+ * @author ElgarL
+ *
+ */
+public class SqlStorage implements DataStorage {
+
+	/**
+	 * File extension for databases, in place of '.yml'.
+	 */
+	public static final String EXTENSION = ".db"; //$NON-NLS-1$
+
+	private static final String URL_PREFIX = "jdbc:sqlite:"; //$NON-NLS-1$
+
+	static {
+		try {
+			// Older drivers don't register themselves.
+			Class.forName("org.sqlite.JDBC"); //$NON-NLS-1$
+		} catch (ClassNotFoundException ignored) {
+		}
+	}
+
+	@Override
+	public String getFormat() {
+
+		return "sqlite"; //$NON-NLS-1$
+	}
+
+	@Override
+	public String getExtension() {
+
+		return EXTENSION;
+	}
+
+	@Override
+	public boolean handles(File file) {
+
+		return (file != null) && file.getName().toLowerCase().endsWith(EXTENSION);
+	}
+
+	@Override
+	public DataEntryReader openReader(File file, String rootKey) throws IOException {
+
+		return new SqlEntryReader(connect(file), rootKey);
+	}
+
+	@Override
+	public DataEntryWriter openWriter(File file) throws IOException {
+
+		return new SqlEntryWriter(connect(file));
+	}
+
+	static Connection connect(File file) throws IOException {
+
+		try {
+			return DriverManager.getConnection(URL_PREFIX + file.getAbsolutePath());
+		} catch (SQLException ex) {
+			throw new IOException(ex);
+		}
+	}
+
+	/*
+	 * Table names can't be bound as parameters,
+	 * so only accept plain names.
+	 */
+	static String table(String rootKey) {
+
+		if (!rootKey.matches("[a-z]+")) //$NON-NLS-1$
+			throw new IllegalArgumentException("Invalid root node " + rootKey); //$NON-NLS-1$
+
+		return rootKey;
+	}
+
+	static boolean hasTable(Connection connection, String rootKey) throws SQLException {
+
+		PreparedStatement select = connection.prepareStatement("SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = ?"); //$NON-NLS-1$
+		try {
+			select.setString(1, table(rootKey));
+			return select.executeQuery().next();
+		} finally {
+			select.close();
+		}
+	}
+
+	static void createTable(Connection connection, String rootKey) throws SQLException {
+
+		String table = table(rootKey);
+		Statement statement = connection.createStatement();
+		try {
+			statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + table + " (id TEXT PRIMARY KEY COLLATE NOCASE, name TEXT COLLATE NOCASE, hash BLOB NOT NULL, data BLOB NOT NULL)"); //$NON-NLS-1$ //$NON-NLS-2$
+		} finally {
+			statement.close();
+		}
+	}
+
+	static String upsertSql(String rootKey) {
+
+		return "INSERT OR REPLACE INTO " + table(rootKey) + " (id, name, hash, data) VALUES (?, ?, ?, ?)"; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	static String deleteSql(String rootKey) {
+
+		return "DELETE FROM " + table(rootKey) + " WHERE id = ?"; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * Bind an entry to an upsert statement.
+	 *
+	 * @param upsert
+	 * @param key
+	 * @param value
+	 * @param data	the encoded value.
+	 * @param hash	the hash of the key and data.
+	 * @throws SQLException
+	 */
+	static void bindEntry(PreparedStatement upsert, String key, Map<String, Object> value, byte[] data, byte[] hash) throws SQLException {
+
+		Object name = value.get("lastname"); //$NON-NLS-1$
+
+		upsert.setString(1, key);
+		upsert.setString(2, (name instanceof String) ? (String) name : key);
+		upsert.setBytes(3, hash);
+		upsert.setBytes(4, data);
+	}
+
+	/*
+	 * The key is part of the hash so a change in its case is saved.
+	 */
+	static byte[] hash(String key, byte[] data) {
+
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-1"); //$NON-NLS-1$
+
+			digest.update(key.getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) 0);
+			digest.update(data);
+			return digest.digest();
+		} catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	static void closeQuietly(AutoCloseable closeable) {
+
+		if (closeable == null)
+			return;
+
+		try {
+			closeable.close();
+		} catch (Exception ignored) {
+		}
+	}
+}
@@ -0,0 +1,64 @@
+/*
+ *  GroupManager - A plug-in for Spigot/Bukkit based Minecraft servers.
+ *  Copyright (C) 2020  ElgarL
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.anjocaido.groupmanager.dataholder.storage;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+
+import org.anjocaido.groupmanager.dataholder.DataEntryReader;
+import org.anjocaido.groupmanager.dataholder.DataEntryWriter;
+import org.anjocaido.groupmanager.dataholder.yaml.YamlDataReader;
+import org.anjocaido.groupmanager.dataholder.yaml.YamlDataWriter;
+import org.yaml.snakeyaml.reader.UnicodeReader;
+
+/**
+ * The default storage, a users.yml or groups.yml.
+ *
+ * @author ElgarL
+ *
+ */
+public class YamlStorage extends FileDataStorage {
+
+	@Override
+	public String getFormat() {
+
+		return "yaml"; //$NON-NLS-1$
+	}
+
+	@Override
+	public String getExtension() {
+
+		return ".yml"; //$NON-NLS-1$
+	}
+
+	@Override
+	public DataEntryReader openReader(File file, String rootKey) throws IOException {
+
+		return new YamlDataReader(new UnicodeReader(new FileInputStream(file)), rootKey);
+	}
+
+	@Override
+	public DataEntryWriter openWriter(File file) throws IOException {
+
+		return new YamlDataWriter(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"))); //$NON-NLS-1$
+	}
+}
@@ -0,0 +1,408 @@
+/*
+ *  GroupManager - A plug-in for Spigot/Bukkit based Minecraft servers.
+ *  Copyright (C) 2020  ElgarL
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.anjocaido.groupmanager.dataholder.worlds;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.anjocaido.groupmanager.GroupManager;
+
+/**
+ * Content addressed store for world data backups.
+ * 
+ * Each distinct version of a groups or users file is written once,
+ * compressed, under the SHA-1 of its content. An index records when
+ * each world's file took which content, so a save which did not change
+ * a file costs a single line in the index and any retained point in
+ * time can be rebuilt.
+ * 
+ * The store lives in its own folder so the age based clean up of the
+ * plain backup folder never touches it.
+ * 
+ * @author ElgarL
+ */
+public class BackupStore {
+
+	private static final String INDEX = "index.txt"; //$NON-NLS-1$
+	private static final String OBJECTS = "objects"; //$NON-NLS-1$
+	private static final String OBJECT_EXTENSION = ".gz"; //$NON-NLS-1$
+
+	private final File folder;
+	private final File objectsFolder;
+	private final File indexFile;
+
+	/**
+	 * Index entries, oldest first.
+	 */
+	private final List<Entry> entries = new ArrayList<>();
+
+	/**
+	 * Newest entry for each world/kind.
+	 */
+	private final Map<String, Entry> latest = new HashMap<>();
+
+	/**
+	 * 
+	 * @param folder	the folder to keep the store in.
+	 */
+	public BackupStore(File folder) {
+
+		this.folder = folder;
+		this.objectsFolder = new File(folder, OBJECTS);
+		this.indexFile = new File(folder, INDEX);
+
+		try {
+			readIndex();
+		} catch (IOException ex) {
+			GroupManager.logger.log(Level.SEVERE, null, ex);
+		}
+	}
+
+	/**
+	 * Record the current content of a world's data file.
+	 * Nothing is written if the content matches the last backup of this file,
+	 * and the content is only stored once however many times it is recorded.
+	 * 
+	 * @param world	name of the world.
+	 * @param groups	true for the groups file, false for users.
+	 * @param file	the file to back up.
+	 * @param extension	the storage extension of the file.
+	 * @return true if a new point in time was recorded.
+	 * @throws IOException
+	 */
+	public synchronized boolean backup(String world, boolean groups, File file, String extension) throws IOException {
+
+		if (!file.isFile())
+			return false;
+
+		String hash = hash(file);
+		Entry last = latest.get(key(world, groups));
+
+		if ((last != null) && last.hash.equals(hash) && last.extension.equals(extension))
+			return false;
+
+		File object = getObject(hash);
+		if (!object.exists()) {
+			objectsFolder.mkdirs();
+			File tmp = new File(objectsFolder, hash + ".tmp"); //$NON-NLS-1$
+
+			try (InputStream in = new FileInputStream(file);
+					OutputStream out = new GZIPOutputStream(new FileOutputStream(tmp))) {
+				copy(in, out);
+			}
+			Files.move(tmp.toPath(), object.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+
+		// Never record two points at the same time for one file.
+		long time = Math.max(System.currentTimeMillis(), (last == null) ? 0 : last.time + 1);
+		Entry entry = new Entry(time, world.toLowerCase(), groups, hash, extension);
+
+		try (BufferedWriter out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(indexFile, true), StandardCharsets.UTF_8))) {
+			out.write(entry.toString());
+			out.newLine();
+		}
+		add(entry);
+		return true;
+	}
+
+	/**
+	 * Every point in time a world's data can be restored to.
+	 * 
+	 * @param world	name of the world.
+	 * @return the times of all retained backups, newest first.
+	 */
+	public synchronized List<Long> getPoints(String world) {
+
+		TreeSet<Long> points = new TreeSet<>(Collections.reverseOrder());
+		world = world.toLowerCase();
+
+		for (Entry entry : entries)
+			if (entry.world.equals(world))
+				points.add(entry.time);
+
+		return new ArrayList<>(points);
+	}
+
+	/**
+	 * Find the backup of a file which was current at the given time.
+	 * Times only increase within each file's backups, not across the
+	 * whole index, so every entry for the world is checked.
+	 * 
+	 * @param world	name of the world.
+	 * @param groups	true for the groups file, false for users.
+	 * @param time	the point in time.
+	 * @return the newest backup taken at or before time, or null if there is none.
+	 */
+	public synchronized Entry find(String world, boolean groups, long time) {
+
+		Entry found = null;
+		world = world.toLowerCase();
+
+		for (Entry entry : entries)
+			if (entry.world.equals(world) && (entry.groups == groups) && (entry.time <= time) && ((found == null) || (entry.time >= found.time)))
+				found = entry;
+
+		return found;
+	}
+
+	/**
+	 * Write the content of a backup over a file.
+	 * The content is checked against its hash before the target is replaced.
+	 * 
+	 * @param entry	the backup to restore.
+	 * @param target	the file to replace.
+	 * @throws IOException if the content is missing or damaged.
+	 */
+	public synchronized void restore(Entry entry, File target) throws IOException {
+
+		File tmp = new File(target.getParentFile(), target.getName() + ".restore"); //$NON-NLS-1$
+		MessageDigest digest = newDigest();
+
+		try (InputStream in = new GZIPInputStream(new FileInputStream(getObject(entry.hash)));
+				OutputStream out = new FileOutputStream(tmp)) {
+			byte[] buf = new byte[65536];
+			int len;
+			while ((len = in.read(buf)) > 0) {
+				digest.update(buf, 0, len);
+				out.write(buf, 0, len);
+			}
+		}
+
+		if (!toHex(digest.digest()).equals(entry.hash)) {
+			tmp.delete();
+			throw new IOException("Backup " + entry.hash + " is damaged."); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * Forget backups older than the given time and delete any content
+	 * no longer referenced. The newest backup of each file taken before
+	 * the cut off is kept so the state at the cut off can still be rebuilt.
+	 * 
+	 * @param oldTime	the cut off time.
+	 * @throws IOException
+	 */
+	public synchronized void prune(long oldTime) throws IOException {
+
+		Map<String, Entry> base = new HashMap<>();
+
+		for (Entry entry : entries)
+			if (entry.time < oldTime)
+				base.put(key(entry.world, entry.groups), entry);
+
+		List<Entry> kept = new ArrayList<>();
+		for (Entry entry : entries)
+			if ((entry.time >= oldTime) || (base.get(key(entry.world, entry.groups)) == entry))
+				kept.add(entry);
+
+		if (kept.size() == entries.size())
+			return;
+
+		File tmp = new File(folder, INDEX + ".tmp"); //$NON-NLS-1$
+		try (BufferedWriter out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8))) {
+			for (Entry entry : kept) {
+				out.write(entry.toString());
+				out.newLine();
+			}
+		}
+		Files.move(tmp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+		entries.clear();
+		latest.clear();
+		Set<String> referenced = new HashSet<>();
+		for (Entry entry : kept) {
+			add(entry);
+			referenced.add(entry.hash + OBJECT_EXTENSION);
+		}
+
+		File[] objects = objectsFolder.listFiles();
+		if (objects != null)
+			for (File object : objects)
+				if (!referenced.contains(object.getName()))
+					object.delete();
+	}
+
+	private void readIndex() throws IOException {
+
+		if (!indexFile.isFile())
+			return;
+
+		try (BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(indexFile), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = in.readLine()) != null) {
+				Entry entry = Entry.parse(line);
+				// Skip anything left incomplete by a crash mid write.
+				if ((entry != null) && getObject(entry.hash).isFile())
+					add(entry);
+			}
+		}
+	}
+
+	private void add(Entry entry) {
+
+		entries.add(entry);
+		latest.put(key(entry.world, entry.groups), entry);
+	}
+
+	private File getObject(String hash) {
+
+		return new File(objectsFolder, hash + OBJECT_EXTENSION);
+	}
+
+	private static String key(String world, boolean groups) {
+
+		return world.toLowerCase() + (groups ? "/groups" : "/users"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	private static String hash(File file) throws IOException {
+
+		MessageDigest digest = newDigest();
+
+		try (InputStream in = new FileInputStream(file)) {
+			byte[] buf = new byte[65536];
+			int len;
+			while ((len = in.read(buf)) > 0) {
+				digest.update(buf, 0, len);
+			}
+		}
+		return toHex(digest.digest());
+	}
+
+	private static MessageDigest newDigest() {
+
+		try {
+			return MessageDigest.getInstance("SHA-1"); //$NON-NLS-1$
+		} catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private static String toHex(byte[] bytes) {
+
+		StringBuilder hex = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes)
+			hex.append(String.format("%02x", b)); //$NON-NLS-1$
+		return hex.toString();
+	}
+
+	private static void copy(InputStream in, OutputStream out) throws IOException {
+
+		byte[] buf = new byte[65536];
+		int len;
+		while ((len = in.read(buf)) > 0) {
+			out.write(buf, 0, len);
+		}
+	}
+
+	/**
+	 * A single backup of one world's groups or users file.
+	 */
+	public static final class Entry {
+
+		private final long time;
+		private final String world;
+		private final boolean groups;
+		private final String hash;
+		private final String extension;
+
+		private Entry(long time, String world, boolean groups, String hash, String extension) {
+
+			this.time = time;
+			this.world = world;
+			this.groups = groups;
+			this.hash = hash;
+			this.extension = extension;
+		}
+
+		private static Entry parse(String line) {
+
+			String[] parts = line.split("\t"); //$NON-NLS-1$
+			if (parts.length != 5)
+				return null;
+
+			try {
+				return new Entry(Long.parseLong(parts[0]), parts[1], parts[2].equals("groups"), parts[3], parts[4]); //$NON-NLS-1$
+			} catch (NumberFormatException ex) {
+				return null;
+			}
+		}
+
+		/**
+		 * @return the time the backup was taken.
+		 */
+		public long getTime() {
+
+			return time;
+		}
+
+		/**
+		 * @return the world the backup belongs to.
+		 */
+		public String getWorld() {
+
+			return world;
+		}
+
+		/**
+		 * @return true if this is a groups file, false for users.
+		 */
+		public boolean isGroups() {
+
+			return groups;
+		}
+
+		/**
+		 * @return the storage extension of the backed up file.
+		 */
+		public String getExtension() {
+
+			return extension;
+		}
+
+		@Override
+		public String toString() {
+
+			return time + "\t" + world + "\t" + (groups ? "groups" : "users") + "\t" + hash + "\t" + extension; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+		}
+	}
+}
@@ -0,0 +1,289 @@
+/*
+ *  GroupManager - A plug-in for Spigot/Bukkit based Minecraft servers.
+ *  Copyright (C) 2020  ElgarL
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.anjocaido.groupmanager.dataholder.worlds;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import org.anjocaido.groupmanager.GroupManager;
+import org.anjocaido.groupmanager.localization.Messages;
+
+/**
+ * Watches the worlds folder and globalgroups.yml for modifications
+ * made outside of GroupManager.
+ * 
+ * Events are collected on a daemon thread and only handed to
+ * {@link WorldsHolder#dataFileChanged(File)} once a file has been
+ * quiet for {@link #DEBOUNCE_MILLIS}, so an editor writing a file in
+ * several steps results in a single reload.
+ * 
+ * The reload also runs on this thread, under the save lock, so parsing
+ * a large file never holds up the server. Players are then refreshed
+ * on the main thread by the reload itself.
+ * 
+ * @author ElgarL
+ */
+public class DataFileWatcher implements Runnable {
+
+	/**
+	 * Time a file must go without events before it is reloaded.
+	 */
+	public static final long DEBOUNCE_MILLIS = 1000;
+
+	private final GroupManager plugin;
+	private final Path dataFolder;
+	private final Path worldsFolder;
+	private final Path globalGroupsFile;
+
+	private WatchService watchService;
+	private volatile Thread thread;
+
+	/**
+	 * Watched directories by their key.
+	 */
+	private final Map<WatchKey, Path> directories = new HashMap<>();
+
+	/**
+	 * Files waiting for their quiet period to end, with the time of their last event.
+	 * Only accessed by the watcher thread.
+	 */
+	private final Map<Path, Long> pending = new HashMap<>();
+
+	/**
+	 * 
+	 * @param plugin
+	 */
+	public DataFileWatcher(GroupManager plugin) {
+
+		this.plugin = plugin;
+		this.dataFolder = plugin.getDataFolder().toPath().toAbsolutePath();
+		this.worldsFolder = plugin.getWorldsHolder().getWorldsFolder().toPath().toAbsolutePath();
+		this.globalGroupsFile = GroupManager.getGlobalGroups().getGlobalGroupsFile().toPath().toAbsolutePath();
+	}
+
+	/**
+	 * Register the data folders and start the watcher thread.
+	 * 
+	 * @throws IOException if the file system does not support watching.
+	 */
+	public void start() throws IOException {
+
+		watchService = dataFolder.getFileSystem().newWatchService();
+		try {
+			register(dataFolder);
+			register(worldsFolder);
+
+			File[] folders = worldsFolder.toFile().listFiles();
+			if (folders != null)
+				for (File folder : folders)
+					if (folder.isDirectory())
+						register(folder.toPath());
+		} catch (IOException ex) {
+			watchService.close();
+			watchService = null;
+			throw ex;
+		}
+
+		thread = new Thread(this, "GroupManager-DataFileWatcher"); //$NON-NLS-1$
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stop watching. Any changes still waiting out their quiet period are discarded.
+	 */
+	public void stop() {
+
+		if (watchService != null) {
+			try {
+				watchService.close();
+			} catch (IOException ignored) {
+			}
+			watchService = null;
+		}
+		if (thread != null) {
+			thread.interrupt();
+			thread = null;
+		}
+	}
+
+	/**
+	 * @return true if the watcher thread is running.
+	 */
+	public boolean isRunning() {
+
+		return thread != null && thread.isAlive();
+	}
+
+	@Override
+	public void run() {
+
+		WatchService service = watchService;
+
+		try {
+			while (!Thread.currentThread().isInterrupted()) {
+
+				WatchKey key;
+				if (pending.isEmpty()) {
+					key = service.take();
+				} else {
+					long wait = nextDue() - System.currentTimeMillis();
+					key = (wait > 0) ? service.poll(wait, TimeUnit.MILLISECONDS) : service.poll();
+				}
+
+				if (key != null)
+					processEvents(key);
+
+				dispatchDue();
+			}
+		} catch (InterruptedException | ClosedWatchServiceException ignored) {
+			// Shutting down.
+		}
+	}
+
+	private void register(Path directory) throws IOException {
+
+		directories.put(directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY), directory);
+	}
+
+	private void processEvents(WatchKey key) {
+
+		Path directory = directories.get(key);
+
+		if (directory != null) {
+			long now = System.currentTimeMillis();
+
+			for (WatchEvent<?> event : key.pollEvents()) {
+
+				if (event.kind() == OVERFLOW) {
+					/*
+					 * We lost track of which files changed,
+					 * so check everything in this folder.
+					 */
+					queue(directory, now);
+					continue;
+				}
+
+				Path path = directory.resolve((Path) event.context());
+
+				if (directory.equals(dataFolder)) {
+					if (path.equals(globalGroupsFile))
+						queue(path, now);
+
+				} else if (directory.equals(worldsFolder)) {
+					// A new world folder.
+					if (event.kind() == ENTRY_CREATE && Files.isDirectory(path))
+						try {
+							register(path);
+						} catch (IOException ex) {
+							GroupManager.logger.log(Level.WARNING, null, ex);
+						}
+				} else {
+					queue(path, now);
+				}
+			}
+		}
+
+		if (!key.reset())
+			directories.remove(key);
+	}
+
+	private void queue(Path path, long time) {
+
+		pending.put(path, time);
+	}
+
+	private long nextDue() {
+
+		long due = Long.MAX_VALUE;
+		for (long time : pending.values())
+			due = Math.min(due, time + DEBOUNCE_MILLIS);
+		return due;
+	}
+
+	/**
+	 * Reload every file which has been quiet long enough.
+	 * Files are only dropped from pending once they have been reloaded.
+	 * While another reload or import is under way they wait out
+	 * a new quiet period instead.
+	 */
+	private void dispatchDue() throws InterruptedException {
+
+		long now = System.currentTimeMillis();
+		Set<Path> due = new LinkedHashSet<>();
+
+		for (Map.Entry<Path, Long> entry : pending.entrySet())
+			if (entry.getValue() + DEBOUNCE_MILLIS <= now)
+				due.add(entry.getKey());
+
+		if (due.isEmpty())
+			return;
+
+		if (!plugin.isEnabled() || apply(due))
+			pending.keySet().removeAll(due);
+		else
+			due.forEach(path -> queue(path, now));
+	}
+
+	/**
+	 * Reload the changed files. Runs on the watcher thread,
+	 * waiting for any save in progress to finish first.
+	 * 
+	 * @param paths	the files (or folders after an overflow) which changed.
+	 * @return false if the data is being loaded by something else, so nothing was reloaded.
+	 * @throws InterruptedException if the watcher is stopped while waiting.
+	 */
+	private boolean apply(Set<Path> paths) throws InterruptedException {
+
+		if (thread == null)
+			return true;
+
+		plugin.getSaveLock().lockInterruptibly();
+
+		try {
+			if (!GroupManager.isLoaded())
+				return false;
+
+			boolean changed = false;
+			for (Path path : paths)
+				changed |= plugin.getWorldsHolder().dataFileChanged(path.toFile());
+
+			if (changed)
+				GroupManager.logger.info(Messages.getString("GroupManager.REFRESHED")); //$NON-NLS-1$
+			return true;
+		} finally {
+			plugin.getSaveLock().unlock();
+		}
+	}
+}
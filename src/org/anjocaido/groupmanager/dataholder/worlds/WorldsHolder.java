@@ -21,18 +21,35 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import org.anjocaido.groupmanager.GlobalGroups;
 import org.anjocaido.groupmanager.GroupManager;
+import org.anjocaido.groupmanager.data.DataUnit;
+import org.anjocaido.groupmanager.data.ExpiryQueue;
+import org.anjocaido.groupmanager.data.Group;
 import org.anjocaido.groupmanager.data.User;
 import org.anjocaido.groupmanager.dataholder.OverloadedWorldHolder;
+import org.anjocaido.groupmanager.dataholder.WorldDataDiff;
 import org.anjocaido.groupmanager.dataholder.WorldDataHolder;
+import org.anjocaido.groupmanager.dataholder.storage.DataStorage;
+import org.anjocaido.groupmanager.dataholder.storage.DataStorages;
 import org.anjocaido.groupmanager.localization.Messages;
 import org.anjocaido.groupmanager.permissions.AnjoPermissionsHandler;
 import org.anjocaido.groupmanager.utils.Tasks;
@@ -64,6 +81,16 @@ public class WorldsHolder {
 	private final GroupManager plugin;
 	private File worldsFolder;
 
+	/**
+	 * World data read ahead in parallel during the initial load.
+	 */
+	private final Map<String, ParsedWorld> preloaded = new HashMap<>();
+
+	/**
+	 * Deduplicated backups of every world's data files.
+	 */
+	private final BackupStore backupStore;
+
 	/**
 	 * 
 	 * @param plugin
@@ -71,9 +98,26 @@ public class WorldsHolder {
 	public WorldsHolder(GroupManager plugin) {
 
 		this.plugin = plugin;
+		this.backupStore = new BackupStore(new File(plugin.getBackupFolder(), "store")); //$NON-NLS-1$
 		resetWorldsHolder();
 	}
 	
+	/**
+	 * @return the folder holding each world's data.
+	 */
+	public File getWorldsFolder() {
+
+		return worldsFolder;
+	}
+
+	/**
+	 * @return the store holding backups of each world's data.
+	 */
+	public BackupStore getBackupStore() {
+
+		return backupStore;
+	}
+
 	/**
 	 * @return the mirrorsGroup
 	 */
@@ -110,6 +154,8 @@ public class WorldsHolder {
 		worldsData = new HashMap<>();
 		mirrorsGroup = new HashMap<>();
 		mirrorsUser = new HashMap<>();
+		// Everything is queued again as it loads.
+		GroupManager.getExpiryQueue().clear();
 		
 		// Setup folders and check files exist for the primary world
 		verifyFirstRun();
@@ -120,12 +166,114 @@ public class WorldsHolder {
 
 	private void initialLoad() {
 
-		// load the initial world
-		initialWorldLoading();
-		// Configure and load any mirrors and additional worlds as defined in config.yml
-		mirrorSetUp();
-		// search the worlds folder for any manually created worlds (not listed in config.yml)
-		loadAllSearchedWorlds();
+		long started = System.currentTimeMillis();
+
+		// read the data of all independent worlds in parallel
+		preloadWorlds();
+		try {
+			// load the initial world
+			initialWorldLoading();
+			// Configure and load any mirrors and additional worlds as defined in config.yml
+			mirrorSetUp();
+			// search the worlds folder for any manually created worlds (not listed in config.yml)
+			loadAllSearchedWorlds();
+		} finally {
+			preloaded.clear();
+		}
+		GroupManager.logger.info(String.format(Messages.getString("WorldsHolder.ALL_WORLDS_LOADED"), worldsData.size(), System.currentTimeMillis() - started)); //$NON-NLS-1$
+	}
+
+	/**
+	 * Read the data files of every world folder which has its own groups
+	 * and users, in parallel on a bounded pool. The results are picked up
+	 * by loadWorld, so mirrors are still linked up in order on this thread.
+	 * A world which fails to read here is simply loaded again in turn,
+	 * where the error is reported as normal.
+	 */
+	private void preloadWorlds() {
+
+		preloaded.clear();
+
+		File[] folders = worldsFolder.listFiles();
+		if (folders == null)
+			return;
+
+		Set<String> mirrored = getConfiguredMirrors();
+		List<String> worlds = new ArrayList<>();
+
+		for (File folder : folders) {
+			String name = folder.getName();
+
+			// Cased folders are renamed by setupWorldFolder, so leave those until then.
+			if (folder.isDirectory() && !name.startsWith(".") && name.equals(name.toLowerCase()) && !mirrored.contains(name)) //$NON-NLS-1$
+				worlds.add(name);
+		}
+
+		if (worlds.size() < 2)
+			return;
+
+		ExecutorService pool = Executors.newFixedThreadPool(Math.min(worlds.size(), Runtime.getRuntime().availableProcessors()));
+		Map<String, Future<ParsedWorld>> tasks = new LinkedHashMap<>();
+
+		// Each holder is marked as loading by parse, so nothing reacts to it while it is read.
+		try {
+			for (final String world : worlds) {
+				File worldFolder = new File(worldsFolder, world);
+				final File groupsFile = getDataFile(worldFolder, world, "groups"); //$NON-NLS-1$
+				final File usersFile = getDataFile(worldFolder, world, "users"); //$NON-NLS-1$
+
+				if (!groupsFile.exists() || !usersFile.exists())
+					continue;
+
+				tasks.put(world, pool.submit(new Callable<ParsedWorld>() {
+
+					@Override
+					public ParsedWorld call() throws Exception {
+
+						long started = System.currentTimeMillis();
+						WorldDataHolder holder = WorldDataHolder.parse(world, groupsFile, usersFile);
+
+						return new ParsedWorld(holder, groupsFile, usersFile, System.currentTimeMillis() - started);
+					}
+				}));
+			}
+
+			for (Map.Entry<String, Future<ParsedWorld>> task : tasks.entrySet()) {
+				try {
+					preloaded.put(task.getKey(), task.getValue().get());
+				} catch (ExecutionException ignored) {
+					// Loaded again in turn to report the error.
+				}
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * @return	the lower case names of all worlds which mirror another in config.yml.
+	 */
+	@SuppressWarnings("rawtypes")
+	private Set<String> getConfiguredMirrors() {
+
+		Set<String> mirrored = new HashSet<>();
+		Map<String, Object> mirrorsMap = GroupManager.getGMConfig().getMirrorsMap();
+
+		if (mirrorsMap != null) {
+			for (Object children : mirrorsMap.values()) {
+				if (children instanceof List) {
+					for (Object world : (List) children)
+						mirrored.add(world.toString().toLowerCase());
+
+				} else if (children instanceof Map) {
+					for (Object world : ((Map) children).keySet())
+						mirrored.add(world.toString().toLowerCase());
+				}
+			}
+		}
+		return mirrored;
 	}
 
 	private void initialWorldLoading() {
@@ -290,7 +438,7 @@ public class WorldsHolder {
 	public void reloadAll() {
 
 		// Load global groups
-		GroupManager.getGlobalGroups().load();
+		reloadGlobalGroups();
 
 		ArrayList<WorldDataHolder> alreadyDone = new ArrayList<WorldDataHolder>();
 		for (WorldDataHolder w : worldsData.values()) {
@@ -307,6 +455,29 @@ public class WorldsHolder {
 
 	}
 
+	/**
+	 * Reload the GlobalGroups, updating only the players
+	 * in groups which inherit a global group that changed.
+	 */
+	public void reloadGlobalGroups() {
+
+		List<Group> previous = Arrays.asList(GroupManager.getGlobalGroups().getGroupList());
+		GroupManager.getGlobalGroups().load();
+
+		Set<String> changed = WorldDataDiff.ofGroups(previous, Arrays.asList(GroupManager.getGlobalGroups().getGroupList())).getAll();
+		if (changed.isEmpty())
+			return;
+
+		ArrayList<WorldDataHolder> alreadyDone = new ArrayList<>();
+		for (WorldDataHolder w : worldsData.values()) {
+			if (alreadyDone.contains(w)) {
+				continue;
+			}
+			GroupManager.getBukkitPermissions().updatePlayers(w, w.getDependantGroups(changed), Collections.emptySet());
+			alreadyDone.add(w);
+		}
+	}
+
 	/**
 	 *
 	 * @param worldName
@@ -324,33 +495,47 @@ public class WorldsHolder {
 	 */
 	public boolean purgeExpiredPerms() {
 		
-		ArrayList<WorldDataHolder> alreadyDone = new ArrayList<>();
-		boolean result = false;
-		
-		for (WorldDataHolder world : worldsData.values()) {
-			
-			if (alreadyDone.contains(world)) {
+		// The expired groups and users in each world.
+		Map<WorldDataHolder, Set<String>> expiredGroups = new HashMap<>();
+		Map<WorldDataHolder, Set<String>> expiredUsers = new HashMap<>();
+
+		/*
+		 * Only the entries which have fallen due are visited.
+		 */
+		for (ExpiryQueue.Expiry expiry : GroupManager.getExpiryQueue().pollExpired(Instant.now().getEpochSecond())) {
+
+			// Replaced, removed or extended since it was queued.
+			if (!expiry.isCurrent())
 				continue;
+
+			DataUnit unit = expiry.getUnit();
+			WorldDataHolder world = unit.getDataSource();
+
+			if (expiry.isSubGroup() ? ((User) unit).removeExpiredSubGroup(expiry.getNode(), expiry.getExpires()) : unit.removeExpired(expiry.getNode(), expiry.getExpires())) {
+				if (unit instanceof Group) {
+					world.setGroupsChanged(true);
+					expiredGroups.computeIfAbsent(world, k -> new HashSet<>()).add(unit.getUUID().toLowerCase());
+				} else {
+					world.setUsersChanged(true);
+					expiredUsers.computeIfAbsent(world, k -> new HashSet<>()).add(unit.getUUID().toLowerCase());
+				}
 			}
+		}
+
+		Set<WorldDataHolder> changed = new HashSet<>(expiredGroups.keySet());
+		changed.addAll(expiredUsers.keySet());
 
+		for (WorldDataHolder world : changed) {
 			/*
-			 * Update individual player permissions if changed.
+			 * Update only the online players holding an expired node,
+			 * directly or through a group inheriting an expired group.
 			 */
-			if (world.purgeTimedPermissions()) {
-				result = true;
-				
-				for (User user: world.getUserList()) {
-					// If the player is online, this will create new data for the user.
-					Player targetPlayer = plugin.getServer().getPlayer(user.getLastName());
-					if (targetPlayer != null)
-						GroupManager.getBukkitPermissions().updatePermissions(targetPlayer);
-				}
-			}
-			
-			alreadyDone.add(world);
+			Set<String> groups = expiredGroups.getOrDefault(world, Collections.emptySet());
+			Set<String> users = expiredUsers.getOrDefault(world, Collections.emptySet());
 
+			GroupManager.getBukkitPermissions().updatePlayers(world, groups.isEmpty() ? groups : world.getDependantGroups(groups), users);
 		}
-		return result;
+		return !changed.isEmpty();
 	}
 
 	/**
@@ -369,15 +554,22 @@ public class WorldsHolder {
 
 		boolean changed = false;
 		ArrayList<WorldDataHolder> alreadyDone = new ArrayList<>();
+		// External edits are picked up by the watcher as they happen.
+		boolean watching = plugin.isWatchingDataFiles();
 		Tasks.removeOldFiles(plugin.getBackupFolder());
+		try {
+			backupStore.prune(System.currentTimeMillis() - (((long) GroupManager.getGMConfig().getBackupDuration() * 60 * 60) * 1000));
+		} catch (IOException ex) {
+			GroupManager.logger.log(Level.SEVERE, null, ex);
+		}
 
 		// Write Global Groups
 		if (GroupManager.getGlobalGroups().haveGroupsChanged()) {
 			GroupManager.getGlobalGroups().writeGroups(overwrite);
-		} else {
-			if (GroupManager.getGlobalGroups().getTimeStampGroups() < GroupManager.getGlobalGroups().getGlobalGroupsFile().lastModified()) {
+		} else if (!watching) {
+			if (GroupManager.getGlobalGroups().isGroupsFileChanged()) {
 				GroupManager.logger.log(Level.WARNING,Messages.getString("GlobalGroups.WARN_NEWER_GG_FOUND_LOADING")); //$NON-NLS-1$
-				GroupManager.getGlobalGroups().load();
+				reloadGlobalGroups();
 			}
 		}
 
@@ -391,7 +583,7 @@ public class WorldsHolder {
 			}
 			if (!mirrorsGroup.containsKey(w.getName().toLowerCase()))
 				if (w.haveGroupsChanged()) {
-					if (overwrite || (!overwrite && (w.getTimeStampGroups() >= w.getGroupsFile().lastModified()))) {
+					if (overwrite || (!overwrite && !w.isGroupsFileChanged())) {
 						// Backup Groups file
 						backupFile(w, true);
 
@@ -403,19 +595,13 @@ public class WorldsHolder {
 						GroupManager.logger.log(Level.WARNING, String.format(Messages.getString("WorldsHolder.WARN_NEWER_GROUPS_FILE_UNABLE"), w.getName())); //$NON-NLS-1$
 						throw new IllegalStateException(Messages.getString("ERROR_UNABLE_TO_SAVE")); //$NON-NLS-1$
 					}
-				} else {
+				} else if (!watching) {
 					//Check for newer file as no local changes.
-					if (w.getTimeStampGroups() < w.getGroupsFile().lastModified()) {
-						System.out.print(Messages.getString("WorldsHolder.NEWER_GROUPS_FILE_LOADING")); //$NON-NLS-1$
-						// Backup Groups file
-						backupFile(w, true);
-						w.reloadGroups();
-						changed = true;
-					}
+					changed |= reloadIfNewer(w, true);
 				}
 			if (!mirrorsUser.containsKey(w.getName().toLowerCase()))
 				if (w.haveUsersChanged()) {
-					if (overwrite || (!overwrite && (w.getTimeStampUsers() >= w.getUsersFile().lastModified()))) {
+					if (overwrite || (!overwrite && !w.isUsersFileChanged())) {
 						// Backup Users file
 						backupFile(w, false);
 
@@ -427,21 +613,93 @@ public class WorldsHolder {
 						GroupManager.logger.log(Level.WARNING, Messages.getString("WorldsHolder.WARN_NEWER_USERS_FILE_UNABLE") + w.getName()); //$NON-NLS-1$
 						throw new IllegalStateException(Messages.getString("ERROR_UNABLE_TO_SAVE")); //$NON-NLS-1$
 					}
-				} else {
+				} else if (!watching) {
 					//Check for newer file as no local changes.
-					if (w.getTimeStampUsers() < w.getUsersFile().lastModified()) {
-						System.out.print(Messages.getString("WorldsHolder.NEWER_USERS_FILE_LOADING")); //$NON-NLS-1$
-						// Backup Users file
-						backupFile(w, false);
-						w.reloadUsers();
-						changed = true;
-					}
+					changed |= reloadIfNewer(w, false);
 				}
 			alreadyDone.add(w);
 		}
 		return changed;
 	}
 
+	/**
+	 * Called by the {@link DataFileWatcher} once a data file has been
+	 * modified on disk. Only the world and file which changed are reloaded.
+	 * 
+	 * @param file	the modified file, or a whole folder if the watcher lost track of events.
+	 * @return true if any data was reloaded.
+	 */
+	public boolean dataFileChanged(File file) {
+
+		boolean changed = false;
+		GlobalGroups globalGroups = GroupManager.getGlobalGroups();
+		file = file.getAbsoluteFile();
+
+		if (isChangedFile(file, globalGroups.getGlobalGroupsFile())) {
+			if (globalGroups.isGroupsFileChanged()) {
+				if (globalGroups.haveGroupsChanged()) {
+					GroupManager.logger.log(Level.WARNING, Messages.getString("GlobalGroups.ERROR_NEWER_GG_FOUND")); //$NON-NLS-1$
+				} else {
+					GroupManager.logger.log(Level.WARNING, Messages.getString("GlobalGroups.WARN_NEWER_GG_FOUND_LOADING")); //$NON-NLS-1$
+					reloadGlobalGroups();
+					changed = true;
+				}
+			}
+		}
+
+		ArrayList<WorldDataHolder> alreadyDone = new ArrayList<>();
+		for (OverloadedWorldHolder w : worldsData.values()) {
+			if ((w == null) || alreadyDone.contains(w)) {
+				continue;
+			}
+			if (!mirrorsGroup.containsKey(w.getName().toLowerCase()) && isChangedFile(file, w.getGroupsFile()))
+				changed |= reloadIfNewer(w, true);
+			if (!mirrorsUser.containsKey(w.getName().toLowerCase()) && isChangedFile(file, w.getUsersFile()))
+				changed |= reloadIfNewer(w, false);
+
+			alreadyDone.add(w);
+		}
+		return changed;
+	}
+
+	private boolean isChangedFile(File changed, File dataFile) {
+
+		if (dataFile == null)
+			return false;
+
+		dataFile = dataFile.getAbsoluteFile();
+		return changed.equals(dataFile) || changed.equals(dataFile.getParentFile());
+	}
+
+	/**
+	 * Reload the Groups/Users file of this world if its content changed on disk.
+	 * If we have local changes they are kept and a warning is logged instead.
+	 * 
+	 * @param w
+	 * @param groups
+	 * @return true if the file was reloaded.
+	 */
+	private boolean reloadIfNewer(OverloadedWorldHolder w, boolean groups) {
+
+		if (!(groups ? w.isGroupsFileChanged() : w.isUsersFileChanged()))
+			return false;
+
+		if (groups ? w.haveGroupsChanged() : w.haveUsersChanged()) {
+			// Newer file found, leave it for the next save to resolve.
+			GroupManager.logger.log(Level.WARNING, String.format(Messages.getString(groups ? "WorldsHolder.WARN_NEWER_GROUPS_FILE_UNABLE" : "WorldsHolder.WARN_NEWER_USERS_FILE_UNABLE"), w.getName())); //$NON-NLS-1$ //$NON-NLS-2$
+			return false;
+		}
+
+		System.out.print(Messages.getString(groups ? "WorldsHolder.NEWER_GROUPS_FILE_LOADING" : "WorldsHolder.NEWER_USERS_FILE_LOADING")); //$NON-NLS-1$ //$NON-NLS-2$
+		// Backup Groups/Users file
+		backupFile(w, groups);
+		if (groups)
+			w.reloadGroups();
+		else
+			w.reloadUsers();
+		return true;
+	}
+
 	/**
 	 * Backup the Groups/Users file
 	 * 
@@ -450,14 +708,57 @@ public class WorldsHolder {
 	 */
 	private void backupFile(OverloadedWorldHolder w, Boolean groups) {
 
-		File backupFile = new File(plugin.getBackupFolder(), "bkp_" + w.getName() + (groups ? "_g_" : "_u_") + Tasks.getDateString() + ".yml"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		File file = groups ? w.getGroupsFile() : w.getUsersFile();
 		try {
-			Tasks.copy((groups ? w.getGroupsFile() : w.getUsersFile()), backupFile);
+			backupStore.backup(w.getName(), groups, file, DataStorages.forFile(file).getExtension());
 		} catch (IOException ex) {
 			GroupManager.logger.log(Level.SEVERE, null, ex);
 		}
 	}
 
+	/**
+	 * Rebuild a world's data files as they were at a point in time
+	 * retained by the {@link BackupStore} and reload them.
+	 * The current files are backed up first so a restore can itself be undone.
+	 * 
+	 * @param w	the world to restore.
+	 * @param time	a point from {@link BackupStore#getPoints(String)}.
+	 * @return true if any file was restored.
+	 * @throws IllegalStateException if a backup was taken in a different storage format.
+	 */
+	public boolean restoreWorld(OverloadedWorldHolder w, long time) {
+
+		String worldName = w.getName().toLowerCase();
+		BackupStore.Entry groups = mirrorsGroup.containsKey(worldName) ? null : backupStore.find(worldName, true, time);
+		BackupStore.Entry users = mirrorsUser.containsKey(worldName) ? null : backupStore.find(worldName, false, time);
+
+		// Check both before writing either so a world is never left half restored.
+		for (BackupStore.Entry entry : new BackupStore.Entry[] { groups, users }) {
+			if (entry == null)
+				continue;
+			File file = entry.isGroups() ? w.getGroupsFile() : w.getUsersFile();
+			if (!DataStorages.forFile(file).getExtension().equals(entry.getExtension()))
+				throw new IllegalStateException(String.format(Messages.getString("WorldsHolder.ERROR_BACKUP_FORMAT"), file.getName(), entry.getExtension())); //$NON-NLS-1$
+		}
+
+		try {
+			if (groups != null) {
+				backupFile(w, true);
+				backupStore.restore(groups, w.getGroupsFile());
+				w.reloadGroups();
+			}
+			if (users != null) {
+				backupFile(w, false);
+				backupStore.restore(users, w.getUsersFile());
+				w.reloadUsers();
+			}
+		} catch (IOException ex) {
+			GroupManager.logger.log(Level.SEVERE, null, ex);
+			throw new IllegalStateException(ex.getMessage());
+		}
+		return (groups != null) || (users != null);
+	}
+
 	/**
 	 * Returns the dataHolder for the given world.
 	 * If the world is not on the worlds list, returns the default world
@@ -718,8 +1019,8 @@ public class WorldsHolder {
 		if ((isMirror) || (thisWorldFolder.exists() && thisWorldFolder.isDirectory())) {
 
 			// Setup file handles, if not mirrored
-			File groupsFile = (mirrorsGroup.containsKey(worldNameLowered)) ? null : new File(thisWorldFolder, "groups.yml"); //$NON-NLS-1$
-			File usersFile = (mirrorsUser.containsKey(worldNameLowered)) ? null : new File(thisWorldFolder, "users.yml"); //$NON-NLS-1$
+			File groupsFile = (mirrorsGroup.containsKey(worldNameLowered)) ? null : getDataFile(thisWorldFolder, worldNameLowered, "groups"); //$NON-NLS-1$
+			File usersFile = (mirrorsUser.containsKey(worldNameLowered)) ? null : getDataFile(thisWorldFolder, worldNameLowered, "users"); //$NON-NLS-1$
 
 			if ((groupsFile != null) && (!groupsFile.exists())) {
 				throw new IllegalArgumentException(String.format(Messages.getString("WorldsHolder.ERROR_NO_GROUPS_FILE"), worldName, groupsFile.getPath())); //$NON-NLS-1$
@@ -728,19 +1029,42 @@ public class WorldsHolder {
 				throw new IllegalArgumentException(String.format(Messages.getString("WorldsHolder.ERROR_NO_USERS_FILE"), worldName, usersFile.getPath())); //$NON-NLS-1$
 			}
 
-			WorldDataHolder tempHolder = new WorldDataHolder(worldNameLowered);
+			long started = System.currentTimeMillis();
+			WorldDataHolder tempHolder;
+			ParsedWorld parsed = preloaded.remove(worldNameLowered);
+
+			if ((parsed != null) && parsed.isFor(groupsFile, usersFile)) {
+				// Already read in parallel during the initial load.
+				tempHolder = parsed.holder;
+				started -= parsed.loadTime;
+
+			} else {
+				tempHolder = new WorldDataHolder(worldNameLowered);
+
+				// Map the group object for any mirror
+				if (mirrorsGroup.containsKey(worldNameLowered))
+					tempHolder.setGroupsObject(this.getWorldData(mirrorsGroup.get(worldNameLowered)).getGroupsObject());
+				else
+					tempHolder.loadGroups(groupsFile);
+
+				// Map the user object for any mirror
+				if (mirrorsUser.containsKey(worldNameLowered))
+					tempHolder.setUsersObject(this.getWorldData(mirrorsUser.get(worldNameLowered)).getUsersObject());
+				else
+					tempHolder.loadUsers(usersFile);
+			}
 
-			// Map the group object for any mirror
-			if (mirrorsGroup.containsKey(worldNameLowered))
-				tempHolder.setGroupsObject(this.getWorldData(mirrorsGroup.get(worldNameLowered)).getGroupsObject());
-			else
-				tempHolder.loadGroups(groupsFile);
+			// A world newly set to another storage is converted once its yml is loaded.
+			DataStorage storage = getDataStorage(worldNameLowered);
 
-			// Map the user object for any mirror
-			if (mirrorsUser.containsKey(worldNameLowered))
-				tempHolder.setUsersObject(this.getWorldData(mirrorsUser.get(worldNameLowered)).getUsersObject());
-			else
-				tempHolder.loadUsers(usersFile);
+			if ((groupsFile != null) && !storage.handles(groupsFile)) {
+				WorldDataHolder.exportGroups(tempHolder, DataStorages.toStorage(groupsFile, storage));
+				tempHolder.setGroupsFile(DataStorages.toStorage(groupsFile, storage));
+			}
+			if ((usersFile != null) && !storage.handles(usersFile)) {
+				WorldDataHolder.exportUsers(tempHolder, DataStorages.toStorage(usersFile, storage));
+				tempHolder.setUsersFile(DataStorages.toStorage(usersFile, storage));
+			}
 
 			OverloadedWorldHolder thisWorldData = new OverloadedWorldHolder(tempHolder);
 
@@ -751,6 +1075,7 @@ public class WorldsHolder {
 
 			if (thisWorldData != null) {
 				GroupManager.logger.finest(String.format(Messages.getString("WorldsHolder.WORLD_LOAD_SUCCESS"), worldName)); //$NON-NLS-1$
+				GroupManager.logger.info(String.format(Messages.getString("WorldsHolder.WORLD_LOAD_TIME"), worldName, System.currentTimeMillis() - started)); //$NON-NLS-1$
 				worldsData.put(worldNameLowered, thisWorldData);
 			}
 
@@ -758,6 +1083,42 @@ public class WorldsHolder {
 		}
 	}
 
+	/**
+	 * The data file for a world, in the format set in config.yml.
+	 * If that file is not yet created, the yml is used.
+	 * 
+	 * @param worldFolder
+	 * @param worldName
+	 * @param type	'groups' or 'users'.
+	 * @return the File to load from.
+	 */
+	private File getDataFile(File worldFolder, String worldName, String type) {
+
+		File yamlFile = new File(worldFolder, type + ".yml"); //$NON-NLS-1$
+		File dataFile = DataStorages.toStorage(yamlFile, getDataStorage(worldName));
+
+		return dataFile.exists() ? dataFile : yamlFile;
+	}
+
+	/**
+	 * The storage set for a world in config.yml.
+	 * An unknown format is reported and yml used instead.
+	 * 
+	 * @param worldName
+	 * @return	the DataStorage for this world.
+	 */
+	private DataStorage getDataStorage(String worldName) {
+
+		String format = GroupManager.getGMConfig().getDataFormat(worldName);
+		DataStorage storage = DataStorages.forFormat(format);
+
+		if (storage == null) {
+			GroupManager.logger.warning(String.format(Messages.getString("WorldsHolder.UNKNOWN_FORMAT"), format, worldName)); //$NON-NLS-1$
+			storage = DataStorages.YAML;
+		}
+		return storage;
+	}
+
 	/**
 	 * Tells if the world has been mapped.
 	 * 
@@ -845,4 +1206,31 @@ public class WorldsHolder {
 		}
 		return list;
 	}
+
+	/**
+	 * A world's data read ahead of it being loaded.
+	 */
+	private static class ParsedWorld {
+
+		final WorldDataHolder holder;
+		final File groupsFile;
+		final File usersFile;
+		final long loadTime;
+
+		ParsedWorld(WorldDataHolder holder, File groupsFile, File usersFile, long loadTime) {
+
+			this.holder = holder;
+			this.groupsFile = groupsFile;
+			this.usersFile = usersFile;
+			this.loadTime = loadTime;
+		}
+
+		/**
+		 * @return	true if this was read from the files a load now wants.
+		 */
+		boolean isFor(File groupsFile, File usersFile) {
+
+			return this.groupsFile.equals(groupsFile) && this.usersFile.equals(usersFile);
+		}
+	}
 }
@@ -0,0 +1,250 @@
+/*
+ *  GroupManager - A plug-in for Spigot/Bukkit based Minecraft servers.
+ *  Copyright (C) 2020  ElgarL
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.anjocaido.groupmanager.dataholder.yaml;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.anjocaido.groupmanager.dataholder.DataEntryReader;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.events.AliasEvent;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.NodeEvent;
+import org.yaml.snakeyaml.events.ScalarEvent;
+import org.yaml.snakeyaml.nodes.NodeId;
+import org.yaml.snakeyaml.nodes.ScalarNode;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.resolver.Resolver;
+
+/**
+ * Event based reader for a users.yml or groups.yml.
+ *
+ * Rather than loading the whole file into a tree of Maps, this walks
+ * the parser events and only builds the data for one entry at a time.
+ * Scalars are resolved exactly as the SafeConstructor would, so the
+ * resulting values are identical to a full Yaml.load().
+ *
+ * @author ElgarL
+ *
+ */
+public class YamlDataReader implements DataEntryReader {
+
+	private final Reader reader;
+	private final String rootKey;
+	private final Iterator<Event> events;
+	private final Resolver resolver = new Resolver();
+	private final ScalarConstructor constructor = new ScalarConstructor();
+	private final Map<String, Object> anchors = new HashMap<>();
+
+	private Object key = null;
+	private Object value = null;
+
+	/**
+	 *
+	 * @param reader	the source to stream from.
+	 * @param rootKey	the root node to read ('users' or 'groups').
+	 */
+	public YamlDataReader(Reader reader, String rootKey) {
+
+		this.reader = reader;
+		this.rootKey = rootKey;
+		this.events = new Yaml().parse(reader).iterator();
+	}
+
+	/**
+	 * Advance to the start of the root mapping.
+	 *
+	 * @return	true if there are entries to read, false if the node is missing or empty.
+	 * @throws YAMLException	if the file is not valid or has no such root.
+	 */
+	@Override
+	public boolean open() {
+
+		Event event = nextEvent();
+
+		// Skip the stream and document headers.
+		while (event.is(Event.ID.StreamStart) || event.is(Event.ID.DocumentStart))
+			event = nextEvent();
+
+		if (!event.is(Event.ID.MappingStart))
+			throw new YAMLException("Root node is not a mapping.");
+
+		rememberAnchor(event, null);
+
+		while (true) {
+			event = nextEvent();
+
+			if (event.is(Event.ID.MappingEnd))
+				return false;
+
+			Object rootKey = readNode(event);
+			event = nextEvent();
+
+			if (this.rootKey.equals(rootKey)) {
+
+				if (event.is(Event.ID.MappingStart))
+					return true;
+
+				if (readNode(event) == null)
+					return false;
+
+				throw new YAMLException("The '" + this.rootKey + "' node is not a mapping.");
+			}
+			// Not something we handle, so discard it.
+			readNode(event);
+		}
+	}
+
+	/**
+	 * Read the next entry from the root mapping.
+	 * The key and value are then available from {@link #getKey()} and {@link #getValue()}.
+	 *
+	 * @return	false when there are no more entries.
+	 */
+	@Override
+	public boolean next() {
+
+		Event event = nextEvent();
+
+		if (event.is(Event.ID.MappingEnd)) {
+			key = null;
+			value = null;
+			return false;
+		}
+
+		key = readNode(event);
+		value = readNode(nextEvent());
+		return true;
+	}
+
+	/**
+	 * @return the key of the current entry.
+	 */
+	@Override
+	public Object getKey() {
+
+		return key;
+	}
+
+	/**
+	 * @return the data held under the current entry.
+	 */
+	@Override
+	public Object getValue() {
+
+		return value;
+	}
+
+	@Override
+	public void close() throws IOException {
+
+		reader.close();
+	}
+
+	private Event nextEvent() {
+
+		if (!events.hasNext())
+			throw new YAMLException("Unexpected end of file.");
+
+		return events.next();
+	}
+
+	/**
+	 * Construct the node starting at this event.
+	 * Only the node itself is built, so memory use is bounded by its size.
+	 *
+	 * @param event	the first event of the node.
+	 * @return	the constructed Object.
+	 */
+	private Object readNode(Event event) {
+
+		if (event.is(Event.ID.Alias)) {
+			String anchor = ((AliasEvent) event).getAnchor();
+
+			if (!anchors.containsKey(anchor))
+				throw new YAMLException("Found undefined alias " + anchor);
+
+			return anchors.get(anchor);
+		}
+
+		if (event.is(Event.ID.Scalar)) {
+			ScalarEvent scalar = (ScalarEvent) event;
+			Tag tag;
+
+			if (scalar.getTag() == null || scalar.getTag().equals("!"))
+				tag = resolver.resolve(NodeId.scalar, scalar.getValue(), scalar.getImplicit().canOmitTagInPlainScalar());
+			else
+				tag = new Tag(scalar.getTag());
+
+			Object result = constructor.construct(new ScalarNode(tag, scalar.getValue(), scalar.getStartMark(), scalar.getEndMark(), scalar.getScalarStyle()));
+			rememberAnchor(event, result);
+			return result;
+		}
+
+		if (event.is(Event.ID.SequenceStart)) {
+			List<Object> list = new ArrayList<>();
+			rememberAnchor(event, list);
+
+			for (Event next = nextEvent(); !next.is(Event.ID.SequenceEnd); next = nextEvent())
+				list.add(readNode(next));
+
+			return list;
+		}
+
+		if (event.is(Event.ID.MappingStart)) {
+			Map<Object, Object> map = new LinkedHashMap<>();
+			rememberAnchor(event, map);
+
+			for (Event next = nextEvent(); !next.is(Event.ID.MappingEnd); next = nextEvent()) {
+				Object mapKey = readNode(next);
+				map.put(mapKey, readNode(nextEvent()));
+			}
+			return map;
+		}
+
+		throw new YAMLException("Unexpected event " + event);
+	}
+
+	private void rememberAnchor(Event event, Object result) {
+
+		String anchor = ((NodeEvent) event).getAnchor();
+
+		if (anchor != null)
+			anchors.put(anchor, result);
+	}
+
+	/**
+	 * Gives access to the SafeConstructor scalar handling
+	 * without it tracking every node it has constructed.
+	 */
+	private static class ScalarConstructor extends SafeConstructor {
+
+		Object construct(ScalarNode node) {
+
+			return getConstructor(node).construct(node);
+		}
+	}
+}
@@ -0,0 +1,212 @@
+/*
+ *  GroupManager - A plug-in for Spigot/Bukkit based Minecraft servers.
+ *  Copyright (C) 2020  ElgarL
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.anjocaido.groupmanager.dataholder.yaml;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.Map;
+
+import org.anjocaido.groupmanager.dataholder.DataEntryWriter;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.Yaml;
+
+/**
+ * Block style YAML writer for the users.yml and groups.yml.
+ *
+ * Each entry of the root mapping is written straight to the output
+ * as soon as it is handed over, so only one user or group is held at a time.
+ * Every entry is dumped by SnakeYAML as a document holding just the root key
+ * and that entry, and the root key line is dropped after the first.
+ * Block style output of one entry doesn't depend on its neighbours,
+ * so the result is the same as a Yaml.dump() of the whole root.
+ *
+ * @author ElgarL
+ *
+ */
+public class YamlDataWriter implements DataEntryWriter {
+
+	private static final char LINE_BREAK = '\n';
+
+	private final Writer out;
+	private final Yaml yaml;
+
+	private String rootKey = null;
+	private boolean rootWritten = false;
+
+	/**
+	 *
+	 * @param out	the Writer to send the YAML to.
+	 */
+	public YamlDataWriter(Writer out) {
+
+		this.out = out;
+
+		DumperOptions opt = new DumperOptions();
+		opt.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+		this.yaml = new Yaml(opt);
+	}
+
+	/**
+	 * The header is written as is, so must already be in comment form.
+	 */
+	@Override
+	public void writeHeader(String text) throws IOException {
+
+		out.write(text);
+	}
+
+	/**
+	 * Begin the root mapping node. Its entries
+	 * are then added using {@link #writeEntry(String, Map)}.
+	 *
+	 * @param key	name of the root node ('users' or 'groups').
+	 */
+	@Override
+	public void startRoot(String key) {
+
+		rootKey = key;
+		rootWritten = false;
+	}
+
+	/**
+	 * Write a single entry of the root node.
+	 *
+	 * @param key	the entry name.
+	 * @param value	the entry data.
+	 * @throws IOException
+	 */
+	@Override
+	public void writeEntry(String key, Map<String, Object> value) throws IOException {
+
+		yaml.dump(Collections.singletonMap(rootKey, Collections.singletonMap(key, value)), new EntryWriter(out, rootWritten));
+		rootWritten = true;
+	}
+
+	/**
+	 * Create a writer for entries of the current root node.
+	 * Its output can be produced on another thread
+	 * and then added in order with {@link #writeEntries(String)}.
+	 *
+	 * @param out	where the entries are to be written.
+	 * @return	a new YamlDataWriter.
+	 */
+	public YamlDataWriter entryWriter(Writer out) {
+
+		YamlDataWriter writer = new YamlDataWriter(out);
+		writer.rootKey = rootKey;
+		writer.rootWritten = true;
+		return writer;
+	}
+
+	/**
+	 * Add entries rendered by an {@link #entryWriter(Writer)}.
+	 *
+	 * @param entries
+	 * @throws IOException
+	 */
+	public void writeEntries(String entries) throws IOException {
+
+		if (entries.isEmpty())
+			return;
+
+		if (!rootWritten) {
+			// The root keys are plain words, so this is how SnakeYAML writes them.
+			out.write(rootKey);
+			out.write(':');
+			out.write(LINE_BREAK);
+			rootWritten = true;
+		}
+		out.write(entries);
+	}
+
+	/**
+	 * End the root node, writing it as empty if it had no entries.
+	 *
+	 * @throws IOException
+	 */
+	@Override
+	public void endRoot() throws IOException {
+
+		if (!rootWritten)
+			yaml.dump(Collections.singletonMap(rootKey, Collections.emptyMap()), new EntryWriter(out, false));
+
+		rootKey = null;
+	}
+
+	@Override
+	public void close() throws IOException {
+
+		out.close();
+	}
+
+	/*
+	 * Passes a single dump on to the output, optionally without its first
+	 * (root key) line. SnakeYAML flushes at the end of every dump,
+	 * which is left to the output's own buffering.
+	 */
+	private static class EntryWriter extends FilterWriter {
+
+		private boolean skipping;
+
+		private EntryWriter(Writer out, boolean skipRootKey) {
+
+			super(out);
+			this.skipping = skipRootKey;
+		}
+
+		@Override
+		public void write(int c) throws IOException {
+
+			if (skipping) {
+				skipping = c != LINE_BREAK;
+				return;
+			}
+			out.write(c);
+		}
+
+		@Override
+		public void write(char[] cbuf, int off, int len) throws IOException {
+
+			while (skipping && len > 0) {
+				skipping = cbuf[off++] != LINE_BREAK;
+				len--;
+			}
+			if (len > 0)
+				out.write(cbuf, off, len);
+		}
+
+		@Override
+		public void write(String str, int off, int len) throws IOException {
+
+			while (skipping && len > 0) {
+				skipping = str.charAt(off++) != LINE_BREAK;
+				len--;
+			}
+			if (len > 0)
+				out.write(str, off, len);
+		}
+
+		@Override
+		public void flush() {}
+
+		@Override
+		public void close() {}
+	}
+}
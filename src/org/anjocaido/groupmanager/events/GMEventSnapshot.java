@@ -0,0 +1,147 @@
+/*
+ *  GroupManager - A plug-in for Spigot/Bukkit based Minecraft servers.
+ *  Copyright (C) 2020  ElgarL
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.anjocaido.groupmanager.events;
+
+import org.anjocaido.groupmanager.data.Group;
+import org.anjocaido.groupmanager.data.User;
+
+/**
+ * An immutable copy of a GroupManager event, taken when the event is raised.
+ * 
+ * These are delivered to async subscribers (see
+ * {@link GroupManagerEventHandler#subscribe(java.util.function.Consumer)})
+ * off the main thread, so they carry names rather than live User or Group
+ * objects.
+ * 
+ * @author ElgarL
+ *
+ */
+public final class GMEventSnapshot {
+
+	public enum Type {
+		USER, GROUP, SYSTEM
+	}
+
+	private final Type type;
+	private final Enum<?> action;
+	private final String name;
+	private final String uUID;
+	private final String world;
+	private final String groupName;
+	private final long time;
+
+	private GMEventSnapshot(Type type, Enum<?> action, String name, String uUID, String world, String groupName) {
+
+		this.type = type;
+		this.action = action;
+		this.name = name;
+		this.uUID = uUID;
+		this.world = world;
+		this.groupName = groupName;
+		this.time = System.currentTimeMillis();
+	}
+
+	static GMEventSnapshot of(GMUserEvent event) {
+
+		User user = event.getUser();
+
+		if (user == null)
+			return new GMEventSnapshot(Type.USER, event.getAction(), event.getUserName(), null, null, null);
+
+		return new GMEventSnapshot(Type.USER, event.getAction(), user.getLastName(), user.getUUID(),
+				(user.getDataSource() != null) ? user.getDataSource().getName() : null, user.getGroupName());
+	}
+
+	static GMEventSnapshot of(GMGroupEvent event) {
+
+		Group group = event.getGroup();
+
+		if (group == null)
+			return new GMEventSnapshot(Type.GROUP, event.getAction(), event.getGroupName(), null, null, null);
+
+		return new GMEventSnapshot(Type.GROUP, event.getAction(), group.getName(), null,
+				(group.getDataSource() != null) ? group.getDataSource().getName() : null, group.getName());
+	}
+
+	static GMEventSnapshot of(GMSystemEvent event) {
+
+		return new GMEventSnapshot(Type.SYSTEM, event.getAction(), null, null, null, null);
+	}
+
+	/**
+	 * @return which kind of event this is.
+	 */
+	public Type getType() {
+
+		return type;
+	}
+
+	/**
+	 * @return the action, one of GMUserEvent.Action, GMGroupEvent.Action or GMSystemEvent.Action.
+	 */
+	public Enum<?> getAction() {
+
+		return action;
+	}
+
+	/**
+	 * @return the user or group name, or null for system events.
+	 */
+	public String getName() {
+
+		return name;
+	}
+
+	/**
+	 * @return the users UUID, or null if it was not known.
+	 */
+	public String getUUID() {
+
+		return uUID;
+	}
+
+	/**
+	 * @return the world the user or group belongs to, or null for global groups and system events.
+	 */
+	public String getWorld() {
+
+		return world;
+	}
+
+	/**
+	 * @return the users main group (or the group itself) at the time of the event.
+	 */
+	public String getGroupName() {
+
+		return groupName;
+	}
+
+	/**
+	 * @return when the event was raised, in milliseconds.
+	 */
+	public long getTime() {
+
+		return time;
+	}
+
+	@Override
+	public String toString() {
+
+		return type + ":" + action + ((name != null) ? ":" + name : "") + ((world != null) ? "@" + world : ""); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+	}
+}
@@ -17,22 +17,59 @@
  */
 package org.anjocaido.groupmanager.events;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
 import org.anjocaido.groupmanager.GroupManager;
 import org.anjocaido.groupmanager.data.Group;
 import org.anjocaido.groupmanager.data.User;
+import org.anjocaido.groupmanager.localization.Messages;
 import org.bukkit.Server;
+import org.bukkit.event.Event;
 
 /**
  * @author ElgarL
  * 
  *         Handles all Event generation.
+ *         
+ *         Events are queued and fired together on the next tick. Repeats of
+ *         the same action on the same subject within a tick are only fired once.
+ *         
+ *         Plugins which don't need the main thread can {@link #subscribe(Consumer)}
+ *         instead, and receive a {@link GMEventSnapshot} of each event on a
+ *         GroupManager worker thread as soon as it is raised.
  * 
  */
 public class GroupManagerEventHandler {
 	
+	/*
+	 * Log a summary when a single tick dispatches at least this many events.
+	 */
+	private static final int REPORT_THRESHOLD = 100;
+	
 	private final Server server;
 	private final GroupManager plugin;
 	
+	/*
+	 * Pending events keyed on (type, subject, action), in the order first raised.
+	 */
+	private final Map<List<Object>, Event> queue = new LinkedHashMap<>();
+	private int drainTask = -1;
+	private int collapsed = 0;
+	private int peakDepth = 0;
+	private long totalCollapsed = 0;
+	
+	private final List<Consumer<GMEventSnapshot>> subscribers = new CopyOnWriteArrayList<>();
+	private ExecutorService asyncWorker = null;
+	
 
 	public GroupManagerEventHandler(GroupManager plugin) {
 		
@@ -43,17 +80,22 @@ public class GroupManagerEventHandler {
 
 	protected void callEvent(GMGroupEvent event) {
 		
-		try { event.schedule(event); } catch (Exception ignored) {}
+		Object subject = (event.getGroup() != null) ? event.getGroup() : String.valueOf(event.getGroupName()).toLowerCase();
+		if (queue(Arrays.asList(GMGroupEvent.class, subject, event.getAction()), event) && !subscribers.isEmpty())
+			publish(GMEventSnapshot.of(event));
 	}
 
 	protected void callEvent(GMUserEvent event) {
 
-		try { event.schedule(event); } catch (Exception ignored) {}
+		Object subject = (event.getUser() != null) ? event.getUser() : String.valueOf(event.getUserName()).toLowerCase();
+		if (queue(Arrays.asList(GMUserEvent.class, subject, event.getAction()), event) && !subscribers.isEmpty())
+			publish(GMEventSnapshot.of(event));
 	}
 
 	protected void callEvent(GMSystemEvent event) {
 
-		try { event.schedule(event); } catch (Exception ignored) {}
+		if (queue(Arrays.asList(GMSystemEvent.class, event.getAction()), event) && !subscribers.isEmpty())
+			publish(GMEventSnapshot.of(event));
 	}
 
 	public void callEvent(Group group, GMGroupEvent.Action action) {
@@ -81,6 +123,158 @@ public class GroupManagerEventHandler {
 		callEvent(new GMSystemEvent(action));
 	}
 	
+	/**
+	 * Add an event to the queue, replacing any pending event with the same key,
+	 * and make sure a drain is scheduled for the next tick.
+	 * 
+	 * @param key	(type, subject, action) of the event.
+	 * @param event	the event to fire.
+	 * @return true if this is a new event, false if it replaced a pending one.
+	 */
+	private boolean queue(List<Object> key, Event event) {
+		
+		synchronized (queue) {
+			boolean added = (queue.put(key, event) == null);
+			
+			if (!added)
+				collapsed++;
+			peakDepth = Math.max(peakDepth, queue.size());
+			
+			if (drainTask != -1 && server.getScheduler().isQueued(drainTask))
+				return added;
+			
+			try {
+				drainTask = server.getScheduler().scheduleSyncDelayedTask(plugin, this::drain, 1);
+			} catch (Exception ignored) {
+				drainTask = -1;
+			}
+			
+			if (drainTask == -1) {
+				// Not able to schedule (plugin disabled), so drop what we have.
+				GroupManager.logger.warning(Messages.getString("GroupManagerEventHandler.ERROR_SCHEDULING")); //$NON-NLS-1$
+				queue.clear();
+				collapsed = 0;
+			}
+			return added;
+		}
+	}
+	
+	/**
+	 * Fire every queued event. Runs on the main thread once per tick while
+	 * there are events pending.
+	 */
+	private void drain() {
+		
+		List<Event> events;
+		int merged;
+		
+		synchronized (queue) {
+			events = new ArrayList<>(queue.values());
+			merged = collapsed;
+			
+			queue.clear();
+			collapsed = 0;
+			totalCollapsed += merged;
+			drainTask = -1;
+		}
+		
+		for (Event event : events)
+			server.getPluginManager().callEvent(event);
+		
+		if (events.size() >= REPORT_THRESHOLD)
+			GroupManager.logger.info(String.format(Messages.getString("GroupManagerEventHandler.EVENTS_DISPATCHED"), events.size(), merged)); //$NON-NLS-1$
+	}
+	
+	/**
+	 * Register a consumer to receive a snapshot of every GroupManager event.
+	 * Consumers are called in order on a single GroupManager worker thread,
+	 * never the main thread, and must not modify GroupManager data directly.
+	 * 
+	 * @param consumer	the consumer to add.
+	 */
+	public void subscribe(Consumer<GMEventSnapshot> consumer) {
+		
+		subscribers.add(consumer);
+	}
+	
+	/**
+	 * Stop delivering events to a consumer.
+	 * 
+	 * @param consumer	the consumer to remove.
+	 * @return true if it was subscribed.
+	 */
+	public boolean unsubscribe(Consumer<GMEventSnapshot> consumer) {
+		
+		return subscribers.remove(consumer);
+	}
+	
+	/**
+	 * Hand a snapshot to every async subscriber on the worker thread.
+	 * 
+	 * @param snapshot	the event to deliver.
+	 */
+	private synchronized void publish(GMEventSnapshot snapshot) {
+		
+		if (asyncWorker == null) {
+			asyncWorker = Executors.newSingleThreadExecutor(r -> {
+				Thread thread = new Thread(r, "GroupManager-Events"); //$NON-NLS-1$
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		
+		asyncWorker.execute(() -> {
+			for (Consumer<GMEventSnapshot> consumer : subscribers) {
+				try {
+					consumer.accept(snapshot);
+				} catch (Exception ex) {
+					GroupManager.logger.log(Level.WARNING, String.format(Messages.getString("GroupManagerEventHandler.ERROR_SUBSCRIBER"), snapshot), ex); //$NON-NLS-1$
+				}
+			}
+		});
+	}
+	
+	/**
+	 * Stop the async worker. Snapshots already handed to it are still delivered.
+	 */
+	public synchronized void shutdown() {
+		
+		if (asyncWorker != null) {
+			asyncWorker.shutdown();
+			asyncWorker = null;
+		}
+	}
+	
+	/**
+	 * @return the number of events waiting for the next tick.
+	 */
+	public int getQueueDepth() {
+		
+		synchronized (queue) {
+			return queue.size();
+		}
+	}
+	
+	/**
+	 * @return the largest number of events that have been waiting at once.
+	 */
+	public int getPeakQueueDepth() {
+		
+		synchronized (queue) {
+			return peakDepth;
+		}
+	}
+	
+	/**
+	 * @return the number of duplicate events which have been collapsed.
+	 */
+	public long getCollapsedCount() {
+		
+		synchronized (queue) {
+			return totalCollapsed + collapsed;
+		}
+	}
+	
 	/**
 	 * @return the plugin
 	 */
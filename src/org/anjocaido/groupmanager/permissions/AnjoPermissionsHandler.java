@@ -24,6 +24,8 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+
 import org.anjocaido.groupmanager.GroupManager;
 import org.anjocaido.groupmanager.data.Group;
 import org.anjocaido.groupmanager.data.User;
@@ -56,6 +58,17 @@ public class AnjoPermissionsHandler extends PermissionsReaderInterface {
 		ph = holder;
 	}
 
+	/**
+	 * An immutable copy of this world's data for queries made
+	 * off the main thread, see {@link WorldDataHolder#getSnapshot()}.
+	 * 
+	 * @return the latest published snapshot.
+	 */
+	public PermissionsSnapshot getSnapshot() {
+
+		return ph.getSnapshot();
+	}
+
 	/**
 	 * A short name method, for permission method.
 	 * 
@@ -79,7 +92,7 @@ public class AnjoPermissionsHandler extends PermissionsReaderInterface {
 	@Override
 	public boolean permission(Player player, String permission) {
 
-		return checkUserPermission(ph.getUser(player.getUniqueId().toString()), permission);
+		return checkUserPermission(ph.getUser(player.getUniqueId()), permission);
 	}
 
 	/**
@@ -103,7 +116,26 @@ public class AnjoPermissionsHandler extends PermissionsReaderInterface {
 	@Override
 	public String getGroup(String userName) {
 
-		return ph.getUser(userName).getGroup().getName();
+		return getGroup(ph.getUser(userName));
+	}
+
+	/**
+	 * Returns the name of the group of that player name.
+	 * 
+	 * The user is looked up by UUID, without any name matching.
+	 * 
+	 * @param uuid
+	 * @return String of players group name.
+	 */
+	@Override
+	public String getGroup(UUID uuid) {
+
+		return getGroup(ph.getUser(uuid));
+	}
+
+	private String getGroup(User auser) {
+
+		return auser.getGroup().getName();
 	}
 
 	/**
@@ -116,7 +148,27 @@ public class AnjoPermissionsHandler extends PermissionsReaderInterface {
 	@Override
 	public List<String> getAllPlayersPermissions(String userName) {
 
-		return new ArrayList<>(getAllPlayersPermissions(userName, true));
+		return getAllPlayersPermissions(ph.getUser(userName));
+	}
+
+	/**
+	 * Returns All permissions (including inheritance and sub groups) for the
+	 * player, including child nodes from Bukkit.
+	 * 
+	 * The user is looked up by UUID, without any name matching.
+	 * 
+	 * @param uuid
+	 * @return List<String> of all players permissions.
+	 */
+	@Override
+	public List<String> getAllPlayersPermissions(UUID uuid) {
+
+		return getAllPlayersPermissions(ph.getUser(uuid));
+	}
+
+	private List<String> getAllPlayersPermissions(User auser) {
+
+		return new ArrayList<>(getAllPlayersPermissions(auser, true));
 	}
 
 	/**
@@ -129,15 +181,35 @@ public class AnjoPermissionsHandler extends PermissionsReaderInterface {
 	@Override
 	public Set<String> getAllPlayersPermissions(String userName, Boolean includeChildren) {
 
+		return getAllPlayersPermissions(ph.getUser(userName), includeChildren);
+	}
+
+	/**
+	 * Returns All permissions (including inheritance and sub groups) for the
+	 * player. With or without Bukkit child nodes.
+	 * 
+	 * The user is looked up by UUID, without any name matching.
+	 * 
+	 * @param uuid
+	 * @return Set<String> of all players permissions.
+	 */
+	@Override
+	public Set<String> getAllPlayersPermissions(UUID uuid, Boolean includeChildren) {
+
+		return getAllPlayersPermissions(ph.getUser(uuid), includeChildren);
+	}
+
+	private Set<String> getAllPlayersPermissions(User auser, Boolean includeChildren) {
+
 		Set<String> overrides = new LinkedHashSet<>();
 
 		// Add the players own permissions.
-		Set<String> playerPermArray = new LinkedHashSet<>(populatePerms(ph.getUser(userName).getAllPermissionList(), includeChildren));
+		Set<String> playerPermArray = new LinkedHashSet<>(populatePerms(auser.getAllPermissionList(), includeChildren));
 
 		ArrayList<String> alreadyProcessed = new ArrayList<>();
 
 		// fetch all group permissions
-		for (String group : getGroups(userName)) {
+		for (String group : getGroups(auser)) {
 			// Don't process a group more than once.
 			if (!alreadyProcessed.contains(group)) {
 				alreadyProcessed.add(group);
@@ -308,10 +380,38 @@ public class AnjoPermissionsHandler extends PermissionsReaderInterface {
 	@Override
 	public boolean inGroup(String name, String group) {
 
-		if (hasGroupInInheritance(ph.getUser(name).getGroup(), group)) {
+		return inGroup(ph.getUser(name), group);
+	}
+
+	/**
+	 * Verify if player is in such group. It will check it's groups inheritance.
+	 * 
+	 * So if you have a group Admin > Moderator
+	 * 
+	 * And verify the player 'MyAdmin', which is Admin, it will return true for
+	 * both Admin or Moderator groups.
+	 * 
+	 * If you have a player 'MyModerator', which is Moderator, it will give
+	 * false if you pass Admin in group parameter.
+	 * 
+	 * The user is looked up by UUID, without any name matching.
+	 * 
+	 * @param uuid
+	 * @param group
+	 * @return true if in group (with inheritance)
+	 */
+	@Override
+	public boolean inGroup(UUID uuid, String group) {
+
+		return inGroup(ph.getUser(uuid), group);
+	}
+
+	private boolean inGroup(User auser, String group) {
+
+		if (hasGroupInInheritance(auser.getGroup(), group)) {
 			return true;
 		}
-		for (Group subGroup : ph.getUser(name).subGroupListCopy()) {
+		for (Group subGroup : auser.subGroupListCopy()) {
 			if (hasGroupInInheritance(subGroup, group)) {
 				return true;
 			}
@@ -332,18 +432,41 @@ public class AnjoPermissionsHandler extends PermissionsReaderInterface {
 	@Override
 	public String getUserPrefix(String user) {
 
+		return getUserPrefix(ph.getUser(user));
+	}
+
+	/**
+	 * Gets the appropriate prefix for the user. This method is a utility method
+	 * for chat plugins to get the user's prefix without having to look at every
+	 * one of the user's ancestors. Returns an empty string if user has no
+	 * parent groups.
+	 * 
+	 * The user is looked up by UUID, without any name matching.
+	 * 
+	 * @param uuid
+	 *            Player's UUID
+	 * @return Player's prefix
+	 */
+	@Override
+	public String getUserPrefix(UUID uuid) {
+
+		return getUserPrefix(ph.getUser(uuid));
+	}
+
+	private String getUserPrefix(User auser) {
+
 		// Check for a direct prefix
-		String prefix = ph.getUser(user).getVariables().getVarString("prefix");
+		String prefix = auser.getVariables().getVarString("prefix");
 		if (!prefix.isEmpty())
 			return prefix;
 		
 		// Check for a main group prefix
-		prefix = getGroupPrefix(getGroup(user));
+		prefix = getGroupPrefix(getGroup(auser));
 		if (!prefix.isEmpty())
 			return prefix;
 		
 		// Check for a subgroup prefix
-		for (String group : ph.getUser(user).subGroupListStringCopy()) {
+		for (String group : auser.subGroupListStringCopy()) {
 			prefix = getGroupPrefix(group);
 			if (!prefix.isEmpty())
 				break;
@@ -365,18 +488,41 @@ public class AnjoPermissionsHandler extends PermissionsReaderInterface {
 	@Override
 	public String getUserSuffix(String user) {
 
+		return getUserSuffix(ph.getUser(user));
+	}
+
+	/**
+	 * Gets the appropriate prefix for the user. This method is a utility method
+	 * for chat plugins to get the user's prefix without having to look at every
+	 * one of the user's ancestors. Returns an empty string if user has no
+	 * parent groups.
+	 * 
+	 * The user is looked up by UUID, without any name matching.
+	 * 
+	 * @param uuid
+	 *            Player's UUID
+	 * @return Player's prefix
+	 */
+	@Override
+	public String getUserSuffix(UUID uuid) {
+
+		return getUserSuffix(ph.getUser(uuid));
+	}
+
+	private String getUserSuffix(User auser) {
+
 		// Check for a direct suffix
-		String suffix = ph.getUser(user).getVariables().getVarString("suffix");
+		String suffix = auser.getVariables().getVarString("suffix");
 		if (!suffix.isEmpty())
 			return suffix;
 		
 		// Check for a main group suffix
-		suffix = getGroupSuffix(getGroup(user));
+		suffix = getGroupSuffix(getGroup(auser));
 		if (!suffix.isEmpty())
 			return suffix;
 		
 		// Check for a subgroup suffix
-		for (String group : ph.getUser(user).subGroupListStringCopy()) {
+		for (String group : auser.subGroupListStringCopy()) {
 			suffix = getGroupSuffix(group);
 			if (!suffix.isEmpty())
 				break;
@@ -396,7 +542,28 @@ public class AnjoPermissionsHandler extends PermissionsReaderInterface {
 	 */
 	public String getPrimaryGroup(String user) {
 
-		return getGroup(user);
+		return getPrimaryGroup(ph.getUser(user));
+	}
+
+	/**
+	 * Gets name of the primary group of the user. Returns the name of the
+	 * default group if user has no parent groups, or "Default" if there is no
+	 * default group for that world.
+	 * 
+	 * The user is looked up by UUID, without any name matching.
+	 * 
+	 * @param uuid
+	 *            Player's UUID
+	 * @return Name of player's primary group
+	 */
+	public String getPrimaryGroup(UUID uuid) {
+
+		return getPrimaryGroup(ph.getUser(uuid));
+	}
+
+	private String getPrimaryGroup(User auser) {
+
+		return getGroup(auser);
 
 	}
 
@@ -560,7 +727,26 @@ public class AnjoPermissionsHandler extends PermissionsReaderInterface {
 	@Override
 	public String getUserPermissionString(String user, String variable) {
 
-		User auser = ph.getUser(user);
+		return getUserPermissionString(ph.getUser(user), variable);
+	}
+
+	/**
+	 * Returns the variable value of the user, in INFO node.
+	 * 
+	 * The user is looked up by UUID, without any name matching.
+	 * 
+	 * @param uuid
+	 * @param variable
+	 * @return empty string if not found
+	 */
+	@Override
+	public String getUserPermissionString(UUID uuid, String variable) {
+
+		return getUserPermissionString(ph.getUser(uuid), variable);
+	}
+
+	private String getUserPermissionString(User auser, String variable) {
+
 		if (auser == null) {
 			return "";
 		}
@@ -577,7 +763,26 @@ public class AnjoPermissionsHandler extends PermissionsReaderInterface {
 	@Override
 	public int getUserPermissionInteger(String user, String variable) {
 
-		User auser = ph.getUser(user);
+		return getUserPermissionInteger(ph.getUser(user), variable);
+	}
+
+	/**
+	 * Returns the variable value of the user, in INFO node.
+	 * 
+	 * The user is looked up by UUID, without any name matching.
+	 * 
+	 * @param uuid
+	 * @param variable
+	 * @return -1 if not found
+	 */
+	@Override
+	public int getUserPermissionInteger(UUID uuid, String variable) {
+
+		return getUserPermissionInteger(ph.getUser(uuid), variable);
+	}
+
+	private int getUserPermissionInteger(User auser, String variable) {
+
 		if (auser == null) {
 			return -1;
 		}
@@ -594,7 +799,26 @@ public class AnjoPermissionsHandler extends PermissionsReaderInterface {
 	@Override
 	public boolean getUserPermissionBoolean(String user, String variable) {
 
-		User auser = ph.getUser(user);
+		return getUserPermissionBoolean(ph.getUser(user), variable);
+	}
+
+	/**
+	 * Returns the variable value of the user, in INFO node.
+	 * 
+	 * The user is looked up by UUID, without any name matching.
+	 * 
+	 * @param uuid
+	 * @param variable
+	 * @return boolean value
+	 */
+	@Override
+	public boolean getUserPermissionBoolean(UUID uuid, String variable) {
+
+		return getUserPermissionBoolean(ph.getUser(uuid), variable);
+	}
+
+	private boolean getUserPermissionBoolean(User auser, String variable) {
+
 		if (auser == null) {
 			return false;
 		}
@@ -611,7 +835,26 @@ public class AnjoPermissionsHandler extends PermissionsReaderInterface {
 	@Override
 	public double getUserPermissionDouble(String user, String variable) {
 
-		User auser = ph.getUser(user);
+		return getUserPermissionDouble(ph.getUser(user), variable);
+	}
+
+	/**
+	 * Returns the variable value of the user, in INFO node.
+	 * 
+	 * The user is looked up by UUID, without any name matching.
+	 * 
+	 * @param uuid
+	 * @param variable
+	 * @return -1 if not found
+	 */
+	@Override
+	public double getUserPermissionDouble(UUID uuid, String variable) {
+
+		return getUserPermissionDouble(ph.getUser(uuid), variable);
+	}
+
+	private double getUserPermissionDouble(User auser, String variable) {
+
 		if (auser == null) {
 			return -1;
 		}
@@ -630,7 +873,28 @@ public class AnjoPermissionsHandler extends PermissionsReaderInterface {
 	@Override
 	public String getPermissionString(String user, String variable) {
 
-		User auser = ph.getUser(user);
+		return getPermissionString(ph.getUser(user), variable);
+	}
+
+	/**
+	 * Returns the variable value of the user, in INFO node. If not found, it
+	 * will search for his Group variables. It will harvest the inheritance and
+	 * subgroups.
+	 * 
+	 * The user is looked up by UUID, without any name matching.
+	 * 
+	 * @param uuid
+	 * @param variable
+	 * @return empty string if not found
+	 */
+	@Override
+	public String getPermissionString(UUID uuid, String variable) {
+
+		return getPermissionString(ph.getUser(uuid), variable);
+	}
+
+	private String getPermissionString(User auser, String variable) {
+
 		if (auser == null) {
 			return "";
 		}
@@ -668,7 +932,28 @@ public class AnjoPermissionsHandler extends PermissionsReaderInterface {
 	@Override
 	public int getPermissionInteger(String user, String variable) {
 
-		User auser = ph.getUser(user);
+		return getPermissionInteger(ph.getUser(user), variable);
+	}
+
+	/**
+	 * Returns the variable value of the user, in INFO node. If not found, it
+	 * will search for his Group variables. It will harvest the inheritance and
+	 * subgroups.
+	 * 
+	 * The user is looked up by UUID, without any name matching.
+	 * 
+	 * @param uuid
+	 * @param variable
+	 * @return -1 if not found
+	 */
+	@Override
+	public int getPermissionInteger(UUID uuid, String variable) {
+
+		return getPermissionInteger(ph.getUser(uuid), variable);
+	}
+
+	private int getPermissionInteger(User auser, String variable) {
+
 		if (auser == null) {
 			return -1;
 		}
@@ -706,7 +991,28 @@ public class AnjoPermissionsHandler extends PermissionsReaderInterface {
 	@Override
 	public boolean getPermissionBoolean(String user, String variable) {
 
-		User auser = ph.getUser(user);
+		return getPermissionBoolean(ph.getUser(user), variable);
+	}
+
+	/**
+	 * Returns the variable value of the user, in INFO node. If not found, it
+	 * will search for his Group variables. It will harvest the inheritance and
+	 * subgroups.
+	 * 
+	 * The user is looked up by UUID, without any name matching.
+	 * 
+	 * @param uuid
+	 * @param variable
+	 * @return false if not found or not parseable to true.
+	 */
+	@Override
+	public boolean getPermissionBoolean(UUID uuid, String variable) {
+
+		return getPermissionBoolean(ph.getUser(uuid), variable);
+	}
+
+	private boolean getPermissionBoolean(User auser, String variable) {
+
 		if (auser == null) {
 			return false;
 		}
@@ -744,7 +1050,28 @@ public class AnjoPermissionsHandler extends PermissionsReaderInterface {
 	@Override
 	public double getPermissionDouble(String user, String variable) {
 
-		User auser = ph.getUser(user);
+		return getPermissionDouble(ph.getUser(user), variable);
+	}
+
+	/**
+	 * Returns the variable value of the user, in INFO node. If not found, it
+	 * will search for his Group variables. It will harvest the inheritance and
+	 * subgroups.
+	 * 
+	 * The user is looked up by UUID, without any name matching.
+	 * 
+	 * @param uuid
+	 * @param variable
+	 * @return -1 if not found.
+	 */
+	@Override
+	public double getPermissionDouble(UUID uuid, String variable) {
+
+		return getPermissionDouble(ph.getUser(uuid), variable);
+	}
+
+	private double getPermissionDouble(User auser, String variable) {
+
 		if (auser == null) {
 			return -1.0D;
 		}
@@ -1160,6 +1487,19 @@ public class AnjoPermissionsHandler extends PermissionsReaderInterface {
 	 */
 	public PermissionCheckResult.Type comparePermissionString(String userAccessLevel, String fullPermissionName) {
 
+		return compare(userAccessLevel, fullPermissionName);
+	}
+
+	/**
+	 * The matching behind {@link #comparePermissionString(String, String)},
+	 * shared with {@link PermissionsSnapshot}.
+	 * 
+	 * @param userAccessLevel
+	 * @param fullPermissionName
+	 * @return PermissionCheckResult.Type
+	 */
+	static PermissionCheckResult.Type compare(String userAccessLevel, String fullPermissionName) {
+
 		int userAccessLevelLength;
 		if (userAccessLevel == null || fullPermissionName == null || fullPermissionName.length() == 0 || (userAccessLevelLength = userAccessLevel.length()) == 0) {
 			return PermissionCheckResult.Type.NOTFOUND;
@@ -1211,8 +1551,29 @@ public class AnjoPermissionsHandler extends PermissionsReaderInterface {
 	@Override
 	public String[] getGroups(String userName) {
 
-		ArrayList<String> allGroups = listAllGroupsInherited(ph.getUser(userName).getGroup());
-		for (Group subg : ph.getUser(userName).subGroupListCopy()) {
+		return getGroups(ph.getUser(userName));
+	}
+
+	/**
+	 * Returns a list of all groups.
+	 * 
+	 * Including subgroups.
+	 * 
+	 * The user is looked up by UUID, without any name matching.
+	 * 
+	 * @param uuid
+	 * @return String[] of all group names.
+	 */
+	@Override
+	public String[] getGroups(UUID uuid) {
+
+		return getGroups(ph.getUser(uuid));
+	}
+
+	private String[] getGroups(User auser) {
+
+		ArrayList<String> allGroups = listAllGroupsInherited(auser.getGroup());
+		for (Group subg : auser.subGroupListCopy()) {
 			allGroups.addAll(listAllGroupsInherited(subg));
 		}
 
@@ -1227,9 +1588,27 @@ public class AnjoPermissionsHandler extends PermissionsReaderInterface {
 	 * @return String[] of all group names.
 	 */
 	public String[] getSubGroups(String userName) {
+
+		return getSubGroups(ph.getUser(userName));
+	}
+
+	/**
+	 * Returns a list of all subgroups.
+	 * 
+	 * The user is looked up by UUID, without any name matching.
+	 * 
+	 * @param uuid
+	 * @return String[] of all group names.
+	 */
+	public String[] getSubGroups(UUID uuid) {
+
+		return getSubGroups(ph.getUser(uuid));
+	}
+
+	private String[] getSubGroups(User auser) {
 		
 		Set<String> allGroups = new HashSet<>();
-		for (Group subg : ph.getUser(userName).subGroupListCopy()) {
+		for (Group subg : auser.subGroupListCopy()) {
 			allGroups.addAll(listAllGroupsInherited(subg));
 		}
 		
@@ -19,6 +19,7 @@ package org.anjocaido.groupmanager.permissions;
 
 import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
@@ -29,7 +30,10 @@ import java.util.Map;
 import java.util.Set;
 import org.anjocaido.groupmanager.GroupManager;
 import org.anjocaido.groupmanager.data.User;
+import org.anjocaido.groupmanager.dataholder.OverloadedWorldHolder;
+import org.anjocaido.groupmanager.dataholder.WorldDataHolder;
 import org.anjocaido.groupmanager.events.GMUserEvent;
+import org.anjocaido.groupmanager.utils.PrefixIndex;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
@@ -45,6 +49,7 @@ import org.bukkit.event.server.PluginEnableEvent;
 import org.bukkit.permissions.Permission;
 import org.bukkit.permissions.PermissionAttachment;
 import org.bukkit.permissions.PermissionAttachmentInfo;
+import org.bukkit.plugin.IllegalPluginAccessException;
 import org.bukkit.plugin.PluginManager;
 
 /**
@@ -56,6 +61,7 @@ public class BukkitPermissions {
 
     protected LinkedHashMap<String, PermissionAttachment> attachments = new LinkedHashMap<>();
     protected LinkedHashMap<String, Permission> registeredPermissions = new LinkedHashMap<>();
+    protected final PrefixIndex permissionIndex = new PrefixIndex();
     protected GroupManager plugin;
     private boolean player_join = false;
 
@@ -139,9 +145,11 @@ public class BukkitPermissions {
     public void collectPermissions() {
 
         registeredPermissions.clear();
+        permissionIndex.clear();
 
         for (Permission perm : Bukkit.getPluginManager().getPermissions()) {
             registeredPermissions.put(perm.getName().toLowerCase(), perm);
+            permissionIndex.add(perm.getName());
         }
 
     }
@@ -185,7 +193,7 @@ public class BukkitPermissions {
 
         // Add all permissions for this player (GM only)
         // child nodes will be calculated by Bukkit.
-        List<String> playerPermArray = new ArrayList<>(plugin.getWorldsHolder().getWorldData(world).getPermissionsHandler().getAllPlayersPermissions(uuid, false));
+        List<String> playerPermArray = new ArrayList<>(plugin.getWorldsHolder().getWorldData(world).getPermissionsHandler().getAllPlayersPermissions(player.getUniqueId(), false));
         LinkedHashMap<String, Boolean> newPerms = new LinkedHashMap<>();
 
         // Sort the perm list by parent/child, so it will push to superperms
@@ -285,6 +293,14 @@ public class BukkitPermissions {
         return result;
     }
 
+    /**
+     * @return a prefix index of all permission nodes registered with superperms.
+     */
+    public PrefixIndex getPermissionIndex() {
+
+        return permissionIndex;
+    }
+
     /**
      * Fetch all permissions which are registered with superperms.
      * {can include child nodes)
@@ -407,6 +423,73 @@ public class BukkitPermissions {
         }
     }
 
+    /**
+     * Update only the online players using this data, whose User
+     * or any of whose groups are in the given sets.
+     * Called off the main thread (by a save, reload or expiry),
+     * the update is posted to the main thread instead.
+     *
+     * @param dataHolder the world data which changed.
+     * @param groupNames lower case names of the changed groups, including their dependants.
+     * @param userIds    lower case ids of the changed users.
+     */
+    public void updatePlayers(WorldDataHolder dataHolder, Collection<String> groupNames, Collection<String> userIds) {
+
+        if (groupNames.isEmpty() && userIds.isEmpty())
+            return;
+
+        if (!Bukkit.isPrimaryThread()) {
+            Set<String> groups = new HashSet<>(groupNames);
+            Set<String> users = new HashSet<>(userIds);
+
+            try {
+                Bukkit.getScheduler().runTask(plugin, () -> {
+                    if (GroupManager.isLoaded())
+                        updatePlayers(dataHolder, groups, users);
+                });
+            } catch (IllegalPluginAccessException ex) {
+                // Disabling, no players left to update.
+            }
+            return;
+        }
+
+        for (Player player : Bukkit.getServer().getOnlinePlayers()) {
+            if (isAffected(player, dataHolder, groupNames, userIds))
+                updatePermissions(player);
+        }
+    }
+
+    private boolean isAffected(Player player, WorldDataHolder dataHolder, Collection<String> groupNames, Collection<String> userIds) {
+
+        OverloadedWorldHolder worldData = plugin.getWorldsHolder().getWorldData(player);
+        String uuid = player.getUniqueId().toString().toLowerCase();
+        String name = player.getName().toLowerCase();
+
+        if ((worldData.getUsersObject() == dataHolder.getUsersObject()) && (userIds.contains(uuid) || userIds.contains(name)))
+            return true;
+
+        if (groupNames.isEmpty() || (worldData.getGroupsObject() != dataHolder.getGroupsObject()))
+            return false;
+
+        if (worldData.isOverloaded(uuid) || worldData.isOverloaded(name))
+            return true;
+
+        User user = worldData.getUsers().get(uuid);
+        if (user == null)
+            user = worldData.getUsers().get(name);
+        if (user == null)
+            return groupNames.contains(worldData.getDefaultGroup().getName().toLowerCase());
+
+        if (groupNames.contains(user.getGroupName().toLowerCase()))
+            return true;
+
+        for (String subGroup : user.subGroupListStringCopy())
+            if (groupNames.contains(subGroup.toLowerCase()))
+                return true;
+
+        return false;
+    }
+
     /**
      * force Bukkit to update this Players permissions.
      */
@@ -22,6 +22,7 @@ package org.anjocaido.groupmanager.permissions;
 //import java.util.Set;
 import java.util.List;
 import java.util.Set;
+import java.util.UUID;
 
 import org.anjocaido.groupmanager.data.Group;
 //import org.anjocaido.groupmanager.data.User;
@@ -61,6 +62,16 @@ public abstract class PermissionsReaderInterface {
 	 */
 	public abstract String getGroup(String userName);
 
+	/**
+	 * 
+	 * @param uuid
+	 * @return group name for this player.
+	 */
+	public String getGroup(UUID uuid) {
+
+		return getGroup(uuid.toString());
+	}
+
 	/**
 	 * 
 	 * @param userName
@@ -69,6 +80,17 @@ public abstract class PermissionsReaderInterface {
 	 */
 	public abstract boolean inGroup(String userName, String groupName);
 
+	/**
+	 * 
+	 * @param uuid
+	 * @param groupName
+	 * @return true if in group
+	 */
+	public boolean inGroup(UUID uuid, String groupName) {
+
+		return inGroup(uuid.toString(), groupName);
+	}
+
 	/**
 	 * 
 	 * @param groupName
@@ -130,6 +152,17 @@ public abstract class PermissionsReaderInterface {
 	 */
 	public abstract String getUserPermissionString(String userName, String node);
 
+	/**
+	 * 
+	 * @param uuid
+	 * @param node
+	 * @return String value
+	 */
+	public String getUserPermissionString(UUID uuid, String node) {
+
+		return getUserPermissionString(uuid.toString(), node);
+	}
+
 	/**
 	 * 
 	 * @param userName
@@ -138,6 +171,17 @@ public abstract class PermissionsReaderInterface {
 	 */
 	public abstract int getUserPermissionInteger(String userName, String node);
 
+	/**
+	 * 
+	 * @param uuid
+	 * @param node
+	 * @return integer value
+	 */
+	public int getUserPermissionInteger(UUID uuid, String node) {
+
+		return getUserPermissionInteger(uuid.toString(), node);
+	}
+
 	/**
 	 * 
 	 * @param userName
@@ -146,6 +190,17 @@ public abstract class PermissionsReaderInterface {
 	 */
 	public abstract boolean getUserPermissionBoolean(String userName, String node);
 
+	/**
+	 * 
+	 * @param uuid
+	 * @param node
+	 * @return boolean value
+	 */
+	public boolean getUserPermissionBoolean(UUID uuid, String node) {
+
+		return getUserPermissionBoolean(uuid.toString(), node);
+	}
+
 	/**
 	 * 
 	 * @param userName
@@ -154,6 +209,17 @@ public abstract class PermissionsReaderInterface {
 	 */
 	public abstract double getUserPermissionDouble(String userName, String node);
 
+	/**
+	 * 
+	 * @param uuid
+	 * @param node
+	 * @return double value
+	 */
+	public double getUserPermissionDouble(UUID uuid, String node) {
+
+		return getUserPermissionDouble(uuid.toString(), node);
+	}
+
 	/**
 	 * 
 	 * @param userName
@@ -162,6 +228,17 @@ public abstract class PermissionsReaderInterface {
 	 */
 	public abstract String getPermissionString(String userName, String node);
 
+	/**
+	 * 
+	 * @param uuid
+	 * @param node
+	 * @return String value
+	 */
+	public String getPermissionString(UUID uuid, String node) {
+
+		return getPermissionString(uuid.toString(), node);
+	}
+
 	/**
 	 * 
 	 * @param userName
@@ -170,6 +247,17 @@ public abstract class PermissionsReaderInterface {
 	 */
 	public abstract int getPermissionInteger(String userName, String node);
 
+	/**
+	 * 
+	 * @param uuid
+	 * @param node
+	 * @return integer value
+	 */
+	public int getPermissionInteger(UUID uuid, String node) {
+
+		return getPermissionInteger(uuid.toString(), node);
+	}
+
 	/**
 	 * 
 	 * @param userName
@@ -178,6 +266,17 @@ public abstract class PermissionsReaderInterface {
 	 */
 	public abstract boolean getPermissionBoolean(String userName, String node);
 
+	/**
+	 * 
+	 * @param uuid
+	 * @param node
+	 * @return boolean value
+	 */
+	public boolean getPermissionBoolean(UUID uuid, String node) {
+
+		return getPermissionBoolean(uuid.toString(), node);
+	}
+
 	/**
 	 * 
 	 * @param userName
@@ -186,6 +285,17 @@ public abstract class PermissionsReaderInterface {
 	 */
 	public abstract double getPermissionDouble(String userName, String node);
 
+	/**
+	 * 
+	 * @param uuid
+	 * @param node
+	 * @return double value
+	 */
+	public double getPermissionDouble(UUID uuid, String node) {
+
+		return getPermissionDouble(uuid.toString(), node);
+	}
+
 	/////////////////////////////
 	/**
 	 * Gets the appropriate prefix for the user.
@@ -198,6 +308,20 @@ public abstract class PermissionsReaderInterface {
 	 */
 	public abstract String getUserPrefix(String user);
 
+	/**
+	 * Gets the appropriate prefix for the user.
+	 * This method is a utility method for chat plugins to get the user's prefix
+	 * without having to look at every one of the user's ancestors.
+	 * Returns an empty string if user has no parent groups.
+	 * 
+	 * @param uuid Player's UUID
+	 * @return Player's prefix
+	 */
+	public String getUserPrefix(UUID uuid) {
+
+		return getUserPrefix(uuid.toString());
+	}
+
 	/**
 	 * Gets the appropriate suffix for the user.
 	 * This method is a utility method for chat plugins to get the user's suffix
@@ -209,6 +333,20 @@ public abstract class PermissionsReaderInterface {
 	 */
 	public abstract String getUserSuffix(String user);
 
+	/**
+	 * Gets the appropriate suffix for the user.
+	 * This method is a utility method for chat plugins to get the user's suffix
+	 * without having to look at every one of the user's ancestors.
+	 * Returns an empty string if user has no parent groups.
+	 * 
+	 * @param uuid Player's UUID
+	 * @return Player's suffix
+	 */
+	public String getUserSuffix(UUID uuid) {
+
+		return getUserSuffix(uuid.toString());
+	}
+
 	/**
 	 * Returns the group object representing the default group of the given
 	 * world.
@@ -229,6 +367,18 @@ public abstract class PermissionsReaderInterface {
 	 */
 	public abstract String[] getGroups(String name);
 
+	/**
+	 * Gets a array of the names of all parent groups in the same world.
+	 * 
+	 * @param uuid Target user's UUID
+	 * @return An array containing the names of all parent groups (including
+	 *         ancestors) that are in the same world
+	 */
+	public String[] getGroups(UUID uuid) {
+
+		return getGroups(uuid.toString());
+	}
+
 	public abstract String getInfoString(String entryName, String path, boolean isGroup);
 
 	//public abstract String getInfoString(String entryName, String path, boolean isGroup, Comparator<String> comparator);
@@ -265,5 +415,15 @@ public abstract class PermissionsReaderInterface {
 
 	public abstract List<String> getAllPlayersPermissions(String userName);
 
+	public List<String> getAllPlayersPermissions(UUID uuid) {
+
+		return getAllPlayersPermissions(uuid.toString());
+	}
+
 	public abstract Set<String> getAllPlayersPermissions(String userName, Boolean includeChildren);
+
+	public Set<String> getAllPlayersPermissions(UUID uuid, Boolean includeChildren) {
+
+		return getAllPlayersPermissions(uuid.toString(), includeChildren);
+	}
 }
@@ -0,0 +1,620 @@
+/*
+ *  GroupManager - A plug-in for Spigot/Bukkit based Minecraft servers.
+ *  Copyright (C) 2020  ElgarL
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.anjocaido.groupmanager.permissions;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.anjocaido.groupmanager.GroupManager;
+import org.anjocaido.groupmanager.data.DataUnit;
+import org.anjocaido.groupmanager.data.Group;
+import org.anjocaido.groupmanager.data.User;
+import org.anjocaido.groupmanager.data.Variables;
+import org.anjocaido.groupmanager.dataholder.GroupsDataHolder;
+import org.anjocaido.groupmanager.dataholder.UsersDataHolder;
+import org.anjocaido.groupmanager.dataholder.WorldDataHolder;
+import org.anjocaido.groupmanager.utils.PermissionCheckResult;
+import org.anjocaido.groupmanager.utils.PersistentMap;
+import org.bukkit.Bukkit;
+
+/**
+ * An immutable copy of one world's groups and users, able to answer
+ * permission queries from any thread without locking.
+ * 
+ * A world publishes a new snapshot, with a higher version, after each
+ * batch of changes. Readers obtain the latest one from
+ * {@link WorldDataHolder#getSnapshot()} and may keep using it for as
+ * long as they like; it never changes. Writers keep using the mutable
+ * {@link Group} and {@link User} API.
+ * 
+ * Each snapshot is built from the last one, copying only the groups
+ * and users changed since, and shares everything else with it.
+ * 
+ * Queries follow the same rules as {@link AnjoPermissionsHandler},
+ * except that permissions granted to a Player by other plugins are not
+ * consulted, and unknown users are treated as members of the default
+ * group rather than being created.
+ * 
+ * @author ElgarL
+ */
+public final class PermissionsSnapshot {
+
+	private final String world;
+	private final long version;
+	private final String defaultGroup;
+
+	/**
+	 * Local groups by lower case name, and global groups by their lower case g: name.
+	 */
+	private final PersistentMap<String, GroupData> groups;
+	private final PersistentMap<String, UserData> users;
+	private final PersistentMap<String, UserData> names;
+
+	/*
+	 * Where this was copied from, and how far, so the next snapshot can copy only what changed.
+	 */
+	private final GroupsDataHolder groupsSource;
+	private final UsersDataHolder usersSource;
+	private final long groupChanges;
+	private final long userChanges;
+	private final long globalRevision;
+	private final Set<String> globalNames;
+
+	private PermissionsSnapshot(String world, long version, String defaultGroup, PersistentMap<String, GroupData> groups, PersistentMap<String, UserData> users, PersistentMap<String, UserData> names,
+			GroupsDataHolder groupsSource, UsersDataHolder usersSource, long groupChanges, long userChanges, long globalRevision, Set<String> globalNames) {
+
+		this.world = world;
+		this.version = version;
+		this.defaultGroup = defaultGroup;
+		this.groups = groups;
+		this.users = users;
+		this.names = names;
+		this.groupsSource = groupsSource;
+		this.usersSource = usersSource;
+		this.groupChanges = groupChanges;
+		this.userChanges = userChanges;
+		this.globalRevision = globalRevision;
+		this.globalNames = globalNames;
+	}
+
+	/**
+	 * Copy the current state of a world.
+	 * Only the groups and users changed since the previous snapshot
+	 * are copied, everything else is shared with it. A world whose
+	 * data has been replaced since is copied in full.
+	 * 
+	 * @param holder	the world to copy.
+	 * @param previous	the last snapshot of this world, or null.
+	 * @return a new snapshot.
+	 */
+	public static PermissionsSnapshot build(WorldDataHolder holder, PermissionsSnapshot previous) {
+
+		GroupsDataHolder groupsSource = holder.getGroupsObject();
+		UsersDataHolder usersSource = holder.getUsersObject();
+
+		// Read first, so a change made while copying is copied next time.
+		long groupChanges = groupsSource.getChangeCount();
+		long userChanges = usersSource.getChangeCount();
+		long globalRevision = (GroupManager.getGlobalGroups() == null) ? 0 : GroupManager.getGlobalGroups().getRevision();
+
+		Set<String> changedGroups = ((previous == null) || (previous.groupsSource != groupsSource)) ? null : groupsSource.getChangedSince(previous.groupChanges);
+		Set<String> changedUsers = ((previous == null) || (previous.usersSource != usersSource)) ? null : usersSource.getChangedSince(previous.userChanges);
+
+		PersistentMap<String, GroupData> groups = (changedGroups == null) ? PersistentMap.empty() : previous.groups;
+		PersistentMap<String, UserData> users = (changedUsers == null) ? PersistentMap.empty() : previous.users;
+		PersistentMap<String, UserData> names = (changedUsers == null) ? PersistentMap.empty() : previous.names;
+
+		for (String key : (changedGroups == null) ? groupsSource.getGroups().keySet() : changedGroups) {
+			Group group = groupsSource.getGroups().get(key);
+
+			if (group == null)
+				groups = groups.minus(key);
+			else
+				groups = groups.plus(key, GroupData.of(group, (previous == null) ? null : previous.groups.get(key)));
+		}
+
+		// Global groups are few, so all are copied again whenever any changes.
+		Set<String> globalNames = (previous == null) ? Collections.emptySet() : previous.globalNames;
+
+		if ((changedGroups == null) || (previous.globalRevision != globalRevision)) {
+			for (String name : globalNames)
+				groups = groups.minus(name);
+
+			globalNames = new HashSet<>();
+
+			if (GroupManager.getGlobalGroups() != null)
+				for (Group group : GroupManager.getGlobalGroups().getGroupList()) {
+					String key = group.getName().toLowerCase();
+
+					groups = groups.plus(key, GroupData.of(group, (previous == null) ? null : previous.groups.get(key)));
+					globalNames.add(key);
+				}
+			globalNames = Collections.unmodifiableSet(globalNames);
+		}
+
+		for (String key : (changedUsers == null) ? usersSource.getUsers().keySet() : changedUsers) {
+			User user = usersSource.getUsers().get(key);
+			UserData old = users.get(key);
+
+			if ((old != null) && (old.lastName != null) && (names.get(old.lastName.toLowerCase()) == old))
+				names = names.minus(old.lastName.toLowerCase());
+
+			if (user == null) {
+				users = users.minus(key);
+				continue;
+			}
+
+			UserData data = UserData.of(user, (previous == null) ? null : previous.users.get(key));
+
+			users = users.plus(key, data);
+			if (data.lastName != null)
+				names = names.plus(data.lastName.toLowerCase(), data);
+		}
+
+		Group defaultGroup = holder.getDefaultGroup();
+
+		return new PermissionsSnapshot(holder.getName(), (previous == null) ? 1 : previous.version + 1,
+				(defaultGroup == null) ? null : defaultGroup.getName(), groups, users, names,
+				groupsSource, usersSource, groupChanges, userChanges, globalRevision, globalNames);
+	}
+
+	/**
+	 * @return the name of the world this is a snapshot of.
+	 */
+	public String getWorld() {
+
+		return world;
+	}
+
+	/**
+	 * @return the version of this snapshot. Later snapshots of the same world have higher versions.
+	 */
+	public long getVersion() {
+
+		return version;
+	}
+
+	/**
+	 * @return the name of the default group.
+	 */
+	public String getDefaultGroup() {
+
+		return defaultGroup;
+	}
+
+	/**
+	 * Check a user's permission, including groups, inheritance and subgroups.
+	 * 
+	 * @param user	UUID or last known name.
+	 * @param permission
+	 * @return true if the permission is granted.
+	 */
+	public boolean has(String user, String permission) {
+
+		if ((permission == null) || permission.isEmpty())
+			return false;
+
+		UserData data = getUser(user);
+
+		if (!Bukkit.getServer().getOnlineMode() && (check(data, "groupmanager.noofflineperms") == PermissionCheckResult.Type.FOUND)) //$NON-NLS-1$
+			return false;
+
+		PermissionCheckResult.Type result = check(data, permission);
+		return (result == PermissionCheckResult.Type.FOUND) || (result == PermissionCheckResult.Type.EXCEPTION);
+	}
+
+	/**
+	 * @param user	UUID or last known name.
+	 * @return the name of the user's main group.
+	 */
+	public String getGroup(String user) {
+
+		GroupData group = getMainGroup(getUser(user));
+		return (group == null) ? defaultGroup : group.name;
+	}
+
+	/**
+	 * @param user	UUID or last known name.
+	 * @return the user's main group and subgroups, each followed by everything they inherit.
+	 */
+	public String[] getGroups(String user) {
+
+		UserData data = getUser(user);
+		List<String> all = new ArrayList<>(listInherited(getMainGroup(data)));
+
+		for (GroupData subGroup : getSubGroups(data))
+			all.addAll(listInherited(subGroup));
+
+		return all.toArray(new String[0]);
+	}
+
+	/**
+	 * @param user	UUID or last known name.
+	 * @param group
+	 * @return true if the user's main group or any subgroup is, or inherits, the group.
+	 */
+	public boolean inGroup(String user, String group) {
+
+		UserData data = getUser(user);
+
+		if (hasInherited(getMainGroup(data), group))
+			return true;
+
+		for (GroupData subGroup : getSubGroups(data))
+			if (hasInherited(subGroup, group))
+				return true;
+
+		return false;
+	}
+
+	/**
+	 * @param user	UUID or last known name.
+	 * @return the user's prefix, else that of their main group or first subgroup with one.
+	 */
+	public String getUserPrefix(String user) {
+
+		return getUserTag(user, "prefix"); //$NON-NLS-1$
+	}
+
+	/**
+	 * @param user	UUID or last known name.
+	 * @return the user's suffix, else that of their main group or first subgroup with one.
+	 */
+	public String getUserSuffix(String user) {
+
+		return getUserTag(user, "suffix"); //$NON-NLS-1$
+	}
+
+	/**
+	 * @param group
+	 * @return the group's prefix, or an empty string.
+	 */
+	public String getGroupPrefix(String group) {
+
+		GroupData data = groups.get(group.toLowerCase());
+		return (data == null) ? "" : data.getVarString("prefix"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * @param group
+	 * @return the group's suffix, or an empty string.
+	 */
+	public String getGroupSuffix(String group) {
+
+		GroupData data = groups.get(group.toLowerCase());
+		return (data == null) ? "" : data.getVarString("suffix"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * Look up an info node on the user, then their main group
+	 * with inheritance, then their subgroups.
+	 * 
+	 * @param user	UUID or last known name.
+	 * @param variable
+	 * @return the value, or an empty string if not found.
+	 */
+	public String getPermissionString(String user, String variable) {
+
+		UserData data = getUser(user);
+
+		if (data.variables.containsKey(variable))
+			return data.getVarString(variable);
+
+		GroupData found = nextGroupWithVariable(getMainGroup(data), variable);
+
+		for (GroupData subGroup : getSubGroups(data)) {
+			if (found != null)
+				break;
+			found = nextGroupWithVariable(subGroup, variable);
+		}
+		return (found == null) ? "" : found.getVarString(variable); //$NON-NLS-1$
+	}
+
+	private String getUserTag(String user, String variable) {
+
+		UserData data = getUser(user);
+
+		String tag = data.getVarString(variable);
+		if (!tag.isEmpty())
+			return tag;
+
+		GroupData main = getMainGroup(data);
+		tag = (main == null) ? "" : main.getVarString(variable); //$NON-NLS-1$
+		if (!tag.isEmpty())
+			return tag;
+
+		for (GroupData subGroup : getSubGroups(data)) {
+			tag = subGroup.getVarString(variable);
+			if (!tag.isEmpty())
+				break;
+		}
+		return tag;
+	}
+
+	/**
+	 * Find a user by UUID, then by last known name.
+	 * Unknown users are members of the default group only.
+	 */
+	private UserData getUser(String user) {
+
+		UserData data = users.get(user.toLowerCase());
+		if (data == null)
+			data = names.get(user.toLowerCase());
+		if (data == null)
+			data = new UserData(null, 0, user, defaultGroup, Collections.emptyList(), Collections.emptyList(), Collections.emptyMap());
+		return data;
+	}
+
+	private GroupData getMainGroup(UserData user) {
+
+		GroupData group = (user.group == null) ? null : groups.get(user.group.toLowerCase());
+		return ((group == null) && (defaultGroup != null)) ? groups.get(defaultGroup.toLowerCase()) : group;
+	}
+
+	private List<GroupData> getSubGroups(UserData user) {
+
+		List<GroupData> result = new ArrayList<>();
+
+		for (String name : user.subGroups) {
+			GroupData group = groups.get(name.toLowerCase());
+			if (group != null)
+				result.add(group);
+		}
+		return result;
+	}
+
+	/**
+	 * Same rules as the private checkPermission in {@link AnjoPermissionsHandler}.
+	 */
+	private PermissionCheckResult.Type check(UserData user, String permission) {
+
+		PermissionCheckResult.Type result = checkOnly(user.permissions, permission);
+
+		if (result == PermissionCheckResult.Type.EXCEPTION)
+			return result;
+
+		PermissionCheckResult.Type resultGroup = checkInherited(getMainGroup(user), permission);
+
+		if (resultGroup == PermissionCheckResult.Type.EXCEPTION)
+			return resultGroup;
+
+		// Do not override higher level permissions with negations.
+		if (result == PermissionCheckResult.Type.NOTFOUND)
+			result = resultGroup;
+
+		boolean negated = (result == PermissionCheckResult.Type.NEGATION);
+
+		for (GroupData subGroup : getSubGroups(user)) {
+			PermissionCheckResult.Type resultSubGroup = checkInherited(subGroup, permission);
+
+			if (resultSubGroup == PermissionCheckResult.Type.EXCEPTION)
+				return resultSubGroup;
+
+			if ((resultSubGroup == PermissionCheckResult.Type.FOUND) && (result != PermissionCheckResult.Type.NEGATION) && !negated)
+				result = resultSubGroup;
+			else if ((resultSubGroup == PermissionCheckResult.Type.NEGATION) && !negated)
+				result = resultSubGroup;
+		}
+		return result;
+	}
+
+	private PermissionCheckResult.Type checkOnly(List<String> permissions, String permission) {
+
+		for (String access : permissions) {
+			PermissionCheckResult.Type result = AnjoPermissionsHandler.compare(access, permission);
+			if (result != PermissionCheckResult.Type.NOTFOUND)
+				return result;
+		}
+		return PermissionCheckResult.Type.NOTFOUND;
+	}
+
+	/**
+	 * Breadth first through the inheritance, keeping the first match
+	 * unless an exception is found further down.
+	 */
+	private PermissionCheckResult.Type checkInherited(GroupData start, String permission) {
+
+		PermissionCheckResult.Type result = PermissionCheckResult.Type.NOTFOUND;
+
+		if (start == null)
+			return result;
+
+		Deque<GroupData> queue = new ArrayDeque<>();
+		Set<String> visited = new HashSet<>();
+		queue.add(start);
+		visited.add(start.name.toLowerCase());
+
+		while (!queue.isEmpty()) {
+			GroupData now = queue.poll();
+			PermissionCheckResult.Type resultNow = checkOnly(now.permissions, permission);
+
+			if (resultNow == PermissionCheckResult.Type.EXCEPTION)
+				return resultNow;
+
+			if (result == PermissionCheckResult.Type.NOTFOUND)
+				result = resultNow;
+
+			for (String inherit : now.inherits) {
+				GroupData son = groups.get(inherit.toLowerCase());
+				if ((son != null) && visited.add(son.name.toLowerCase()))
+					queue.add(son);
+			}
+		}
+		return result;
+	}
+
+	private List<String> listInherited(GroupData start) {
+
+		List<String> visited = new ArrayList<>();
+
+		if (start == null)
+			return visited;
+
+		LinkedList<GroupData> stack = new LinkedList<>();
+		stack.push(start);
+		visited.add(start.name);
+
+		while (!stack.isEmpty()) {
+			GroupData now = stack.pop();
+			for (String inherit : now.inherits) {
+				GroupData son = groups.get(inherit.toLowerCase());
+				if ((son != null) && !visited.contains(son.name)) {
+					stack.push(son);
+					visited.add(son.name);
+				}
+			}
+		}
+		return visited;
+	}
+
+	private boolean hasInherited(GroupData start, String group) {
+
+		for (String name : listInherited(start))
+			if (name.equalsIgnoreCase(group))
+				return true;
+
+		return false;
+	}
+
+	private GroupData nextGroupWithVariable(GroupData start, String variable) {
+
+		if (start == null)
+			return null;
+
+		Deque<GroupData> queue = new ArrayDeque<>();
+		Set<String> visited = new HashSet<>();
+		queue.add(start);
+		visited.add(start.name.toLowerCase());
+
+		while (!queue.isEmpty()) {
+			GroupData now = queue.poll();
+			if (now.variables.containsKey(variable))
+				return now;
+
+			for (String inherit : now.inherits) {
+				GroupData son = groups.get(inherit.toLowerCase());
+				if ((son != null) && visited.add(son.name.toLowerCase()))
+					queue.add(son);
+			}
+		}
+		return null;
+	}
+
+	private static Map<String, Object> copyVariables(Variables variables) {
+
+		Map<String, Object> copy = new HashMap<>();
+
+		for (String key : variables.getVarKeyList()) {
+			Object value = variables.getVarObject(key);
+			if (value != null)
+				copy.put(key, value);
+		}
+		return Collections.unmodifiableMap(copy);
+	}
+
+	/**
+	 * The parts of a unit the queries need, fixed at the time of copying.
+	 */
+	private abstract static class UnitData {
+
+		/*
+		 * The unit and revision this was copied from, to tell if it can be shared.
+		 */
+		protected final DataUnit source;
+		protected final long revision;
+
+		protected final List<String> permissions;
+		protected final Map<String, Object> variables;
+
+		protected UnitData(DataUnit source, long revision, List<String> permissions, Map<String, Object> variables) {
+
+			this.source = source;
+			this.revision = revision;
+			this.permissions = permissions;
+			this.variables = variables;
+		}
+
+		protected boolean isCopyOf(DataUnit unit) {
+
+			return (source == unit) && (revision == unit.getRevision());
+		}
+
+		protected String getVarString(String name) {
+
+			Object value = variables.get(name);
+			return (value == null) ? "" : value.toString(); //$NON-NLS-1$
+		}
+	}
+
+	private static final class GroupData extends UnitData {
+
+		private final String name;
+		private final List<String> inherits;
+
+		private GroupData(Group source, long revision, String name, List<String> inherits, List<String> permissions, Map<String, Object> variables) {
+
+			super(source, revision, permissions, variables);
+			this.name = name;
+			this.inherits = inherits;
+		}
+
+		private static GroupData of(Group group, GroupData previous) {
+
+			if ((previous != null) && previous.isCopyOf(group))
+				return previous;
+
+			// Read the revision first so a change made while copying is picked up next time.
+			long revision = group.getRevision();
+			return new GroupData(group, revision, group.getName(), Collections.unmodifiableList(new ArrayList<>(group.getInherits())),
+					group.getAllPermissionList(), copyVariables(group.getVariables()));
+		}
+	}
+
+	private static final class UserData extends UnitData {
+
+		private final String lastName;
+		private final String group;
+		private final List<String> subGroups;
+
+		private UserData(User source, long revision, String lastName, String group, List<String> subGroups, List<String> permissions, Map<String, Object> variables) {
+
+			super(source, revision, permissions, variables);
+			this.lastName = lastName;
+			this.group = group;
+			this.subGroups = subGroups;
+		}
+
+		private static UserData of(User user, UserData previous) {
+
+			if ((previous != null) && previous.isCopyOf(user))
+				return previous;
+
+			long revision = user.getRevision();
+			return new UserData(user, revision, user.getLastName(), user.getGroupName(),
+					Collections.unmodifiableList(user.subGroupListStringCopy()), user.getAllPermissionList(), copyVariables(user.getVariables()));
+		}
+	}
+}
@@ -1,7 +1,13 @@
 package org.anjocaido.groupmanager.placeholder;
 
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
 import org.anjocaido.groupmanager.GroupManager;
+import org.anjocaido.groupmanager.dataholder.WorldDataHolder;
 import org.anjocaido.groupmanager.permissions.AnjoPermissionsHandler;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.entity.Player;
@@ -22,6 +28,12 @@ public class GMPlaceholderExpansion extends PlaceholderExpansion {
 
 	private final GroupManager plugin;
 
+	/*
+	 * Values already worked out for each online player.
+	 * Entries go with the Player object when they log out.
+	 */
+	private final Map<Player, CachedValues> cache = Collections.synchronizedMap(new WeakHashMap<>());
+
 	/**
 	 * Since we register the expansion inside our own plugin, we can simply use this
 	 * method here to get an instance of our plugin.
@@ -119,56 +131,140 @@ public class GMPlaceholderExpansion extends PlaceholderExpansion {
 			return "";
 		}
     	
-    	final AnjoPermissionsHandler handler = plugin.getWorldsHolder().getWorldPermissions(online);
-    	if (handler == null) return null;
+    	final WorldDataHolder holder = plugin.getWorldsHolder().getWorldData(online);
+    	if (holder == null) return null;
+    	
+    	final AnjoPermissionsHandler handler = holder.getPermissionsHandler();
+    	
+    	switch (identifier) {
+    	
+    	case "group":
+    	case "allgroups":
+    	case "subgroups":
+    	case "user_prefix":
+    	case "user_suffix":
+    	case "group_prefix":
+    	case "group_suffix":
+    		
+    		CachedValues values = getCachedValues(online, holder);
+    		
+    		synchronized (values) {
+    			if (values.containsKey(identifier))
+    				return values.get(identifier);
+    		}
+    		String value = resolve(handler, online, identifier);
+    		
+    		synchronized (values) {
+    			values.put(identifier, value);
+    		}
+    		return value;
+    		
+    	default:
+    		
+    		String split[] = identifier.split("_");
+
+    		switch (split[0]) {
+
+    		case "perm":	// Perm check via PAPI.
+
+    			if (split.length == 2) {
+
+    				return String.valueOf(handler.has(online, split[1]));
+    			}
+    		}
+    		
+    		// We return null if an invalid placeholder (f.e. %groupmanager_placeholder3%) 
+            // was provided
+    		return null;
+    	}
+    }
+
+    /**
+     * The cached values for this player, emptied if any of the
+     * world's groups or users have changed since they were stored,
+     * or the player has moved to a world with different data.
+     * 
+     * @param  online
+     *         The player.
+     * @param  holder
+     *         The data for the world they are in.
+     * 
+     * @return The cached values.
+     */
+    private CachedValues getCachedValues(Player online, WorldDataHolder holder) {
+    	
+    	// Read first, so a change made while resolving is seen next time.
+    	long stamp = holder.getRevisionStamp();
+    	
+    	synchronized (cache) {
+    		CachedValues values = cache.get(online);
+    		
+    		if ((values == null) || (values.holder != holder) || (values.stamp != stamp) || !values.name.equals(online.getName())) {
+    			values = new CachedValues(holder, online.getName(), stamp);
+    			cache.put(online, values);
+    		}
+    		return values;
+    	}
+    }
+    
+    /**
+     * Work out the value of one of the cacheable placeholders.
+     */
+    private String resolve(AnjoPermissionsHandler handler, Player online, String identifier) {
     	
     	switch (identifier) {
     	
     	case "group":
     		
-    		return handler.getPrimaryGroup(online.getName());
+    		return handler.getPrimaryGroup(online.getUniqueId());
     		
     	case "allgroups":	// Includes inheritance.
 
-    		return String.join(", ", handler.getGroups(online.getName()));
+    		return String.join(", ", handler.getGroups(online.getUniqueId()));
     		
     	case "subgroups":	// Includes timed.
 
-    		return String.join(", ", handler.getSubGroups(online.getName()));
+    		return String.join(", ", handler.getSubGroups(online.getUniqueId()));
     		
     	case "user_prefix":
     		
-    		return handler.getUserPrefix(online.getName());
+    		return handler.getUserPrefix(online.getUniqueId());
     		
     	case "user_suffix":
     		
-    		return handler.getUserSuffix(online.getName());
+    		return handler.getUserSuffix(online.getUniqueId());
     		
     	case "group_prefix":
     		
-    		return handler.getGroupPrefix(handler.getGroup(online.getName()));
+    		return handler.getGroupPrefix(handler.getGroup(online.getUniqueId()));
     		
     	case "group_suffix":
     		
-    		return handler.getGroupSuffix(handler.getGroup(online.getName()));
+    		return handler.getGroupSuffix(handler.getGroup(online.getUniqueId()));
     		
     	default:
     		
-    		String split[] = identifier.split("_");
-
-    		switch (split[0]) {
+    		return null;
+    	}
+    }
+    
+    /**
+     * Placeholder values for one player, valid while the world's
+     * revision stamp is unchanged.
+     */
+    private static class CachedValues extends HashMap<String, String> {
 
-    		case "perm":	// Perm check via PAPI.
+    	private static final long serialVersionUID = 1L;
 
-    			if (split.length == 2) {
+    	private final WorldDataHolder holder;
+    	private final String name;
+    	private final long stamp;
 
-    				return String.valueOf(handler.has(online, split[1]));
-    			}
-    		}
+    	private CachedValues(WorldDataHolder holder, String name, long stamp) {
     		
-    		// We return null if an invalid placeholder (f.e. %groupmanager_placeholder3%) 
-            // was provided
-    		return null;
+    		this.holder = holder;
+    		this.name = name;
+    		this.stamp = stamp;
     	}
     }
 }
@@ -0,0 +1,330 @@
+/*
+ *  GroupManager - A plug-in for Spigot/Bukkit based Minecraft servers.
+ *  Copyright (C) 2020  ElgarL
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.anjocaido.groupmanager.utils;
+
+import java.util.Arrays;
+
+/**
+ * An immutable hash map where adding or removing an entry returns a new
+ * map, sharing everything but the path to that entry with the old one.
+ *
+ * Entries are held in a trie on their key's hash, five bits per level,
+ * so a change copies at most seven small nodes however large the map is.
+ * Being immutable, it may be read from any thread without locking.
+ *
+ * @author ElgarL
+ *
+ * @param <K> key
+ * @param <V> value
+ */
+public final class PersistentMap<K, V> {
+
+	private static final int BITS = 5;
+
+	private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(null, 0);
+
+	private final Node root;
+	private final int size;
+
+	private PersistentMap(Node root, int size) {
+
+		this.root = root;
+		this.size = size;
+	}
+
+	/**
+	 * @return a map with no entries.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <K, V> PersistentMap<K, V> empty() {
+
+		return (PersistentMap<K, V>) EMPTY;
+	}
+
+	/**
+	 * @param key
+	 * @return the value held for this key, or null.
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(Object key) {
+
+		return (root == null) ? null : (V) root.get(key, key.hashCode(), 0);
+	}
+
+	/**
+	 * @param key
+	 * @param value	must not be null.
+	 * @return a map holding this value for the key.
+	 */
+	public PersistentMap<K, V> plus(K key, V value) {
+
+		Entry entry = new Entry(key, key.hashCode(), value);
+		boolean[] added = { false };
+
+		if (root == null)
+			return new PersistentMap<>(new Branch(bit(entry.hash, 0), new Object[] { entry }), 1);
+
+		return new PersistentMap<>(root.put(entry, 0, added), added[0] ? size + 1 : size);
+	}
+
+	/**
+	 * @param key
+	 * @return a map without this key, or this map if it had none.
+	 */
+	public PersistentMap<K, V> minus(Object key) {
+
+		if (root == null)
+			return this;
+
+		Node removed = root.remove(key, key.hashCode(), 0);
+		return (removed == root) ? this : new PersistentMap<>(removed, size - 1);
+	}
+
+	/**
+	 * @return the number of entries.
+	 */
+	public int size() {
+
+		return size;
+	}
+
+	private static int bit(int hash, int shift) {
+
+		return 1 << ((hash >>> shift) & 31);
+	}
+
+	/**
+	 * A node holding two entries which differ from the given level on.
+	 */
+	private static Node pair(Entry a, Entry b, int shift) {
+
+		if (shift >= 32)
+			return new Collision(new Entry[] { a, b });
+
+		int bitA = bit(a.hash, shift);
+		int bitB = bit(b.hash, shift);
+
+		if (bitA == bitB)
+			return new Branch(bitA, new Object[] { pair(a, b, shift + BITS) });
+
+		return new Branch(bitA | bitB, (Integer.compareUnsigned(bitA, bitB) < 0) ? new Object[] { a, b } : new Object[] { b, a });
+	}
+
+	private static final class Entry {
+
+		private final Object key;
+		private final int hash;
+		private final Object value;
+
+		private Entry(Object key, int hash, Object value) {
+
+			this.key = key;
+			this.hash = hash;
+			this.value = value;
+		}
+
+		private boolean matches(Object key, int hash) {
+
+			return (this.hash == hash) && this.key.equals(key);
+		}
+	}
+
+	private abstract static class Node {
+
+		abstract Object get(Object key, int hash, int shift);
+
+		/**
+		 * @return a copy of this node holding the entry.
+		 */
+		abstract Node put(Entry entry, int shift, boolean[] added);
+
+		/**
+		 * @return a copy of this node without the key, null if that leaves it empty, or this node if it had no such key.
+		 */
+		abstract Node remove(Object key, int hash, int shift);
+	}
+
+	/**
+	 * Holds an entry or child node for each set bit of its bitmap.
+	 */
+	private static final class Branch extends Node {
+
+		private final int bitmap;
+		private final Object[] slots;
+
+		private Branch(int bitmap, Object[] slots) {
+
+			this.bitmap = bitmap;
+			this.slots = slots;
+		}
+
+		private int index(int bit) {
+
+			return Integer.bitCount(bitmap & (bit - 1));
+		}
+
+		@Override
+		Object get(Object key, int hash, int shift) {
+
+			int bit = bit(hash, shift);
+
+			if ((bitmap & bit) == 0)
+				return null;
+
+			Object slot = slots[index(bit)];
+
+			if (slot instanceof Entry)
+				return ((Entry) slot).matches(key, hash) ? ((Entry) slot).value : null;
+
+			return ((Node) slot).get(key, hash, shift + BITS);
+		}
+
+		@Override
+		Node put(Entry entry, int shift, boolean[] added) {
+
+			int bit = bit(entry.hash, shift);
+			int index = index(bit);
+
+			if ((bitmap & bit) == 0) {
+				Object[] copy = new Object[slots.length + 1];
+
+				System.arraycopy(slots, 0, copy, 0, index);
+				copy[index] = entry;
+				System.arraycopy(slots, index, copy, index + 1, slots.length - index);
+				added[0] = true;
+				return new Branch(bitmap | bit, copy);
+			}
+
+			Object slot = slots[index];
+			Object replacement;
+
+			if (slot instanceof Entry) {
+				Entry current = (Entry) slot;
+
+				if (current.matches(entry.key, entry.hash)) {
+					replacement = entry;
+				} else {
+					replacement = pair(current, entry, shift + BITS);
+					added[0] = true;
+				}
+			} else {
+				replacement = ((Node) slot).put(entry, shift + BITS, added);
+			}
+
+			Object[] copy = slots.clone();
+			copy[index] = replacement;
+			return new Branch(bitmap, copy);
+		}
+
+		@Override
+		Node remove(Object key, int hash, int shift) {
+
+			int bit = bit(hash, shift);
+
+			if ((bitmap & bit) == 0)
+				return this;
+
+			int index = index(bit);
+			Object slot = slots[index];
+			Object replacement;
+
+			if (slot instanceof Entry) {
+				if (!((Entry) slot).matches(key, hash))
+					return this;
+				replacement = null;
+			} else {
+				replacement = ((Node) slot).remove(key, hash, shift + BITS);
+				if (replacement == slot)
+					return this;
+			}
+
+			if (replacement != null) {
+				Object[] copy = slots.clone();
+				copy[index] = replacement;
+				return new Branch(bitmap, copy);
+			}
+
+			if (slots.length == 1)
+				return null;
+
+			Object[] copy = new Object[slots.length - 1];
+
+			System.arraycopy(slots, 0, copy, 0, index);
+			System.arraycopy(slots, index + 1, copy, index, copy.length - index);
+			return new Branch(bitmap & ~bit, copy);
+		}
+	}
+
+	/**
+	 * Entries whose keys have the same hash.
+	 */
+	private static final class Collision extends Node {
+
+		private final Entry[] entries;
+
+		private Collision(Entry[] entries) {
+
+			this.entries = entries;
+		}
+
+		@Override
+		Object get(Object key, int hash, int shift) {
+
+			for (Entry entry : entries)
+				if (entry.matches(key, hash))
+					return entry.value;
+
+			return null;
+		}
+
+		@Override
+		Node put(Entry entry, int shift, boolean[] added) {
+
+			for (int i = 0; i < entries.length; i++) {
+				if (entries[i].matches(entry.key, entry.hash)) {
+					Entry[] copy = entries.clone();
+					copy[i] = entry;
+					return new Collision(copy);
+				}
+			}
+
+			Entry[] copy = Arrays.copyOf(entries, entries.length + 1);
+			copy[entries.length] = entry;
+			added[0] = true;
+			return new Collision(copy);
+		}
+
+		@Override
+		Node remove(Object key, int hash, int shift) {
+
+			for (int i = 0; i < entries.length; i++) {
+				if (entries[i].matches(key, hash)) {
+					if (entries.length == 1)
+						return null;
+
+					Entry[] copy = new Entry[entries.length - 1];
+
+					System.arraycopy(entries, 0, copy, 0, i);
+					System.arraycopy(entries, i + 1, copy, i, copy.length - i);
+					return new Collision(copy);
+				}
+			}
+			return this;
+		}
+	}
+}
@@ -0,0 +1,113 @@
+/*
+ *  GroupManager - A plug-in for Spigot/Bukkit based Minecraft servers.
+ *  Copyright (C) 2020  ElgarL
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.anjocaido.groupmanager.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * A case-insensitive index of names for prefix searches (tab completion).
+ * 
+ * Names are kept sorted on their lower case form, so a search only visits
+ * the names which match. Adding the same name more than once is counted,
+ * and it stays in the index until removed as many times.
+ * Searches need no locking and may run on any thread.
+ * 
+ * @author ElgarL
+ *
+ */
+public class PrefixIndex {
+
+	private static class Entry {
+
+		private final String name;
+		private final int count;
+
+		private Entry(String name, int count) {
+
+			this.name = name;
+			this.count = count;
+		}
+	}
+
+	private final ConcurrentSkipListMap<String, Entry> entries = new ConcurrentSkipListMap<>();
+
+	/**
+	 * Add a name to the index. Empty or null names are ignored.
+	 * 
+	 * @param name
+	 */
+	public void add(String name) {
+
+		if ((name == null) || name.isEmpty())
+			return;
+
+		entries.compute(name.toLowerCase(), (key, entry) -> new Entry(name, (entry == null) ? 1 : entry.count + 1));
+	}
+
+	/**
+	 * Remove one occurrence of a name from the index.
+	 * 
+	 * @param name
+	 */
+	public void remove(String name) {
+
+		if ((name == null) || name.isEmpty())
+			return;
+
+		entries.computeIfPresent(name.toLowerCase(), (key, entry) -> (entry.count > 1) ? new Entry(entry.name, entry.count - 1) : null);
+	}
+
+	/**
+	 * Remove all names.
+	 */
+	public void clear() {
+
+		entries.clear();
+	}
+
+	/**
+	 * @return the number of distinct names.
+	 */
+	public int size() {
+
+		return entries.size();
+	}
+
+	/**
+	 * Find names starting with a prefix, ignoring case.
+	 * 
+	 * @param prefix	the start of the name.
+	 * @param limit		the most names to return.
+	 * @return up to limit matching names, in alphabetical order.
+	 */
+	public List<String> complete(String prefix, int limit) {
+
+		List<String> result = new ArrayList<>();
+		String key = prefix.toLowerCase();
+
+		for (Map.Entry<String, Entry> entry : entries.tailMap(key).entrySet()) {
+			if ((result.size() >= limit) || !entry.getKey().startsWith(key))
+				break;
+			result.add(entry.getValue().name);
+		}
+		return result;
+	}
+}
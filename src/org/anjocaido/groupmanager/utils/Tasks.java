@@ -40,6 +40,7 @@ import java.util.Locale;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.zip.CRC32;
 
 /**
  * 
@@ -85,6 +86,29 @@ public abstract class Tasks {
 		copy(in, dst);
 	}
 
+	/**
+	 * Calculate a fast checksum of a file's content, used to tell if
+	 * a file was really changed or only had its modified time updated.
+	 * 
+	 * @param file
+	 * @return the CRC32 of the file, or 0 if it can't be read.
+	 */
+	public static long hashFile(File file) {
+
+		CRC32 crc = new CRC32();
+
+		try (InputStream in = new FileInputStream(file)) {
+			byte[] buf = new byte[65536];
+			int len;
+			while ((len = in.read(buf)) > 0) {
+				crc.update(buf, 0, len);
+			}
+		} catch (IOException e) {
+			return 0;
+		}
+		return crc.getValue();
+	}
+
 	/**
 	 * Appends a string to a file
 	 * 